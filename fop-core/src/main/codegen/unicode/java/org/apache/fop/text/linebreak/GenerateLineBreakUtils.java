@@ -462,6 +462,41 @@ public final class GenerateLineBreakUtils {
         out.println("    }");
         out.println();
         out.println("    /**");
+        out.println("     * Return the linebreak property constants for a range of characters, using the");
+        out.println("     * same table lookup as {@link #getLineBreakProperty(char)} in a single pass over");
+        out.println("     * the text. The table only covers the base plane, so for a surrogate pair the");
+        out.println("     * leading surrogate is classified as ID (ideographs) or AL (everything else) and");
+        out.println("     * the trailing surrogate as CM, which prevents a break inside the pair.");
+        out.println("     *");
+        out.println("     * @param text the text");
+        out.println("     * @param start the index of the first character");
+        out.println("     * @param end the index after the last character");
+        out.println("     * @param properties an array to reuse if it is large enough (may be null)");
+        out.println("     * @return an array holding the linebreak property of <code>text.charAt(start + i)</code>");
+        out.println("     *         at index <code>i</code>");
+        out.println("     */");
+        out.println("    public static byte[] getLineBreakProperties(CharSequence text, int start, int end, byte[] properties) {");
+        out.println("        int length = end - start;");
+        out.println("        byte[] result = properties;");
+        out.println("        if (result == null || result.length < length) {");
+        out.println("            result = new byte[length];");
+        out.println("        }");
+        out.println("        for (int i = 0; i < length; i++) {");
+        out.println("            char c = text.charAt(start + i);");
+        out.println("            if (Character.isHighSurrogate(c) && i + 1 < length");
+        out.println("                    && Character.isLowSurrogate(text.charAt(start + i + 1))) {");
+        out.println("                int codePoint = Character.toCodePoint(c, text.charAt(start + i + 1));");
+        out.println("                result[i] = Character.isIdeographic(codePoint)");
+        out.println("                        ? LINE_BREAK_PROPERTY_ID : LINE_BREAK_PROPERTY_AL;");
+        out.println("                result[++i] = LINE_BREAK_PROPERTY_CM;");
+        out.println("            } else {");
+        out.println("                result[i] = lineBreakProperties[c / " + blocksize + "][c % " + blocksize + "];");
+        out.println("            }");
+        out.println("        }");
+        out.println("        return result;");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
         out.println("     * Return the break class constant for the given pair of linebreak");
         out.println("     * property constants.");
         out.println("     *");
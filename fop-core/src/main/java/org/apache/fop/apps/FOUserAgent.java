@@ -57,8 +57,10 @@ import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.fonts.FontManager;
 import org.apache.fop.hyphenation.HyphenationTreeCache;
+import org.apache.fop.image.loader.batik.GVTCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
 import org.apache.fop.render.ImageHandlerRegistry;
+import org.apache.fop.render.ImagePrefetcher;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererConfig;
 import org.apache.fop.render.RendererConfig.RendererConfigParser;
@@ -136,6 +138,7 @@ public class FOUserAgent {
 
     private final ImageSessionContext imageSessionContext;
     private final SoftMapCache pdfObjectCache = new SoftMapCache(true);
+    private ImagePrefetcher imagePrefetcher;
 
     /**
      * Main constructor. <b>This constructor should not be called directly. Please use the
@@ -150,20 +153,44 @@ public class FOUserAgent {
         setTargetResolution(factory.getTargetResolution());
         setAccessibility(factory.isAccessibilityEnabled());
         setKeepEmptyTags(factory.isKeepEmptyTags());
-        imageSessionContext = new AbstractImageSessionContext(factory.getFallbackResolver()) {
+        imageSessionContext = createImageSessionContext();
+    }
 
-            public ImageContext getParentContext() {
-                return factory;
-            }
+    private ImageSessionContext createImageSessionContext() {
+        return new FOPImageSessionContext();
+    }
 
-            public float getTargetResolution() {
-                return FOUserAgent.this.getTargetResolution();
-            }
+    /**
+     * The image session of a rendering run. It also keeps the GVT trees built for the SVG
+     * images of the run, so they are dropped together with the session.
+     */
+    private final class FOPImageSessionContext extends AbstractImageSessionContext
+            implements GVTCache.Holder {
 
-            public Source resolveURI(String uri) {
-                return FOUserAgent.this.resolveURI(uri);
+        private GVTCache gvtCache;
+
+        FOPImageSessionContext() {
+            super(factory.getFallbackResolver());
+        }
+
+        public ImageContext getParentContext() {
+            return factory;
+        }
+
+        public float getTargetResolution() {
+            return FOUserAgent.this.getTargetResolution();
+        }
+
+        public Source resolveURI(String uri) {
+            return FOUserAgent.this.resolveURI(uri);
+        }
+
+        public synchronized GVTCache getGVTCache() {
+            if (gvtCache == null) {
+                gvtCache = new GVTCache(GVTCache.DEFAULT_MAX_SIZE);
             }
-        };
+            return gvtCache;
+        }
     }
 
     /**
@@ -485,6 +512,22 @@ public class FOUserAgent {
         return this.imageSessionContext;
     }
 
+    /**
+     * Returns the image prefetcher which loads the images of this rendering run ahead of
+     * rendering. It loads every image with a new image session.
+     * @return the image prefetcher
+     */
+    public synchronized ImagePrefetcher getImagePrefetcher() {
+        if (imagePrefetcher == null) {
+            imagePrefetcher = new ImagePrefetcher(getImageManager()) {
+                protected ImageSessionContext createSessionContext() {
+                    return createImageSessionContext();
+                }
+            };
+        }
+        return imagePrefetcher;
+    }
+
     // ---------------------------------------------- environment-level stuff
     //                                                (convenience access to FopFactory methods)
 
@@ -34,6 +34,7 @@ import org.xml.sax.SAXException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.xmlgraphics.image.loader.cache.ImageCache;
 import org.apache.xmlgraphics.image.loader.spi.ImageImplRegistry;
 import org.apache.xmlgraphics.image.loader.util.Penalty;
 import org.apache.xmlgraphics.io.ResourceResolver;
@@ -47,6 +48,7 @@ import org.apache.fop.configuration.DefaultConfigurationBuilder;
 import org.apache.fop.fonts.FontManagerConfigurator;
 import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.hyphenation.Hyphenator;
+import org.apache.fop.image.loader.FOPImageCache;
 import org.apache.fop.util.LogUtil;
 
 /**
@@ -346,6 +348,8 @@ public class FopConfParser {
                     hyphPatNames.put(llccKey, filename + Hyphenator.XMLTYPE);
                 } else if ("hyp".equals(extension)) {
                     hyphPatNames.put(llccKey, filename + Hyphenator.HYPTYPE);
+                } else if ("hyb".equals(extension)) {
+                    hyphPatNames.put(llccKey, filename + Hyphenator.HYBTYPE);
                 } else {
                     hyphPatNames.put(llccKey, filename);
                 }
@@ -393,6 +397,41 @@ public class FopConfParser {
         } catch (ConfigurationException e) {
             LogUtil.handleException(log, e, strict);
         }
+        Configuration cacheCfg = parent.getChild("cache", false);
+        if (cacheCfg != null) {
+            try {
+                long maxSize = parseByteSize(cacheCfg.getAttribute("max-size"));
+                ImageCache cache = fopFactoryBuilder.getImageManager().getCache();
+                if (cache instanceof FOPImageCache) {
+                    ((FOPImageCache) cache).setMaxSize(maxSize);
+                }
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            } catch (NumberFormatException nfe) {
+                LogUtil.handleException(log, nfe, strict);
+            }
+        }
+    }
+
+    /**
+     * Parses a number of bytes optionally followed by one of the units KB, MB or GB.
+     * @param value the value to parse
+     * @return the number of bytes
+     */
+    static long parseByteSize(String value) {
+        String size = value.trim().toUpperCase(Locale.ENGLISH);
+        long factor = 1;
+        if (size.endsWith("KB")) {
+            factor = 1024L;
+        } else if (size.endsWith("MB")) {
+            factor = 1024L * 1024;
+        } else if (size.endsWith("GB")) {
+            factor = 1024L * 1024 * 1024;
+        }
+        if (factor > 1) {
+            size = size.substring(0, size.length() - 2).trim();
+        }
+        return Long.parseLong(size) * factor;
     }
 
     /**
@@ -35,6 +35,7 @@ import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.configuration.Configuration;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.image.loader.FOPImageManager;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
 
 /**
@@ -384,7 +385,7 @@ public final class FopFactoryBuilder {
         FopFactoryConfigImpl(EnvironmentProfile enviro) {
             this.enviro = enviro;
             this.baseURI = enviro.getDefaultBaseURI();
-            this.imageManager = new ImageManager(new ImageContextImpl(this));
+            this.imageManager = new FOPImageManager(new ImageContextImpl(this));
         }
 
         /** {@inheritDoc} */
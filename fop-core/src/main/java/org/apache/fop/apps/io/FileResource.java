@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+
+import org.apache.xmlgraphics.io.Resource;
+
+/**
+ * A resource read from a local file. Consumers that benefit from random access, like the font
+ * readers, may use the file directly instead of reading the whole stream.
+ */
+public class FileResource extends Resource {
+
+    private final File file;
+
+    /**
+     * Creates a resource for a local file.
+     * @param file the file
+     * @throws FileNotFoundException if the file cannot be opened
+     */
+    public FileResource(File file) throws FileNotFoundException {
+        super(new BufferedInputStream(new FileInputStream(file)));
+        this.file = file;
+    }
+
+    /**
+     * Returns the file this resource is read from.
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+}
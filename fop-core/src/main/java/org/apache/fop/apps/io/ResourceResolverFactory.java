@@ -221,6 +221,17 @@ public final class ResourceResolverFactory {
 
     private static class NormalResourceResolver implements ResourceResolver {
         public Resource getResource(URI uri) throws IOException {
+            if ("file".equals(uri.getScheme())) {
+                File file;
+                try {
+                    file = new File(uri);
+                } catch (IllegalArgumentException iae) {
+                    file = null;
+                }
+                if (file != null && file.isFile()) {
+                    return new FileResource(file);
+                }
+            }
             return new Resource(uri.toURL().openStream());
         }
 
@@ -340,6 +340,8 @@ public class AreaTreeHandler extends FOEventHandler {
             idTracker.signalIDProcessed(rootFObj.getId());
         }
         model.endDocument();
+        // release the images loaded ahead which weren't rendered
+        getUserAgent().getImagePrefetcher().clear();
 
         if (statistics != null) {
             statistics.logResults();
@@ -19,6 +19,8 @@
 
 package org.apache.fop.complexscripts.fonts;
 
+import java.util.BitSet;
+
 import org.apache.fop.complexscripts.util.GlyphSequence;
 import org.apache.fop.complexscripts.util.ScriptContextTester;
 
@@ -71,6 +73,18 @@ public abstract class GlyphPositioningSubtable extends GlyphSubtable implements
         return false;
     }
 
+    /**
+     * Apply positioning using specified state and subtable array, trying the subtables at every position.
+     * @param ps positioning state
+     * @param sta array of subtables to apply
+     * @param sequenceIndex if non negative, then apply subtables only at specified sequence index
+     * @return true if a non-zero adjustment occurred
+     * @see #position(GlyphPositioningState, GlyphPositioningSubtable[], BitSet, int)
+     */
+    public static final boolean position(GlyphPositioningState ps, GlyphPositioningSubtable[] sta, int sequenceIndex) {
+        return position(ps, sta, null, sequenceIndex);
+    }
+
     /**
      * Apply positioning using specified state and subtable array. For each position in input sequence,
      * apply subtables in order until some subtable applies or none remain. If no subtable applied or no
@@ -80,15 +94,16 @@ public abstract class GlyphPositioningSubtable extends GlyphSubtable implements
      * successful application at <code>sequenceIndex</code>, then discontinue processing the remaining
      * @param ps positioning state
      * @param sta array of subtables to apply
+     * @param coverage the glyphs to which some subtable may apply or null if not known
      * @param sequenceIndex if non negative, then apply subtables only at specified sequence index
      * @return true if a non-zero adjustment occurred
      */
-    public static final boolean position(GlyphPositioningState ps, GlyphPositioningSubtable[] sta, int sequenceIndex) {
+    public static final boolean position(GlyphPositioningState ps, GlyphPositioningSubtable[] sta, BitSet coverage, int sequenceIndex) {
         int sequenceStart = ps.getPosition();
         boolean appliedOneShot = false;
         while (ps.hasNext()) {
             boolean applied = false;
-            if (!appliedOneShot && ps.maybeApplicable()) {
+            if (!appliedOneShot && ps.maybeCovered(coverage) && ps.maybeApplicable()) {
                 for (int i = 0, n = sta.length; !applied && (i < n); i++) {
                     if (sequenceIndex < 0) {
                         applied = ps.apply(sta [ i ]);
@@ -122,8 +137,26 @@ public abstract class GlyphPositioningSubtable extends GlyphSubtable implements
      * @return true if a non-zero adjustment occurred
      */
     public static final boolean position(GlyphSequence gs, String script, String language, String feature, int fontSize, GlyphPositioningSubtable[] sta, int[] widths, int[][] adjustments, ScriptContextTester sct) {
+        return position(gs, script, language, feature, fontSize, sta, null, widths, adjustments, sct);
+    }
+
+    /**
+     * Apply positioning, passing over glyphs to which none of the subtables may apply.
+     * @param gs input glyph sequence
+     * @param script tag
+     * @param language tag
+     * @param feature tag
+     * @param fontSize the font size
+     * @param sta subtable array
+     * @param coverage the glyphs to which some subtable may apply or null if not known
+     * @param widths array
+     * @param adjustments array (receives output adjustments)
+     * @param sct script context tester
+     * @return true if a non-zero adjustment occurred
+     */
+    public static final boolean position(GlyphSequence gs, String script, String language, String feature, int fontSize, GlyphPositioningSubtable[] sta, BitSet coverage, int[] widths, int[][] adjustments, ScriptContextTester sct) {
         synchronized (STATE) {
-            return position(STATE.reset(gs, script, language, feature, fontSize, widths, adjustments, sct), sta, -1);
+            return position(STATE.reset(gs, script, language, feature, fontSize, widths, adjustments, sct), sta, coverage, -1);
         }
     }
 
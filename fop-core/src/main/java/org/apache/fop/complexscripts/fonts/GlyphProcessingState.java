@@ -21,6 +21,7 @@ package org.apache.fop.complexscripts.fonts;
 
 import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import org.apache.fop.complexscripts.util.CharAssociation;
@@ -1001,6 +1002,21 @@ public class GlyphProcessingState {
         }
     }
 
+    /**
+     * Determine if the glyph at the current position is one of a set of glyphs, e.g., the
+     * glyphs covered by the subtables of a lookup.
+     * @param glyphs a set of glyph ids or null if not known
+     * @return true if no set is specified or if the set contains the glyph at the current position
+     */
+    public boolean maybeCovered(BitSet glyphs) {
+        if (glyphs == null) {
+            return true;
+        } else {
+            int gi = getGlyph();
+            return (gi >= 0) && glyphs.get(gi);
+        }
+    }
+
     /**
      * Apply default application semantices; namely, consume one glyph.
      */
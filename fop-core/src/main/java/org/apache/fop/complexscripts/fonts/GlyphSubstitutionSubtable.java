@@ -19,6 +19,8 @@
 
 package org.apache.fop.complexscripts.fonts;
 
+import java.util.BitSet;
+
 import org.apache.fop.complexscripts.util.GlyphSequence;
 import org.apache.fop.complexscripts.util.ScriptContextTester;
 
@@ -71,6 +73,18 @@ public abstract class GlyphSubstitutionSubtable extends GlyphSubtable implements
         return false;
     }
 
+    /**
+     * Apply substitutions using specified state and subtable array, trying the subtables at every position.
+     * @param ss substitution state
+     * @param sta array of subtables to apply
+     * @param sequenceIndex if non negative, then apply subtables only at specified sequence index
+     * @return output glyph sequence
+     * @see #substitute(GlyphSubstitutionState, GlyphSubstitutionSubtable[], BitSet, int)
+     */
+    public static final GlyphSequence substitute(GlyphSubstitutionState ss, GlyphSubstitutionSubtable[] sta, int sequenceIndex) {
+        return substitute(ss, sta, null, sequenceIndex);
+    }
+
     /**
      * Apply substitutions using specified state and subtable array. For each position in input sequence,
      * apply subtables in order until some subtable applies or none remain. If no subtable applied or no
@@ -81,15 +95,16 @@ public abstract class GlyphSubstitutionSubtable extends GlyphSubtable implements
      * glyphs in input sequence.
      * @param ss substitution state
      * @param sta array of subtables to apply
+     * @param coverage the glyphs to which some subtable may apply or null if not known
      * @param sequenceIndex if non negative, then apply subtables only at specified sequence index
      * @return output glyph sequence
      */
-    public static final GlyphSequence substitute(GlyphSubstitutionState ss, GlyphSubstitutionSubtable[] sta, int sequenceIndex) {
+    public static final GlyphSequence substitute(GlyphSubstitutionState ss, GlyphSubstitutionSubtable[] sta, BitSet coverage, int sequenceIndex) {
         int sequenceStart = ss.getPosition();
         boolean appliedOneShot = false;
         while (ss.hasNext()) {
             boolean applied = false;
-            if (!appliedOneShot && ss.maybeApplicable()) {
+            if (!appliedOneShot && ss.maybeCovered(coverage) && ss.maybeApplicable()) {
                 for (int i = 0, n = sta.length; !applied && (i < n); i++) {
                     if (sequenceIndex < 0) {
                         applied = ss.apply(sta [ i ]);
@@ -120,8 +135,23 @@ public abstract class GlyphSubstitutionSubtable extends GlyphSubtable implements
      * @return output glyph sequence
      */
     public static final GlyphSequence substitute(GlyphSequence gs, String script, String language, String feature, GlyphSubstitutionSubtable[] sta, ScriptContextTester sct) {
+        return substitute(gs, script, language, feature, sta, null, sct);
+    }
+
+    /**
+     * Apply substitutions, passing over glyphs to which none of the subtables may apply.
+     * @param gs input glyph sequence
+     * @param script tag
+     * @param language tag
+     * @param feature tag
+     * @param sta subtable array
+     * @param coverage the glyphs to which some subtable may apply or null if not known
+     * @param sct script context tester
+     * @return output glyph sequence
+     */
+    public static final GlyphSequence substitute(GlyphSequence gs, String script, String language, String feature, GlyphSubstitutionSubtable[] sta, BitSet coverage, ScriptContextTester sct) {
         synchronized (STATE) {
-            return substitute(STATE.reset(gs, script, language, feature, sct), sta, -1);
+            return substitute(STATE.reset(gs, script, language, feature, sct), sta, coverage, -1);
         }
     }
 
@@ -20,6 +20,7 @@
 package org.apache.fop.complexscripts.fonts;
 
 import java.lang.ref.WeakReference;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -207,6 +208,27 @@ public abstract class GlyphSubtable implements Comparable {
         }
     }
 
+    /**
+     * Add the glyphs of this subtable's coverage table to a set of glyph ids.
+     * @param glyphs the set of glyph ids to add to
+     * @return false if this subtable has no coverage table, in which case the set is not modified
+     */
+    public boolean addCoverage(BitSet glyphs) {
+        if (mapping instanceof GlyphCoverageMapping) {
+            for (Object o : mapping.getEntries()) {
+                if (o instanceof Integer) {
+                    glyphs.set((Integer) o);
+                } else if (o instanceof GlyphMappingTable.MappingRange) {
+                    GlyphMappingTable.MappingRange r = (GlyphMappingTable.MappingRange) o;
+                    glyphs.set(r.getStart(), r.getEnd() + 1);
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     /**
      * Map glyph id to coverage index.
      * @return the corresponding coverage index of the specified glyph id
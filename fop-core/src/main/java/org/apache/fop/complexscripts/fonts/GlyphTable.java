@@ -21,7 +21,7 @@ package org.apache.fop.complexscripts.fonts;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,6 +29,7 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -69,7 +70,7 @@ public class GlyphTable {
     // map from lookup identifiers to lookup tables
     private Map<String, LookupTable> lookupTables;
 
-    // cache for lookups matching
+    // cache for lookups matching, concurrent as tables may be shared between documents
     private Map<LookupSpec, Map<LookupSpec, List<LookupTable>>> matchedLookups;
 
     // if true, then prevent further subtable addition
@@ -93,7 +94,7 @@ public class GlyphTable {
             this.gdef = gdef;
             this.lookups = lookups;
             this.lookupTables = new LinkedHashMap<String, LookupTable>();
-            this.matchedLookups = new HashMap<LookupSpec, Map<LookupSpec, List<LookupTable>>>();
+            this.matchedLookups = new ConcurrentHashMap<LookupSpec, Map<LookupSpec, List<LookupTable>>>();
         }
     }
 
@@ -476,6 +477,7 @@ public class GlyphTable {
         private boolean frozen;                                 // if true, then don't permit further subtable additions
         // frozen state
         private GlyphSubtable[] subtablesArray;
+        private BitSet coverage;                                // glyphs covered by some subtable or null if unknown
         private static GlyphSubtable[] subtablesArrayEmpty       = new GlyphSubtable[0];
 
         /**
@@ -596,10 +598,33 @@ public class GlyphTable {
                 GlyphSubtable[] sta = getSubtables();
                 resolveLookupReferences(sta, lookupTables);
                 this.subtablesArray = sta;
+                this.coverage = makeCoverage(sta);
                 this.frozen = true;
             }
         }
 
+        private static BitSet makeCoverage(GlyphSubtable[] subtables) {
+            BitSet coverage = new BitSet();
+            if (subtables != null) {
+                for (GlyphSubtable st : subtables) {
+                    if ((st != null) && !st.addCoverage(coverage)) {
+                        return null;
+                    }
+                }
+            }
+            return coverage;
+        }
+
+        /**
+         * Obtain the glyphs to which this lookup table's subtables may apply. Since every subtable
+         * first tests the coverage of the glyph at the current position, glyphs not in this set
+         * can be passed over without trying each subtable.
+         * @return the union of the subtables' coverage or null if not known (e.g., table not frozen)
+         */
+        public BitSet getCoverage() {
+            return coverage;
+        }
+
         private void resolveLookupReferences(GlyphSubtable[] subtables, Map<String, LookupTable> lookupTables) {
             if (subtables != null) {
                 for (GlyphSubtable st : subtables) {
@@ -629,7 +654,7 @@ public class GlyphTable {
          */
         public GlyphSequence substitute(GlyphSequence gs, String script, String language, String feature, ScriptContextTester sct) {
             if (performsSubstitution()) {
-                return GlyphSubstitutionSubtable.substitute(gs, script, language, feature, (GlyphSubstitutionSubtable[]) subtablesArray, sct);
+                return GlyphSubstitutionSubtable.substitute(gs, script, language, feature, (GlyphSubstitutionSubtable[]) subtablesArray, coverage, sct);
             } else {
                 return gs;
             }
@@ -643,7 +668,7 @@ public class GlyphTable {
          */
         public GlyphSequence substitute(GlyphSubstitutionState ss, int sequenceIndex) {
             if (performsSubstitution()) {
-                return GlyphSubstitutionSubtable.substitute(ss, (GlyphSubstitutionSubtable[]) subtablesArray, sequenceIndex);
+                return GlyphSubstitutionSubtable.substitute(ss, (GlyphSubstitutionSubtable[]) subtablesArray, coverage, sequenceIndex);
             } else {
                 return ss.getInput();
             }
@@ -672,7 +697,7 @@ public class GlyphTable {
          */
         public boolean position(GlyphSequence gs, String script, String language, String feature, int fontSize, int[] widths, int[][] adjustments, ScriptContextTester sct) {
             if (performsPositioning()) {
-                return GlyphPositioningSubtable.position(gs, script, language, feature, fontSize, (GlyphPositioningSubtable[]) subtablesArray, widths, adjustments, sct);
+                return GlyphPositioningSubtable.position(gs, script, language, feature, fontSize, (GlyphPositioningSubtable[]) subtablesArray, coverage, widths, adjustments, sct);
             } else {
                 return false;
             }
@@ -686,7 +711,7 @@ public class GlyphTable {
          */
         public boolean position(GlyphPositioningState ps, int sequenceIndex) {
             if (performsPositioning()) {
-                return GlyphPositioningSubtable.position(ps, (GlyphPositioningSubtable[]) subtablesArray, sequenceIndex);
+                return GlyphPositioningSubtable.position(ps, (GlyphPositioningSubtable[]) subtablesArray, coverage, sequenceIndex);
             } else {
                 return false;
             }
@@ -52,6 +52,12 @@ public final class OTFAdvancedTypographicTableReader {
     private GlyphDefinitionTable gdef;                          // glyph definition table
     private GlyphSubstitutionTable gsub;                        // glyph substitution table
     private GlyphPositioningTable gpos;                         // glyph positioning table
+    private final boolean hasGDEF;                              // true if font file has a GDEF table
+    private final boolean hasGSUB;                              // true if font file has a GSUB table
+    private final boolean hasGPOS;                              // true if font file has a GPOS table
+    private volatile boolean gdefRead;                          // true once GDEF table has been read
+    private volatile boolean gsubRead;                          // true once GSUB table has been read
+    private volatile boolean gposRead;                          // true once GPOS table has been read
     // transient parsing state
     private transient Map<String, Object> seScripts;      // script-tag         => Object[3] : { default-language-tag, List(language-tag), seLanguages }
     private transient Map<String, Object> seLanguages;    // language-tag       => Object[2] : { "f<required-feature-index>", List("f<feature-index>")
@@ -71,13 +77,16 @@ public final class OTFAdvancedTypographicTableReader {
         assert in != null;
         this.otf = otf;
         this.in = in;
+        hasGDEF = otf.getDirectoryEntry(OFTableName.GDEF) != null;
+        hasGSUB = otf.getDirectoryEntry(OFTableName.GSUB) != null;
+        hasGPOS = otf.getDirectoryEntry(OFTableName.GPOS) != null;
     }
 
     /**
      * Read all advanced typographic tables.
      * @throws AdvancedTypographicTableFormatException if ATT table has invalid format
      */
-    public void readAll() throws AdvancedTypographicTableFormatException {
+    public synchronized void readAll() throws AdvancedTypographicTableFormatException {
         try {
             readGDEF();
             readGSUB();
@@ -90,6 +99,9 @@ public final class OTFAdvancedTypographicTableReader {
             throw new AdvancedTypographicTableFormatException(e.getMessage(), e);
         } finally {
             resetATState();
+            gdefRead = true;
+            gsubRead = true;
+            gposRead = true;
         }
     }
 
@@ -98,33 +110,160 @@ public final class OTFAdvancedTypographicTableReader {
      * @return true if advanced (typographic) table is present
      */
     public boolean hasAdvancedTable() {
-        return (gdef != null) || (gsub != null) || (gpos != null);
+        return (getGDEF() != null) || (getGSUB() != null) || (getGPOS() != null);
     }
 
     /**
-     * Returns the GDEF table or null if none present.
+     * Determine if a font file contains any advanced (typographic) table.
+     * @param otf the font file
+     * @return true if the font file has a GDEF, GSUB or GPOS table
+     */
+    public static boolean hasAdvancedTable(OpenFont otf) {
+        return otf.getDirectoryEntry(OFTableName.GDEF) != null
+                || otf.getDirectoryEntry(OFTableName.GSUB) != null
+                || otf.getDirectoryEntry(OFTableName.GPOS) != null;
+    }
+
+    /**
+     * Determines whether a GSUB table is available, without reading it if it hasn't been
+     * read yet.
+     * @return true if the font file has a GSUB table that is not known to be invalid
+     */
+    public boolean hasGSUB() {
+        return gsubRead ? gsub != null : hasGSUB;
+    }
+
+    /**
+     * Determines whether a GPOS table is available, without reading it if it hasn't been
+     * read yet.
+     * @return true if the font file has a GPOS table that is not known to be invalid
+     */
+    public boolean hasGPOS() {
+        return gposRead ? gpos != null : hasGPOS;
+    }
+
+    /**
+     * Returns the GDEF table or null if none present. If {@link #readAll()} hasn't been
+     * called, the table is read the first time it is requested.
      * @return the GDEF table
      */
     public GlyphDefinitionTable getGDEF() {
+        if (!gdefRead) {
+            readLazily(OFTableName.GDEF);
+        }
         return gdef;
     }
 
     /**
-     * Returns the GSUB table or null if none present.
+     * Returns the GSUB table or null if none present. If {@link #readAll()} hasn't been
+     * called, the table is read the first time it is requested.
      * @return the GSUB table
      */
     public GlyphSubstitutionTable getGSUB() {
+        if (!gsubRead) {
+            readLazily(OFTableName.GSUB);
+        }
         return gsub;
     }
 
     /**
-     * Returns the GPOS table or null if none present.
+     * Returns the GPOS table or null if none present. If {@link #readAll()} hasn't been
+     * called, the table is read the first time it is requested.
      * @return the GPOS table
      */
     public GlyphPositioningTable getGPOS() {
+        if (!gposRead) {
+            readLazily(OFTableName.GPOS);
+        }
         return gpos;
     }
 
+    /**
+     * Determines whether the given table has been read.
+     * @param tableTag the tag of the GDEF, GSUB or GPOS table
+     * @return true if the table has been read (or found invalid)
+     */
+    public boolean isTableRead(OFTableName tableTag) {
+        if (tableTag == OFTableName.GDEF) {
+            return gdefRead;
+        } else if (tableTag == OFTableName.GSUB) {
+            return gsubRead;
+        } else {
+            return gposRead;
+        }
+    }
+
+    /**
+     * Determines whether the reader still holds the font file, which is the case until all
+     * the tables present in it have been read.
+     * @return true if the font file data is still referenced
+     */
+    public boolean holdsFontData() {
+        return in != null;
+    }
+
+    /**
+     * Reads a table on demand. The GDEF table is read before the GSUB or GPOS table, which
+     * refer to it. The font file data is released once all tables present have been read.
+     * Unlike {@link #readAll()}, a table with an invalid format only causes that table to be
+     * ignored.
+     * @param tableTag the tag of the table to read
+     */
+    private synchronized void readLazily(OFTableName tableTag) {
+        if (!gdefRead) {
+            if (hasGDEF) {
+                readTable(OFTableName.GDEF);
+            }
+            gdefRead = true;
+        }
+        if (tableTag == OFTableName.GSUB && !gsubRead) {
+            if (hasGSUB) {
+                readTable(OFTableName.GSUB);
+            }
+            gsubRead = true;
+        } else if (tableTag == OFTableName.GPOS && !gposRead) {
+            if (hasGPOS) {
+                readTable(OFTableName.GPOS);
+            }
+            gposRead = true;
+        }
+        if ((gsubRead || !hasGSUB) && (gposRead || !hasGPOS)) {
+            otf = null;
+            in = null;
+        }
+    }
+
+    private void readTable(OFTableName tableTag) {
+        try {
+            if (tableTag == OFTableName.GDEF) {
+                readGDEF();
+            } else if (tableTag == OFTableName.GSUB) {
+                readGSUB();
+            } else {
+                readGPOS();
+            }
+        } catch (AdvancedTypographicTableFormatException e) {
+            ignoreTable(tableTag, e);
+        } catch (IOException e) {
+            ignoreTable(tableTag, e);
+        } finally {
+            resetATState();
+        }
+    }
+
+    private void ignoreTable(OFTableName tableTag, Exception e) {
+        if (tableTag == OFTableName.GDEF) {
+            gdef = null;
+        } else if (tableTag == OFTableName.GSUB) {
+            gsub = null;
+        } else {
+            gpos = null;
+        }
+        log.warn("Encountered format constraint violation in advanced (typographic) table ("
+                + tableTag + ") in font '" + otf.getFullName() + "', ignoring table: "
+                + e.getMessage());
+    }
+
     private void readLangSysTable(OFTableName tableTag, long langSysTable, String langSysTag)
             throws IOException {
         in.seekSet(langSysTable);
@@ -3438,7 +3577,7 @@ public final class OTFAdvancedTypographicTableReader {
         initATState();
         // Read glyph substitution (GSUB) table
         OFDirTabEntry dirTab = otf.getDirectoryEntry(tableTag);
-        if (gpos != null) {
+        if (gsub != null) {
             if (log.isDebugEnabled()) {
                 log.debug(tableTag + ": ignoring duplicate table");
             }
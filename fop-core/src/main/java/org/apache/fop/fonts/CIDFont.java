@@ -38,6 +38,17 @@ public abstract class CIDFont extends CustomFont {
         super(resourceResolver);
     }
 
+    /**
+     * Creates a font sharing the font data of the given font.
+     * @param template the font to copy
+     * @param resourceResolver the URI resource resolver of the new font
+     * @see CustomFont#CustomFont(CustomFont, InternalResourceResolver)
+     */
+    protected CIDFont(CIDFont template, InternalResourceResolver resourceResolver) {
+        super(template, resourceResolver);
+        this.width = template.width;
+    }
+
     // ---- Required ----
     /**
      * Returns the type of the CID font.
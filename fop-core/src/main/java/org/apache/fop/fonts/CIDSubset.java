@@ -19,13 +19,17 @@
 
 package org.apache.fop.fonts;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.apache.fop.util.CharUtilities;
+import org.apache.fop.util.IntIntHashMap;
 
 /**
  * Provides methods to get font information.
@@ -39,26 +43,29 @@ import org.apache.fop.util.CharUtilities;
 public class CIDSubset implements CIDSet {
 
     /**
-     * usedGlyphs contains orginal, new glyph index (glyph index -> char selector)
+     * usedGlyphs contains orginal, new glyph index (glyph index -&gt; char selector)
      */
-    private Map<Integer, Integer> usedGlyphs = new LinkedHashMap<Integer, Integer>();
+    private final IntIntHashMap usedGlyphs = new IntIntHashMap();
 
     /**
-     * usedGlyphsIndex contains new glyph, original index (char selector -> glyph index)
+     * usedGlyphsIndex contains new glyph, original index (char selector -&gt; glyph index).
+     * Character selectors are assigned in sequence, so they are used as array indices.
      */
-    private Map<Integer, Integer> usedGlyphsIndex = new HashMap<Integer, Integer>();
+    private int[] usedGlyphsIndex = new int[64];
     private int usedGlyphsCount;
 
     /**
-     * usedCharsIndex contains new glyph, original char (char selector -> Unicode)
+     * usedCharsIndex contains new glyph, original char (char selector -&gt; Unicode)
      */
-    private Map<Integer, Integer> usedCharsIndex = new HashMap<Integer, Integer>();
+    private int[] usedCharsIndex = new int[64];
 
     /**
      * A map between the original character and it's GID in the original font.
      */
-    private Map<Integer, Integer> charToGIDs = new HashMap<Integer, Integer>();
+    private final IntIntHashMap charToGIDs = new IntIntHashMap();
 
+    /** read-only view of usedGlyphs, in the order the glyphs were mapped */
+    private final Map<Integer, Integer> usedGlyphsView = new UsedGlyphs();
 
     private final MultiByteFont font;
 
@@ -66,15 +73,15 @@ public class CIDSubset implements CIDSet {
         font = mbf;
         // The zeroth value is reserved for .notdef
         usedGlyphs.put(0, 0);
-        usedGlyphsIndex.put(0, 0);
+        usedGlyphsIndex[0] = 0;
+        usedCharsIndex[0] = CharUtilities.NOT_A_CHARACTER;
         usedGlyphsCount++;
     }
 
     /** {@inheritDoc} */
     public int getOriginalGlyphIndex(int index) {
-        Integer glyphIndex = usedGlyphsIndex.get(index);
-        if (glyphIndex != null) {
-            return glyphIndex;
+        if (index >= 0 && index < usedGlyphsCount) {
+            return usedGlyphsIndex[index];
         } else {
             return -1;
         }
@@ -82,9 +89,8 @@ public class CIDSubset implements CIDSet {
 
     /** {@inheritDoc} */
     public int getUnicode(int index) {
-        Integer mapValue = usedCharsIndex.get(index);
-        if (mapValue != null) {
-            return mapValue;
+        if (index >= 0 && index < usedGlyphsCount) {
+            return usedCharsIndex[index];
         } else {
             return CharUtilities.NOT_A_CHARACTER;
         }
@@ -99,12 +105,16 @@ public class CIDSubset implements CIDSet {
     public int mapCodePoint(int glyphIndex, int codePoint) {
         // Reencode to a new subset font or get the reencoded value
         // IOW, accumulate the accessed characters and build a character map for them
-        Integer subsetCharSelector = usedGlyphs.get(glyphIndex);
-        if (subsetCharSelector == null) {
+        int subsetCharSelector = usedGlyphs.get(glyphIndex, -1);
+        if (subsetCharSelector < 0) {
             int selector = usedGlyphsCount;
+            if (selector == usedGlyphsIndex.length) {
+                usedGlyphsIndex = Arrays.copyOf(usedGlyphsIndex, selector * 2);
+                usedCharsIndex = Arrays.copyOf(usedCharsIndex, selector * 2);
+            }
             usedGlyphs.put(glyphIndex, selector);
-            usedGlyphsIndex.put(selector, glyphIndex);
-            usedCharsIndex.put(selector, codePoint);
+            usedGlyphsIndex[selector] = glyphIndex;
+            usedCharsIndex[selector] = codePoint;
             charToGIDs.put(codePoint, glyphIndex);
             usedGlyphsCount++;
             return selector;
@@ -115,7 +125,7 @@ public class CIDSubset implements CIDSet {
 
     /** {@inheritDoc} */
     public Map<Integer, Integer> getGlyphs() {
-        return Collections.unmodifiableMap(this.usedGlyphs);
+        return usedGlyphsView;
     }
 
     /** {@inheritDoc} */
@@ -124,13 +134,14 @@ public class CIDSubset implements CIDSet {
         // This is why we can safely cast the value of usedCharsIndex.get(selector)
         // to int . BTW is a question if it should be changed to int as getUnicode
         // or left like this.
-        int selector = usedGlyphs.get(glyphIndex);
-        return (char) usedCharsIndex.get(selector).intValue();
+        // glyphs which haven't been mapped yield a non-character
+        return (char) getUnicode(usedGlyphs.get(glyphIndex, -1));
     }
 
     /** {@inheritDoc} */
     public int getGIDFromChar(char ch) {
-        return charToGIDs.get((int) ch);
+        // characters which haven't been mapped yield .notdef
+        return charToGIDs.get(ch, 0);
     }
 
     /** {@inheritDoc} */
@@ -152,8 +163,8 @@ public class CIDSubset implements CIDSet {
     /** {@inheritDoc} */
     public BitSet getGlyphIndices() {
         BitSet bitset = new BitSet();
-        for (Integer cid : usedGlyphs.keySet()) {
-            bitset.set(cid);
+        for (int i = 0; i < usedGlyphsCount; i++) {
+            bitset.set(usedGlyphsIndex[i]);
         }
         return bitset;
     }
@@ -169,4 +180,62 @@ public class CIDSubset implements CIDSet {
         return tmpWidth;
     }
 
+    /**
+     * Read-only map view of the used glyphs (glyph index -&gt; char selector) which iterates
+     * over the glyphs in the order they were mapped.
+     */
+    private final class UsedGlyphs extends AbstractMap<Integer, Integer> {
+
+        private final Set<Map.Entry<Integer, Integer>> entrySet
+                = new AbstractSet<Map.Entry<Integer, Integer>>() {
+
+            public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                return new Iterator<Map.Entry<Integer, Integer>>() {
+                    private int selector;
+
+                    public boolean hasNext() {
+                        return selector < usedGlyphsCount;
+                    }
+
+                    public Map.Entry<Integer, Integer> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int glyphIndex = usedGlyphsIndex[selector];
+                        return new SimpleImmutableEntry<Integer, Integer>(glyphIndex, selector++);
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            public int size() {
+                return usedGlyphsCount;
+            }
+        };
+
+        public Set<Map.Entry<Integer, Integer>> entrySet() {
+            return entrySet;
+        }
+
+        public int size() {
+            return usedGlyphsCount;
+        }
+
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && usedGlyphs.containsKey((Integer) key);
+        }
+
+        public Integer get(Object key) {
+            if (key instanceof Integer) {
+                int selector = usedGlyphs.get((Integer) key, -1);
+                if (selector >= 0) {
+                    return selector;
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -92,6 +92,48 @@ public abstract class CustomFont extends Typeface
         this.resourceResolver = resourceResolver;
     }
 
+    /**
+     * Creates a font sharing the font data of the given font, which must not be modified
+     * anymore. The state collected while using a font (the character map entries and the
+     * additional encodings added on demand) is not shared.
+     * @param template the font to copy
+     * @param resourceResolver the URI resource resolver of the new font
+     */
+    protected CustomFont(CustomFont template, InternalResourceResolver resourceResolver) {
+        this.fontFileURI = template.fontFileURI;
+        this.fontName = template.fontName;
+        this.fullName = template.fullName;
+        this.familyNames = template.familyNames;
+        this.fontSubName = template.fontSubName;
+        this.embedFileURI = template.embedFileURI;
+        this.embedResourceName = template.embedResourceName;
+        this.resourceResolver = resourceResolver;
+        this.embeddingMode = template.embeddingMode;
+        this.capHeight = template.capHeight;
+        this.xHeight = template.xHeight;
+        this.ascender = template.ascender;
+        this.descender = template.descender;
+        this.fontBBox = template.fontBBox;
+        this.flags = template.flags;
+        this.weight = template.weight;
+        this.stemV = template.stemV;
+        this.italicAngle = template.italicAngle;
+        this.missingWidth = template.missingWidth;
+        this.fontType = template.fontType;
+        this.firstChar = template.firstChar;
+        this.lastChar = template.lastChar;
+        this.underlinePosition = template.underlinePosition;
+        this.underlineThickness = template.underlineThickness;
+        this.strikeoutPosition = template.strikeoutPosition;
+        this.strikeoutThickness = template.strikeoutThickness;
+        this.kerning = template.kerning;
+        this.useKerning = template.useKerning;
+        this.cmap = new ArrayList<CMapSegment>(template.cmap);
+        this.useAdvanced = template.useAdvanced;
+        this.simulateStyle = template.simulateStyle;
+        this.unencodedCharacters = template.unencodedCharacters;
+    }
+
 
     /** {@inheritDoc} */
     public URI getFontURI() {
@@ -31,6 +31,7 @@ public class CustomFontCollection implements FontCollection {
     private final List<EmbedFontInfo> embedFontInfoList;
     private final InternalResourceResolver uriResolver;
     private final boolean useComplexScripts;
+    private final LoadedFontCache loadedFontCache;
 
     /**
      * Main constructor.
@@ -40,9 +41,23 @@ public class CustomFontCollection implements FontCollection {
      */
     public CustomFontCollection(InternalResourceResolver fontResolver,
             List<EmbedFontInfo> customFonts, boolean useComplexScriptFeatures) {
+        this(fontResolver, customFonts, useComplexScriptFeatures, null);
+    }
+
+    /**
+     * Creates a collection whose fonts are loaded through the given cache.
+     * @param fontResolver a font resolver
+     * @param customFonts the list of custom fonts
+     * @param useComplexScriptFeatures true if complex script features enabled
+     * @param loadedFontCache the cache of loaded fonts (may be null)
+     */
+    public CustomFontCollection(InternalResourceResolver fontResolver,
+            List<EmbedFontInfo> customFonts, boolean useComplexScriptFeatures,
+            LoadedFontCache loadedFontCache) {
         this.uriResolver = fontResolver;
         this.embedFontInfoList = customFonts;
         this.useComplexScripts = useComplexScriptFeatures;
+        this.loadedFontCache = loadedFontCache;
     }
 
     /** {@inheritDoc} */
@@ -57,7 +72,8 @@ public class CustomFontCollection implements FontCollection {
             internalName = "F" + num;
             num++;
 
-            LazyFont font = new LazyFont(embedFontInfo, this.uriResolver, useComplexScripts);
+            LazyFont font = new LazyFont(embedFontInfo, this.uriResolver, useComplexScripts,
+                    loadedFontCache);
             fontInfo.addMetrics(internalName, font);
 
             List<FontTriplet> triplets = embedFontInfo.getFontTriplets();
@@ -19,17 +19,38 @@
 
 package org.apache.fop.fonts;
 
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.fonts.autodetect.FontInfoFinder;
 
 /**
- * Adds a list of fonts to a given font info list
+ * Adds a list of fonts to a given font info list. The font files are probed on a bounded
+ * pool of threads whose size is given by the "org.apache.fop.fonts.autodetect.threads"
+ * system property (by default the number of processors, but no more than
+ * 8); a value of 1 probes the fonts on the calling thread.
  */
 public class FontAdder {
+
+    private static final Log LOG = LogFactory.getLog(FontAdder.class);
+
+    private static final String THREADS_PROPERTY = "org.apache.fop.fonts.autodetect.threads";
+
+    private static final int MAX_DEFAULT_THREADS = 8;
+
     private final FontEventListener listener;
     private final InternalResourceResolver resourceResolver;
     private final FontManager manager;
@@ -55,15 +76,61 @@ public class FontAdder {
      */
     public void add(List<URL> fontURLList, List<EmbedFontInfo> fontInfoList)
             throws URISyntaxException {
-        FontCache cache = manager.getFontCache();
-        FontInfoFinder finder = new FontInfoFinder();
-        finder.setEventListener(listener);
+        int threads = Math.min(getThreadCount(), fontURLList.size());
+        if (threads <= 1) {
+            FontCache cache = manager.getFontCache();
+            FontInfoFinder finder = createFinder(listener);
+            for (URL fontURL : fontURLList) {
+                addFontInfos(finder.find(fontURL.toURI(), resourceResolver, cache), fontInfoList);
+            }
+        } else {
+            addInParallel(fontURLList, fontInfoList, threads);
+        }
+    }
 
-        for (URL fontURL : fontURLList) {
-            EmbedFontInfo[] embedFontInfos = finder.find(fontURL.toURI(), resourceResolver, cache);
-            if (embedFontInfos == null) {
-                continue;
+    private void addInParallel(List<URL> fontURLList, List<EmbedFontInfo> fontInfoList, int threads)
+            throws URISyntaxException {
+        final FontCache cache = manager.getFontCache();
+        final FontInfoFinder finder = createFinder(
+                listener != null ? new SynchronizedFontEventListener(listener) : null);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory());
+        try {
+            // the results are collected in the order of the list, so the outcome is the same
+            // as when the fonts are probed one after the other
+            List<Future<EmbedFontInfo[]>> results = new ArrayList<Future<EmbedFontInfo[]>>();
+            for (URL fontURL : fontURLList) {
+                final URI fontURI = fontURL.toURI();
+                results.add(executor.submit(new Callable<EmbedFontInfo[]>() {
+                    public EmbedFontInfo[] call() {
+                        return finder.find(fontURI, resourceResolver, cache);
+                    }
+                }));
+            }
+            for (Future<EmbedFontInfo[]> result : results) {
+                addFontInfos(result.get(), fontInfoList);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Font auto-detection was interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private FontInfoFinder createFinder(FontEventListener eventListener) {
+        FontInfoFinder finder = new FontInfoFinder();
+        finder.setEventListener(eventListener);
+        return finder;
+    }
+
+    private void addFontInfos(EmbedFontInfo[] embedFontInfos, List<EmbedFontInfo> fontInfoList) {
+        if (embedFontInfos != null) {
             for (EmbedFontInfo fontInfo : embedFontInfos) {
                 if (fontInfo != null) {
                     fontInfoList.add(fontInfo);
@@ -71,4 +138,66 @@ public class FontAdder {
             }
         }
     }
+
+    private static int getThreadCount() {
+        int defaultThreads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_THREADS);
+        try {
+            String threads = System.getProperty(THREADS_PROPERTY);
+            if (threads != null) {
+                return Math.max(1, Integer.parseInt(threads.trim()));
+            }
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for " + THREADS_PROPERTY + "; defaulting to " + defaultThreads);
+        } catch (SecurityException e) {
+            LOG.info("Unable to access " + THREADS_PROPERTY
+                    + " due to security restriction; defaulting to " + defaultThreads);
+        }
+        return defaultThreads;
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = delegate.newThread(r);
+            thread.setName("fop-font-autodetect-" + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Forwards the events raised while fonts are probed on several threads one at a time.
+     */
+    private static final class SynchronizedFontEventListener implements FontEventListener {
+
+        private final FontEventListener delegate;
+
+        SynchronizedFontEventListener(FontEventListener delegate) {
+            this.delegate = delegate;
+        }
+
+        public synchronized void fontSubstituted(Object source, FontTriplet requested,
+                FontTriplet effective) {
+            delegate.fontSubstituted(source, requested, effective);
+        }
+
+        public synchronized void fontLoadingErrorAtAutoDetection(Object source, String fontURL,
+                Exception e) {
+            delegate.fontLoadingErrorAtAutoDetection(source, fontURL, e);
+        }
+
+        public synchronized void glyphNotAvailable(Object source, char ch, String fontName) {
+            delegate.glyphNotAvailable(source, ch, fontName);
+        }
+
+        public synchronized void fontDirectoryNotFound(Object source, String dir) {
+            delegate.fontDirectoryNotFound(source, dir);
+        }
+
+        public synchronized void svgTextStrokedAsShapes(Object source, String fontFamily) {
+            delegate.svgTextStrokedAsShapes(source, fontFamily);
+        }
+    }
 }
@@ -20,19 +20,27 @@
 package org.apache.fop.fonts;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
@@ -45,14 +53,31 @@ import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.util.LogUtil;
 
 /**
- * Fop cache (currently only used for font info caching)
+ * Fop cache (currently only used for font info caching). The cache may be queried and
+ * updated by several threads at once.
+ * <p>
+ * The cache file uses a compact, versioned binary format (all values in big endian byte
+ * order, strings in modified UTF-8 as written by {@link DataOutputStream#writeUTF(String)}):
+ * <pre>
+ * int     magic ("FOPF")
+ * int     format version
+ * int     n, n times: string font URL, long last modified, int m, m times: font info
+ * int     n, n times: string font URL, long last modified (fonts that failed to load)
+ *
+ * font info: nstring embed URI, nstring metrics URI, nstring AFM URI, nstring PFM URI,
+ *            boolean kerning, boolean advanced, string encoding mode, string embedding mode,
+ *            boolean simulate style, boolean embed as Type 1, nstring PostScript name,
+ *            nstring sub-font name, int k (-1 for none), k times: string name, string style,
+ *            int weight, int priority
+ * nstring:   boolean present, [string]
+ * </pre>
+ * A cache file is written to a temporary file which then replaces the cache file in a
+ * single rename, so processes reading a cache file shared with other processes never see
+ * a partially written file.
  */
 public final class FontCache implements Serializable {
 
-    /**
-     * Serialization Version UID. Change this value if you want to make sure the
-     * user's cache file is purged after an update.
-     */
+    /** Serialization Version UID. */
     private static final long serialVersionUID = 9129238336422194339L;
 
     /** logging instance */
@@ -64,6 +89,11 @@ public final class FontCache implements Serializable {
     /** font cache file path */
     private static final String DEFAULT_CACHE_FILENAME = "fop-fonts.cache";
 
+    private static final int MAGIC = 0x464F5046; // "FOPF"
+
+    /** Version of the cache file format. Change this value when the format changes. */
+    private static final int VERSION = 1;
+
     /** has this cache been changed since it was last read? */
     private transient boolean changed;
 
@@ -136,7 +166,7 @@ public final class FontCache implements Serializable {
     /**
      * Reads the default font cache file and returns its contents.
      *
-     * @return the font cache deserialized from the file (or null if no cache
+     * @return the font cache read from the file (or null if no cache
      *         file exists or if it could not be read)
      * @deprecated use {@link #loadFrom(File)} instead
      */
@@ -149,7 +179,7 @@ public final class FontCache implements Serializable {
      *
      * @param cacheFile
      *            the cache file
-     * @return the font cache deserialized from the file (or null if no cache
+     * @return the font cache read from the file (or null if no cache
      *         file exists or if it could not be read)
      */
     public static FontCache loadFrom(File cacheFile) {
@@ -159,18 +189,13 @@ public final class FontCache implements Serializable {
                     log.trace("Loading font cache from "
                             + cacheFile.getCanonicalPath());
                 }
-                InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
-                ObjectInputStream oin = new ObjectInputStream(in);
+                DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(cacheFile)));
                 try {
-                    return (FontCache) oin.readObject();
+                    return read(in);
                 } finally {
-                    IOUtils.closeQuietly(oin);
+                    in.close();
                 }
-            } catch (ClassNotFoundException e) {
-                // We don't really care about the exception since it's just a
-                // cache file
-                log.warn("Could not read font cache. Discarding font cache file. Reason: "
-                        + e.getMessage());
             } catch (IOException ioe) {
                 // We don't really care about the exception since it's just a
                 // cache file
@@ -210,13 +235,21 @@ public final class FontCache implements Serializable {
             if (changed) {
                 try {
                     log.trace("Writing font cache to " + cacheFile.getCanonicalPath());
-                    OutputStream out = new java.io.FileOutputStream(cacheFile);
-                    out = new java.io.BufferedOutputStream(out);
-                    ObjectOutputStream oout = new ObjectOutputStream(out);
+                    File dir = cacheFile.getAbsoluteFile().getParentFile();
+                    File tempFile = File.createTempFile("." + cacheFile.getName() + ".", ".tmp", dir);
                     try {
-                        oout.writeObject(this);
+                        DataOutputStream out = new DataOutputStream(
+                                new BufferedOutputStream(new FileOutputStream(tempFile)));
+                        try {
+                            write(out);
+                        } finally {
+                            out.close();
+                        }
+                        replace(tempFile, cacheFile);
                     } finally {
-                        IOUtils.closeQuietly(oout);
+                        if (tempFile.exists() && !tempFile.delete()) {
+                            log.debug("Failed to delete temporary font cache file: " + tempFile);
+                        }
                     }
                 } catch (IOException ioe) {
                     LogUtil.handleException(log, ioe, true);
@@ -227,6 +260,148 @@ public final class FontCache implements Serializable {
         }
     }
 
+    private static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        Map<String, CachedFontFile> fontFiles = getFontFileMap();
+        out.writeInt(fontFiles.size());
+        for (Map.Entry<String, CachedFontFile> entry : fontFiles.entrySet()) {
+            out.writeUTF(entry.getKey());
+            CachedFontFile cachedFontFile = entry.getValue();
+            out.writeLong(cachedFontFile.lastModified());
+            EmbedFontInfo[] fontInfos = cachedFontFile.getEmbedFontInfos();
+            out.writeInt(fontInfos.length);
+            for (EmbedFontInfo fontInfo : fontInfos) {
+                writeFontInfo(fontInfo, out);
+            }
+        }
+        Map<String, Long> failedFonts = getFailedFontMap();
+        out.writeInt(failedFonts.size());
+        for (Map.Entry<String, Long> entry : failedFonts.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static void writeFontInfo(EmbedFontInfo fontInfo, DataOutputStream out)
+            throws IOException {
+        FontUris fontUris = fontInfo.getFontUris();
+        writeURI(fontUris.getEmbed(), out);
+        writeURI(fontUris.getMetrics(), out);
+        writeURI(fontUris.getAfm(), out);
+        writeURI(fontUris.getPfm(), out);
+        out.writeBoolean(fontInfo.getKerning());
+        out.writeBoolean(fontInfo.getAdvanced());
+        out.writeUTF(fontInfo.getEncodingMode().name());
+        out.writeUTF(fontInfo.getEmbeddingMode().name());
+        out.writeBoolean(fontInfo.getSimulateStyle());
+        out.writeBoolean(fontInfo.getEmbedAsType1());
+        writeString(fontInfo.getPostScriptName(), out);
+        writeString(fontInfo.getSubFontName(), out);
+        List<FontTriplet> triplets = fontInfo.getFontTriplets();
+        if (triplets == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(triplets.size());
+            for (FontTriplet triplet : triplets) {
+                out.writeUTF(triplet.getName());
+                out.writeUTF(triplet.getStyle());
+                out.writeInt(triplet.getWeight());
+                out.writeInt(triplet.getPriority());
+            }
+        }
+    }
+
+    private static void writeURI(URI uri, DataOutputStream out) throws IOException {
+        writeString(uri != null ? uri.toASCIIString() : null, out);
+    }
+
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static FontCache read(DataInputStream in) throws IOException {
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a font cache file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported font cache version: " + version);
+            }
+            FontCache fontCache = new FontCache();
+            int fontFiles = in.readInt();
+            for (int i = 0; i < fontFiles; i++) {
+                String url = in.readUTF();
+                CachedFontFile cachedFontFile = new CachedFontFile(in.readLong());
+                int fontInfos = in.readInt();
+                for (int j = 0; j < fontInfos; j++) {
+                    cachedFontFile.put(readFontInfo(in));
+                }
+                fontCache.getFontFileMap().put(url, cachedFontFile);
+            }
+            int failedFonts = in.readInt();
+            for (int i = 0; i < failedFonts; i++) {
+                String url = in.readUTF();
+                fontCache.getFailedFontMap().put(url, in.readLong());
+            }
+            return fontCache;
+        } catch (EOFException eofe) {
+            throw new IOException("Truncated font cache file");
+        } catch (IllegalArgumentException iae) {
+            throw new IOException("Invalid font cache file: " + iae.getMessage());
+        }
+    }
+
+    private static EmbedFontInfo readFontInfo(DataInputStream in) throws IOException {
+        FontUris fontUris = new FontUris(readURI(in), readURI(in), readURI(in), readURI(in));
+        boolean kerning = in.readBoolean();
+        boolean advanced = in.readBoolean();
+        EncodingMode encodingMode = EncodingMode.valueOf(in.readUTF());
+        EmbeddingMode embeddingMode = EmbeddingMode.valueOf(in.readUTF());
+        boolean simulateStyle = in.readBoolean();
+        boolean embedAsType1 = in.readBoolean();
+        String postScriptName = readString(in);
+        String subFontName = readString(in);
+        int n = in.readInt();
+        List<FontTriplet> triplets = n >= 0 ? new ArrayList<FontTriplet>(n) : null;
+        for (int i = 0; i < n; i++) {
+            String name = in.readUTF();
+            String style = in.readUTF();
+            int weight = in.readInt();
+            triplets.add(new FontTriplet(name, style, weight, in.readInt()));
+        }
+        EmbedFontInfo fontInfo = new EmbedFontInfo(fontUris, kerning, advanced, triplets,
+                subFontName, encodingMode, embeddingMode, simulateStyle, embedAsType1);
+        fontInfo.setPostScriptName(postScriptName);
+        return fontInfo;
+    }
+
+    private static URI readURI(DataInputStream in) throws IOException {
+        String uri = readString(in);
+        try {
+            return uri != null ? new URI(uri) : null;
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid URI in font cache file: " + uri);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
     /**
      * creates a key given a font info for the font mapping
      *
@@ -260,7 +435,9 @@ public final class FontCache implements Serializable {
      * @return boolean
      */
     public boolean containsFont(String embedUrl) {
-        return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        synchronized (changeLock) {
+            return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        }
     }
 
     /**
@@ -271,8 +448,10 @@ public final class FontCache implements Serializable {
      * @return font
      */
     public boolean containsFont(EmbedFontInfo fontInfo) {
-        return (fontInfo != null && getFontFileMap().containsKey(
-                getCacheKey(fontInfo)));
+        synchronized (changeLock) {
+            return (fontInfo != null && getFontFileMap().containsKey(
+                    getCacheKey(fontInfo)));
+        }
     }
 
     /**
@@ -351,7 +530,9 @@ public final class FontCache implements Serializable {
      * @return CachedFontFile object
      */
     public CachedFontFile getFontFile(String embedUrl) {
-        return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        synchronized (changeLock) {
+            return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        }
     }
 
     /**
@@ -367,12 +548,16 @@ public final class FontCache implements Serializable {
      *         if it is outdated
      */
     public EmbedFontInfo[] getFontInfos(String embedUrl, long lastModified) {
-        CachedFontFile cff = getFontFile(embedUrl);
-        if (cff.lastModified() == lastModified) {
-            return cff.getEmbedFontInfos();
-        } else {
-            removeFont(embedUrl);
-            return null;
+        synchronized (changeLock) {
+            CachedFontFile cff = getFontFile(embedUrl);
+            if (cff == null) {
+                return null;
+            } else if (cff.lastModified() == lastModified) {
+                return cff.getEmbedFontInfos();
+            } else {
+                removeFont(embedUrl);
+                return null;
+            }
         }
     }
 
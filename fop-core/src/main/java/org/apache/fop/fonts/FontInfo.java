@@ -23,9 +23,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -59,7 +62,24 @@ public class FontInfo {
     private Map<String, Typeface> fonts; //(String = font key)
 
     /** Cache for Font instances. */
-    private Map<FontTriplet, Map<Integer, Font>> fontInstanceCache;
+    private final ConcurrentMap<FontTriplet, FontInstances> fontInstanceCache
+            = new ConcurrentHashMap<FontTriplet, FontInstances>();
+
+    /** Stands in for "no font found" in the lookup caches, which don't accept null values. */
+    private static final FontTriplet NOT_FOUND = new FontTriplet("", "", 0);
+
+    /** Results of {@link #fontLookup(String, String, int, boolean)}, per substitutable flag. */
+    private final ConcurrentMap<FontTriplet, FontTriplet> lookupCache
+            = new ConcurrentHashMap<FontTriplet, FontTriplet>();
+    private final ConcurrentMap<FontTriplet, FontTriplet> strictLookupCache
+            = new ConcurrentHashMap<FontTriplet, FontTriplet>();
+
+    /** Results of {@link #findAdjustWeight(String, String, int)}. */
+    private final ConcurrentMap<FontTriplet, FontTriplet> adjustWeightCache
+            = new ConcurrentHashMap<FontTriplet, FontTriplet>();
+
+    /** Triplets by lower case font name; built on demand. */
+    private volatile Map<String, List<FontTriplet>> tripletsByName;
 
     /** Event listener for font events */
     private FontEventListener eventListener;
@@ -144,6 +164,14 @@ public class FontInfo {
         }
         this.triplets.put(triplet, internalFontKey);
         this.tripletPriorities.put(triplet, newPriority);
+        clearLookupCaches();
+    }
+
+    private void clearLookupCaches() {
+        lookupCache.clear();
+        strictLookupCache.clear();
+        adjustWeightCache.clear();
+        tripletsByName = null;
     }
 
     /**
@@ -203,15 +231,22 @@ public class FontInfo {
         }
 
         FontTriplet startKey = createFontKey(family, style, weight);
-        FontTriplet fontTriplet = startKey;
-        // first try given parameters
-        String internalFontKey = getInternalFontKey(fontTriplet);
-        if (internalFontKey == null) {
-            fontTriplet = fuzzyFontLookup(family, style, weight, startKey, substitutable);
+        ConcurrentMap<FontTriplet, FontTriplet> cache = substitutable ? lookupCache : strictLookupCache;
+        FontTriplet fontTriplet = cache.get(startKey);
+        if (fontTriplet == null) {
+            fontTriplet = startKey;
+            // first try given parameters
+            String internalFontKey = getInternalFontKey(fontTriplet);
+            if (internalFontKey == null) {
+                fontTriplet = fuzzyFontLookup(family, style, weight, startKey, substitutable);
+            }
+            cache.put(startKey, fontTriplet != null ? fontTriplet : NOT_FOUND);
+        } else if (fontTriplet == NOT_FOUND) {
+            fontTriplet = null;
         }
 
         if (fontTriplet != null) {
-            if (fontTriplet != startKey) {
+            if (!fontTriplet.equals(startKey)) {
                 notifyFontReplacement(startKey, fontTriplet);
             }
             return fontTriplet;
@@ -284,13 +319,6 @@ public class FontInfo {
         usedFonts.put(internalName, fonts.get(internalName));
     }
 
-    private Map<FontTriplet, Map<Integer, Font>> getFontInstanceCache() {
-        if (fontInstanceCache == null) {
-            fontInstanceCache = new HashMap<FontTriplet, Map<Integer, Font>>();
-        }
-        return fontInstanceCache;
-    }
-
     /**
      * Retrieves a (possibly cached) Font instance based on a FontTriplet and a font size.
      *
@@ -299,32 +327,41 @@ public class FontInfo {
      * @return the requested Font instance
      */
     public Font getFontInstance(FontTriplet triplet, int fontSize) {
-        Map<Integer, Font> sizes = getFontInstanceCache().get(triplet);
-        if (sizes == null) {
-            sizes = new HashMap<Integer, Font>();
-            getFontInstanceCache().put(triplet, sizes);
+        FontInstances instances = fontInstanceCache.get(triplet);
+        if (instances == null) {
+            instances = new FontInstances();
+            FontInstances existing = fontInstanceCache.putIfAbsent(triplet, instances);
+            if (existing != null) {
+                instances = existing;
+            }
         }
-        Integer size = fontSize;
-        Font font = sizes.get(size);
+        Font font = instances.get(fontSize);
         if (font == null) {
             String fontKey = getInternalFontKey(triplet);
             useFont(fontKey);
             FontMetrics metrics = getMetricsFor(fontKey);
-            font = new Font(fontKey, triplet, metrics, fontSize);
-            sizes.put(size, font);
+            font = instances.add(new Font(fontKey, triplet, metrics, fontSize));
         }
         return font;
     }
 
     private List<FontTriplet> getTripletsForName(String fontName) {
-        List<FontTriplet> matchedTriplets = new ArrayList<FontTriplet>();
-        for (FontTriplet triplet : triplets.keySet()) {
-            String tripletName = triplet.getName();
-            if (tripletName.toLowerCase().equals(fontName.toLowerCase())) {
-                matchedTriplets.add(triplet);
+        Map<String, List<FontTriplet>> index = tripletsByName;
+        if (index == null) {
+            index = new HashMap<String, List<FontTriplet>>();
+            for (FontTriplet triplet : triplets.keySet()) {
+                String name = triplet.getName().toLowerCase(Locale.ENGLISH);
+                List<FontTriplet> named = index.get(name);
+                if (named == null) {
+                    named = new ArrayList<FontTriplet>(1);
+                    index.put(name, named);
+                }
+                named.add(triplet);
             }
+            tripletsByName = index;
         }
-        return matchedTriplets;
+        List<FontTriplet> matchedTriplets = index.get(fontName.toLowerCase(Locale.ENGLISH));
+        return matchedTriplets != null ? matchedTriplets : Collections.<FontTriplet>emptyList();
     }
 
     /**
@@ -463,6 +500,16 @@ public class FontInfo {
      * @return internal key
      */
     public FontTriplet findAdjustWeight(String family, String style, int weight) {
+        FontTriplet request = createFontKey(family, style, weight);
+        FontTriplet result = adjustWeightCache.get(request);
+        if (result == null) {
+            result = adjustWeight(family, style, weight);
+            adjustWeightCache.put(request, result != null ? result : NOT_FOUND);
+        }
+        return result != NOT_FOUND ? result : null;
+    }
+
+    private FontTriplet adjustWeight(String family, String style, int weight) {
         FontTriplet key = null;
         String f = null;
         int newWeight = weight;
@@ -656,4 +703,44 @@ public class FontInfo {
         }
         System.out.println(stringBuffer.toString());
     }
+
+    /**
+     * The Font instances of a font triplet in the sizes requested so far. Lookups don't lock
+     * or allocate; the arrays are replaced (copy-on-write) when a size is added.
+     */
+    private static final class FontInstances {
+
+        private volatile int[] sizes = new int[0];
+
+        private volatile Font[] fonts = new Font[0];
+
+        Font get(int size) {
+            Font[] fonts = this.fonts;
+            int[] sizes = this.sizes;
+            // fonts is written last, so sizes may have more entries than fonts, but not fewer
+            for (int i = 0; i < fonts.length; i++) {
+                if (sizes[i] == size) {
+                    return fonts[i];
+                }
+            }
+            return null;
+        }
+
+        synchronized Font add(Font font) {
+            Font existing = get(font.getFontSize());
+            if (existing != null) {
+                return existing;
+            }
+            int n = fonts.length;
+            int[] newSizes = new int[n + 1];
+            System.arraycopy(sizes, 0, newSizes, 0, n);
+            newSizes[n] = font.getFontSize();
+            Font[] newFonts = new Font[n + 1];
+            System.arraycopy(fonts, 0, newFonts, 0, n);
+            newFonts[n] = font;
+            sizes = newSizes;
+            fonts = newFonts;
+            return font;
+        }
+    }
 }
@@ -43,6 +43,12 @@ public class FontManager {
 
     private FontCacheManager fontCacheManager;
 
+    /** The fonts loaded so far, shared by the documents using this font manager */
+    private final LoadedFontCache loadedFontCache = new LoadedFontCache();
+
+    /** The font resources generated by renderers, shared by the documents using this font manager */
+    private final FontSubsetCache fontSubsetCache = new FontSubsetCache();
+
     /** Font substitutions */
     private FontSubstitutions fontSubstitutions;
 
@@ -78,6 +84,24 @@ public class FontManager {
         return this.resourceResolver;
     }
 
+    /**
+     * Returns the cache of the fonts loaded from font files, which allows documents to share
+     * the parsed font data.
+     * @return the loaded font cache
+     */
+    public LoadedFontCache getLoadedFontCache() {
+        return this.loadedFontCache;
+    }
+
+    /**
+     * Returns the cache of the font resources (e.g. font subsets) generated by renderers,
+     * which allows documents to share them.
+     * @return the font subset cache
+     */
+    public FontSubsetCache getFontSubsetCache() {
+        return this.fontSubsetCache;
+    }
+
     /** @return true if kerning on base 14 fonts is enabled */
     public boolean isBase14KerningEnabled() {
         return this.enableBase14Kerning;
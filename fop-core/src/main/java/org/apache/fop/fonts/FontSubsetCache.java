@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps font resources generated by renderers (e.g. embedded font subsets) so that documents
+ * using the same fonts and glyphs don't have to generate them again.
+ * <p>
+ * A resource is stored for a font key, identifying the font and everything besides the glyphs
+ * the resource depends on, and the glyphs in the order they were assigned to the subset.
+ * A lookup returns a resource whose glyph list equals the requested one or starts with it:
+ * such a subset contains every requested glyph at the same position, so it may be used
+ * in place of the requested one. A number of subsets is kept for each font. The cache is
+ * bounded by the total size of the resources: once it is exceeded, the subsets of the fonts
+ * used least recently are dropped.
+ */
+public class FontSubsetCache {
+
+    /** the default maximum size of the cached resources in bytes */
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    /** the default maximum number of subsets kept for a font */
+    public static final int DEFAULT_MAX_SUBSETS_PER_FONT = 8;
+
+    private final long maxSize;
+
+    private final int maxSubsetsPerFont;
+
+    private final Map<Object, LinkedList<Subset>> fonts
+            = new LinkedHashMap<Object, LinkedList<Subset>>(16, 0.75f, true);
+
+    private long size;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Creates a new cache with the default limits.
+     */
+    public FontSubsetCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_MAX_SUBSETS_PER_FONT);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum size of the cached resources in bytes
+     * @param maxSubsetsPerFont the maximum number of subsets kept for a font
+     */
+    public FontSubsetCache(long maxSize, int maxSubsetsPerFont) {
+        if (maxSize <= 0 || maxSubsetsPerFont <= 0) {
+            throw new IllegalArgumentException("maxSize and maxSubsetsPerFont must be positive");
+        }
+        this.maxSize = maxSize;
+        this.maxSubsetsPerFont = maxSubsetsPerFont;
+    }
+
+    /**
+     * Returns a resource generated for the given glyphs or for a superset of them.
+     * @param fontKey the font key (must implement equals() and hashCode())
+     * @param glyphs the glyph indices in the order they are assigned in the subset
+     * @return the resource or null if no suitable resource is in the cache
+     */
+    public synchronized byte[] get(Object fontKey, int[] glyphs) {
+        List<Subset> subsets = fonts.get(fontKey);
+        if (subsets != null) {
+            for (Iterator<Subset> iter = subsets.iterator(); iter.hasNext();) {
+                Subset subset = iter.next();
+                if (subset.startsWith(glyphs)) {
+                    // keep the subsets that are used in front
+                    iter.remove();
+                    subsets.add(0, subset);
+                    hits++;
+                    return subset.data;
+                }
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Puts a generated resource into the cache. The byte array must not be modified afterwards.
+     * @param fontKey the font key (must implement equals() and hashCode())
+     * @param glyphs the glyph indices in the order they are assigned in the subset
+     * @param data the generated resource
+     */
+    public synchronized void put(Object fontKey, int[] glyphs, byte[] data) {
+        if (data.length > maxSize) {
+            return;
+        }
+        LinkedList<Subset> subsets = fonts.get(fontKey);
+        if (subsets == null) {
+            subsets = new LinkedList<Subset>();
+            fonts.put(fontKey, subsets);
+        }
+        // subsets covered by the new one are not needed anymore
+        for (Iterator<Subset> iter = subsets.iterator(); iter.hasNext();) {
+            Subset subset = iter.next();
+            if (new Subset(glyphs, null).startsWith(subset.glyphs)) {
+                iter.remove();
+                size -= subset.data.length;
+            }
+        }
+        subsets.addFirst(new Subset(glyphs.clone(), data));
+        size += data.length;
+        while (subsets.size() > maxSubsetsPerFont) {
+            size -= subsets.removeLast().data.length;
+        }
+        evict();
+    }
+
+    private void evict() {
+        for (Iterator<LinkedList<Subset>> iter = fonts.values().iterator();
+                iter.hasNext() && size > maxSize;) {
+            LinkedList<Subset> subsets = iter.next();
+            while (!subsets.isEmpty() && size > maxSize) {
+                size -= subsets.removeLast().data.length;
+                evictions++;
+            }
+            if (subsets.isEmpty()) {
+                iter.remove();
+            }
+        }
+    }
+
+    /** @return the number of subsets in the cache */
+    public synchronized int size() {
+        int size = 0;
+        for (List<Subset> subsets : fonts.values()) {
+            size += subsets.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes all resources from the cache. The statistics are not reset.
+     */
+    public synchronized void clear() {
+        fonts.clear();
+        size = 0;
+    }
+
+    /** @return the total size of the cached resources in bytes */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /** @return the maximum size of the cached resources in bytes */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /** @return the number of lookups that found a resource */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of lookups that didn't find a resource */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /** @return the number of subsets dropped to keep the cache within its maximum size */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private static final class Subset {
+
+        private final int[] glyphs;
+
+        private final byte[] data;
+
+        Subset(int[] glyphs, byte[] data) {
+            this.glyphs = glyphs;
+            this.data = data;
+        }
+
+        boolean startsWith(int[] prefix) {
+            if (prefix.length > glyphs.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (glyphs[i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -52,6 +52,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private final String subFontName;
     private final boolean embedded;
     private final InternalResourceResolver resourceResolver;
+    private final LoadedFontCache loadedFontCache;
 
     private boolean isMetricsLoaded;
     private Typeface realFont;
@@ -64,6 +65,19 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      */
     public LazyFont(EmbedFontInfo fontInfo, InternalResourceResolver resourceResolver,
             boolean useComplexScripts) {
+        this(fontInfo, resourceResolver, useComplexScripts, null);
+    }
+
+    /**
+     * Creates a font that is loaded through the given cache, so that the font data can be
+     * shared with other documents.
+     * @param fontInfo  the font info to embed
+     * @param resourceResolver the font resolver to handle font URIs
+     * @param useComplexScripts true if complex script features are enabled
+     * @param loadedFontCache the cache of loaded fonts (may be null)
+     */
+    public LazyFont(EmbedFontInfo fontInfo, InternalResourceResolver resourceResolver,
+            boolean useComplexScripts, LoadedFontCache loadedFontCache) {
 
         this.fontUris = fontInfo.getFontUris();
         this.useKerning = fontInfo.getKerning();
@@ -81,6 +95,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         this.subFontName = fontInfo.getSubFontName();
         this.embedded = fontInfo.isEmbedded();
         this.resourceResolver = resourceResolver;
+        this.loadedFontCache = loadedFontCache;
     }
 
     /** {@inheritDoc} */
@@ -116,8 +131,13 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
                     if (fontUris.getEmbed() == null) {
                         throw new RuntimeException("Cannot load font. No font URIs available.");
                     }
-                    realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
+                    if (loadedFontCache != null) {
+                        realFont = loadedFontCache.loadFont(fontUris, subFontName, embedded, embeddingMode,
                                 encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1);
+                    } else {
+                        realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
+                                encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1);
+                    }
                 }
                 if (realFont instanceof FontDescriptor) {
                     realFontDescriptor = (FontDescriptor) realFont;
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.util.LRUCache;
+
+/**
+ * Keeps the fonts parsed by {@link FontLoader} so that the documents processed with the same
+ * {@link FontManager} don't parse the same font files over and over again.
+ * <p>
+ * The parsed font data (metrics, character map, advanced typographic tables) is loaded once
+ * and never modified afterwards. Every call to
+ * {@link #loadFont(FontUris, String, boolean, EmbeddingMode, EncodingMode, boolean, boolean,
+ * InternalResourceResolver, boolean, boolean)} returns a new, lightweight font sharing that
+ * data but keeping track of the glyphs used in a document on its own. Only
+ * {@link MultiByteFont}s are shared; other fonts are loaded for every call.
+ * <p>
+ * Fonts are identified by their resolved URIs and loading settings, so the cache doesn't
+ * reference the resource resolvers: the fonts returned use the resolver they're requested with.
+ * The least recently used fonts are dropped once the cache holds its maximum number of fonts.
+ * Fonts loaded from files are loaded again when the file has been modified since.
+ */
+public class LoadedFontCache {
+
+    /** the default maximum number of fonts kept in the cache */
+    public static final int DEFAULT_MAX_FONTS = 32;
+
+    private final LRUCache<List<Object>, Entry> fonts;
+
+    /**
+     * Creates a cache keeping up to {@link #DEFAULT_MAX_FONTS} fonts.
+     */
+    public LoadedFontCache() {
+        this(DEFAULT_MAX_FONTS);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxFonts the maximum number of fonts kept in the cache
+     */
+    public LoadedFontCache(int maxFonts) {
+        fonts = new LRUCache<List<Object>, Entry>(maxFonts);
+    }
+
+    /**
+     * Loads a custom font, reusing the font data loaded before for the same parameters.
+     * @param fontUris the URI to the font
+     * @param subFontName the sub-fontname of a font (for TrueType Collections, null otherwise)
+     * @param embedded indicates whether the font is embedded or referenced
+     * @param embeddingMode the embedding mode of the font
+     * @param encodingMode the requested encoding mode
+     * @param useKerning indicates whether kerning information should be loaded if available
+     * @param useAdvanced indicates whether advanced typographic information shall be loaded if
+     * available
+     * @param resourceResolver the font resolver to use when resolving URIs
+     * @param simulateStyle indicates whether bold/italic styles shall be simulated
+     * @param embedAsType1 indicates whether the font shall be embedded as Type 1
+     * @return a font that may be used by a single document
+     * @throws IOException In case of an I/O error
+     * @see FontLoader#loadFont(FontUris, String, boolean, EmbeddingMode, EncodingMode, boolean,
+     * boolean, InternalResourceResolver, boolean, boolean)
+     */
+    public CustomFont loadFont(FontUris fontUris, String subFontName,
+            boolean embedded, EmbeddingMode embeddingMode, EncodingMode encodingMode,
+            boolean useKerning, boolean useAdvanced, InternalResourceResolver resourceResolver,
+            boolean simulateStyle, boolean embedAsType1) throws IOException {
+        List<Object> key = Arrays.<Object>asList(resolve(resourceResolver, fontUris.getEmbed()),
+                resolve(resourceResolver, fontUris.getMetrics()), subFontName, embedded,
+                embeddingMode, encodingMode, useKerning, useAdvanced, simulateStyle, embedAsType1);
+        long lastModified = getLastModified(resourceResolver, fontUris);
+        Entry entry = fonts.get(key);
+        if (entry == null || entry.lastModified != lastModified) {
+            CustomFont font = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
+                    encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle,
+                    embedAsType1);
+            if (font.getClass() != MultiByteFont.class) {
+                return font;
+            }
+            //the cached font doesn't keep the resolver it was loaded with, so its URIs are
+            //resolved for the other resolvers
+            MultiByteFont template = new MultiByteFont((MultiByteFont) font, null);
+            template.setFontURI(resolve(resourceResolver, template.getFontURI()));
+            template.setEmbedURI(resolve(resourceResolver, template.getEmbedFileURI()));
+            Entry loaded = new Entry(template, lastModified);
+            entry = fonts.putIfAbsent(key, loaded);
+            if (entry.lastModified != lastModified) {
+                //replaces the font loaded before the file was modified
+                fonts.put(key, loaded);
+                entry = loaded;
+            }
+        }
+        return new MultiByteFont(entry.font, resourceResolver);
+    }
+
+    private static URI resolve(InternalResourceResolver resourceResolver, URI uri) {
+        return uri != null ? resourceResolver.resolveFromBase(uri) : null;
+    }
+
+    private static long getLastModified(InternalResourceResolver resourceResolver,
+            FontUris fontUris) {
+        return Math.max(getLastModified(resourceResolver, fontUris.getEmbed()),
+                getLastModified(resourceResolver, fontUris.getMetrics()));
+    }
+
+    private static long getLastModified(InternalResourceResolver resourceResolver, URI uri) {
+        URI resolved = resolve(resourceResolver, uri);
+        if (resolved != null && "file".equals(resolved.getScheme())) {
+            try {
+                return new File(resolved).lastModified();
+            } catch (IllegalArgumentException e) {
+                //not a file URI that can be validated
+            }
+        }
+        return -1;
+    }
+
+    /** @return the number of fonts in the cache */
+    public int size() {
+        return fonts.size();
+    }
+
+    /**
+     * Removes all fonts from the cache.
+     */
+    public void clear() {
+        fonts.clear();
+    }
+
+    private static final class Entry {
+
+        private final MultiByteFont font;
+
+        private final long lastModified;
+
+        private Entry(MultiByteFont font, long lastModified) {
+            this.font = font;
+            this.lastModified = lastModified;
+        }
+    }
+}
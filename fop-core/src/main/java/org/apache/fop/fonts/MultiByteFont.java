@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.nio.CharBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -37,12 +38,14 @@ import org.apache.fop.complexscripts.fonts.GlyphDefinitionTable;
 import org.apache.fop.complexscripts.fonts.GlyphPositioningTable;
 import org.apache.fop.complexscripts.fonts.GlyphSubstitutionTable;
 import org.apache.fop.complexscripts.fonts.GlyphTable;
+import org.apache.fop.complexscripts.fonts.OTFAdvancedTypographicTableReader;
 import org.apache.fop.complexscripts.fonts.Positionable;
 import org.apache.fop.complexscripts.fonts.Substitutable;
 import org.apache.fop.complexscripts.util.CharAssociation;
 import org.apache.fop.complexscripts.util.CharNormalize;
 import org.apache.fop.complexscripts.util.GlyphSequence;
 import org.apache.fop.util.CharUtilities;
+import org.apache.fop.util.LRUCache;
 
 /**
  * Generic MultiByte (CID) font
@@ -65,6 +68,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     private GlyphDefinitionTable gdef;
     private GlyphSubstitutionTable gsub;
     private GlyphPositioningTable gpos;
+    private OTFAdvancedTypographicTableReader advancedTableReader;
 
     /* dynamic private use (character) mappings */
     private int numMapped;
@@ -87,6 +91,17 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     //A map to store each used glyph from the CID set against the glyph name.
     private LinkedHashMap<Integer, String> usedGlyphNames = new LinkedHashMap<Integer, String>();
 
+    /** the maximum number of shaped words remembered by a font */
+    private static final int SHAPING_CACHE_SIZE = 1024;
+
+    /* results of glyph substitution and positioning, created on first use; the private use
+     * mappings created while shaping belong to this font, so these caches are never shared */
+    private LRUCache<List<Object>, SubstitutionResult> substitutionCache;
+    private LRUCache<List<Object>, int[][]> positioningCache;
+
+    /* marks a positioning result of null in the positioning cache */
+    private static final int[][] NO_ADJUSTMENTS = new int[0][];
+
     /**
      * Default constructor
      */
@@ -101,6 +116,32 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         }
     }
 
+    /**
+     * Creates a font sharing the metrics, character map and advanced typographic tables of the
+     * given font, but with its own set of used glyphs, so that a font loaded once can be used
+     * by several documents. The given font must not be modified or used anymore.
+     * @param template the font to copy
+     * @param resourceResolver the URI resource resolver of the new font
+     */
+    MultiByteFont(MultiByteFont template, InternalResourceResolver resourceResolver) {
+        super(template, resourceResolver);
+        this.ttcName = template.ttcName;
+        this.encoding = template.encoding;
+        this.defaultWidth = template.defaultWidth;
+        this.cidType = template.cidType;
+        if (getEmbeddingMode() != EmbeddingMode.FULL) {
+            cidSet = new CIDSubset(this);
+        } else {
+            cidSet = new CIDFull(this);
+        }
+        this.gdef = template.gdef;
+        this.gsub = template.gsub;
+        this.gpos = template.gpos;
+        this.advancedTableReader = template.advancedTableReader;
+        this.boundingBoxes = template.boundingBoxes;
+        this.isOTFFile = template.isOTFFile;
+    }
+
     /** {@inheritDoc} */
     @Override
     public int getDefaultWidth() {
@@ -478,6 +519,15 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         return cidSet.getGIDFromChar(ch);
     }
 
+    /**
+     * Establishes the reader of the advanced typographic tables, which are then read when
+     * first needed, unless set explicitly.
+     * @param advancedTableReader the reader of the font file's GDEF, GSUB and GPOS tables
+     */
+    public void setAdvancedTableReader(OTFAdvancedTypographicTableReader advancedTableReader) {
+        this.advancedTableReader = advancedTableReader;
+    }
+
     /**
      * Establishes the glyph definition table.
      * @param gdef the glyph definition table to be used by this font
@@ -495,6 +545,9 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @return glyph definition table or null if none is associated with font
      */
     public GlyphDefinitionTable getGDEF() {
+        if (gdef == null && advancedTableReader != null) {
+            return advancedTableReader.getGDEF();
+        }
         return gdef;
     }
 
@@ -515,6 +568,9 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @return glyph substitution table or null if none is associated with font
      */
     public GlyphSubstitutionTable getGSUB() {
+        if (gsub == null && advancedTableReader != null) {
+            return advancedTableReader.getGSUB();
+        }
         return gsub;
     }
 
@@ -535,33 +591,96 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @return glyph positioning table or null if none is associated with font
      */
     public GlyphPositioningTable getGPOS() {
+        if (gpos == null && advancedTableReader != null) {
+            return advancedTableReader.getGPOS();
+        }
         return gpos;
     }
 
     /** {@inheritDoc} */
     public boolean performsSubstitution() {
+        if (gsub == null && advancedTableReader != null) {
+            // answered from the table directory, the table is read when first used
+            return advancedTableReader.hasGSUB();
+        }
         return gsub != null;
     }
 
     /** {@inheritDoc} */
     public CharSequence performSubstitution(CharSequence charSequence, String script, String language,
                                             List associations, boolean retainControls) {
-        if (gsub != null) {
-            charSequence = gsub.preProcess(charSequence, script, this, associations);
-            GlyphSequence glyphSequence = charSequenceToGlyphSequence(charSequence, associations);
-            GlyphSequence glyphSequenceSubstituted = gsub.substitute(glyphSequence, script, language);
-            if (associations != null) {
-                associations.clear();
-                associations.addAll(glyphSequenceSubstituted.getAssociations());
-            }
-            if (!retainControls) {
-                glyphSequenceSubstituted = elideControls(glyphSequenceSubstituted);
-            }
-            // may not contains all the characters that were in charSequence.
-            // see: #createPrivateUseMapping(int gi)
-            return mapGlyphsToChars(glyphSequenceSubstituted);
-        } else {
+        GlyphSubstitutionTable gsub = getGSUB();
+        if (gsub == null) {
             return charSequence;
+        } else if (associations != null && !associations.isEmpty()) {
+            // the given associations take part in the substitution, don't use the cache
+            return substitute(gsub, charSequence, script, language, associations, retainControls);
+        }
+        List<Object> key = Arrays.<Object>asList(charSequence.toString(), script, language,
+                retainControls, associations != null);
+        LRUCache<List<Object>, SubstitutionResult> cache;
+        synchronized (this) {
+            if (substitutionCache == null) {
+                substitutionCache = new LRUCache<List<Object>, SubstitutionResult>(SHAPING_CACHE_SIZE);
+            }
+            cache = substitutionCache;
+        }
+        SubstitutionResult result = cache.get(key);
+        if (result == null) {
+            CharSequence chars = substitute(gsub, charSequence, script, language, associations,
+                    retainControls);
+            cache.putIfAbsent(key, new SubstitutionResult(chars.toString(),
+                    associations != null ? cloneAssociations(associations) : null));
+            return chars;
+        }
+        notifyMapOperation();
+        if (associations != null) {
+            addAssociations(associations, cloneAssociations(result.associations));
+        }
+        return CharBuffer.wrap(result.chars);
+    }
+
+    private CharSequence substitute(GlyphSubstitutionTable gsub, CharSequence charSequence, String script,
+            String language, List<?> associations, boolean retainControls) {
+        charSequence = gsub.preProcess(charSequence, script, this, associations);
+        GlyphSequence glyphSequence = charSequenceToGlyphSequence(charSequence, associations);
+        GlyphSequence glyphSequenceSubstituted = gsub.substitute(glyphSequence, script, language);
+        if (associations != null) {
+            associations.clear();
+            addAssociations(associations, glyphSequenceSubstituted.getAssociations());
+        }
+        if (!retainControls) {
+            glyphSequenceSubstituted = elideControls(glyphSequenceSubstituted);
+        }
+        // may not contains all the characters that were in charSequence.
+        // see: #createPrivateUseMapping(int gi)
+        return mapGlyphsToChars(glyphSequenceSubstituted);
+    }
+
+    private static List<CharAssociation> cloneAssociations(List<?> associations) {
+        List<CharAssociation> clones = new ArrayList<CharAssociation>(associations.size());
+        for (Object association : associations) {
+            clones.add((CharAssociation) ((CharAssociation) association).clone());
+        }
+        return clones;
+    }
+
+    /* the associations passed by callers are untyped lists of CharAssociation */
+    @SuppressWarnings("unchecked")
+    private static void addAssociations(List<?> associations, List<?> toAdd) {
+        ((List<Object>) associations).addAll(toAdd);
+    }
+
+    /** The outcome of a glyph substitution, kept in the substitution cache. */
+    private static final class SubstitutionResult {
+
+        private final String chars;
+
+        private final List<CharAssociation> associations;
+
+        SubstitutionResult(String chars, List<CharAssociation> associations) {
+            this.chars = chars;
+            this.associations = associations;
         }
     }
 
@@ -573,6 +692,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     /** {@inheritDoc} */
     public CharSequence reorderCombiningMarks(
         CharSequence cs, int[][] gpa, String script, String language, List associations) {
+        GlyphDefinitionTable gdef = getGDEF();
         if (gdef != null) {
             GlyphSequence igs = mapCharsToGlyphs(cs, associations);
             GlyphSequence ogs = gdef.reorderCombiningMarks(igs, getUnscaledWidths(igs), gpa, script, language);
@@ -599,25 +719,60 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     /** {@inheritDoc} */
     public boolean performsPositioning() {
+        if (gpos == null && advancedTableReader != null) {
+            // answered from the table directory, the table is read when first used
+            return advancedTableReader.hasGPOS();
+        }
         return gpos != null;
     }
 
     /** {@inheritDoc} */
     public int[][]
         performPositioning(CharSequence cs, String script, String language, int fontSize) {
+        GlyphPositioningTable gpos = getGPOS();
         if (gpos != null) {
-            GlyphSequence gs = mapCharsToGlyphs(cs, null);
-            int[][] adjustments = new int [ gs.getGlyphCount() ] [ 4 ];
-            if (gpos.position(gs, script, language, fontSize, this.width, adjustments)) {
-                return scaleAdjustments(adjustments, fontSize);
+            List<Object> key = Arrays.<Object>asList(cs.toString(), script, language, fontSize);
+            LRUCache<List<Object>, int[][]> cache;
+            synchronized (this) {
+                if (positioningCache == null) {
+                    positioningCache = new LRUCache<List<Object>, int[][]>(SHAPING_CACHE_SIZE);
+                }
+                cache = positioningCache;
+            }
+            int[][] adjustments = cache.get(key);
+            if (adjustments == null) {
+                adjustments = position(gpos, cs, script, language, fontSize);
+                cache.putIfAbsent(key, adjustments != null ? copyAdjustments(adjustments) : NO_ADJUSTMENTS);
+                return adjustments;
             } else {
-                return null;
+                notifyMapOperation();
+                // callers adjust the returned array in place
+                return adjustments != NO_ADJUSTMENTS ? copyAdjustments(adjustments) : null;
             }
         } else {
             return null;
         }
     }
 
+    private int[][] position(GlyphPositioningTable gpos, CharSequence cs, String script, String language,
+            int fontSize) {
+        GlyphSequence gs = mapCharsToGlyphs(cs, null);
+        int[][] adjustments = new int [ gs.getGlyphCount() ] [ 4 ];
+        if (gpos.position(gs, script, language, fontSize, this.width, adjustments)) {
+            return scaleAdjustments(adjustments, fontSize);
+        } else {
+            return null;
+        }
+    }
+
+    private static int[][] copyAdjustments(int[][] adjustments) {
+        int[][] copy = new int [ adjustments.length ] [];
+        for (int i = 0; i < adjustments.length; i++) {
+            copy[i] = adjustments[i].clone();
+        }
+        return copy;
+    }
+
     /** {@inheritDoc} */
     public int[][] performPositioning(CharSequence cs, String script, String language) {
         throw new UnsupportedOperationException();
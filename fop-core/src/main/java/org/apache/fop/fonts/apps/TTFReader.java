@@ -19,9 +19,8 @@
 
 package org.apache.fop.fonts.apps;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Map;
 import java.util.Set;
 
@@ -209,16 +208,11 @@ public class TTFReader extends AbstractFontReader {
             throws IOException {
         TTFFile ttfFile = new TTFFile(useKerning, useAdvanced);
         log.info("Reading " + fileName + "...");
-        InputStream stream = new FileInputStream(fileName);
-        try {
-            FontFileReader reader = new FontFileReader(stream);
-            String header = OFFontLoader.readHeader(reader);
-            boolean supported = ttfFile.readFont(reader, header, fontName);
-            if (!supported) {
-                return null;
-            }
-        } finally {
-            stream.close();
+        FontFileReader reader = new FontFileReader(new File(fileName));
+        String header = OFFontLoader.readHeader(reader);
+        boolean supported = ttfFile.readFont(reader, header, fontName);
+        if (!supported) {
+            return null;
         }
 
         log.info("Font Family: " + ttfFile.getFamilyNames());
@@ -19,20 +19,31 @@
 
 package org.apache.fop.fonts.truetype;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.apache.commons.io.IOUtils;
 
+import org.apache.fop.apps.io.FileResource;
+
 /**
  * Reads a TrueType font file into a byte array and
  * provides file like functions for array access.
+ * Large font files available as local files are mapped into memory instead of being
+ * read into a byte array, so that only the parts of the font actually accessed are loaded.
  */
 public class FontFileReader {
 
+    /** Font files of at least this size are mapped into memory if possible. */
+    private static final long MAPPING_THRESHOLD = 1024 * 1024;
+
     private final int fsize; // file size
     private int current;    // current position in file
-    private final byte[] file;
+    private ByteBuffer file; // a wrapped byte array or a read-only memory mapped file
 
     /**
      * Constructor
@@ -41,11 +52,37 @@ public class FontFileReader {
      * @throws IOException In case of an I/O problem
      */
     public FontFileReader(InputStream in) throws IOException {
-        this.file = IOUtils.toByteArray(in);
-        this.fsize = this.file.length;
+        if (in instanceof FileResource
+                && ((FileResource) in).getFile().length() >= MAPPING_THRESHOLD) {
+            this.file = map(((FileResource) in).getFile());
+        } else {
+            this.file = ByteBuffer.wrap(IOUtils.toByteArray(in));
+        }
+        this.fsize = this.file.capacity();
         this.current = 0;
     }
 
+    /**
+     * Creates a reader for a font file which is mapped into memory.
+     *
+     * @param fontFile the font file
+     * @throws IOException In case of an I/O problem
+     */
+    public FontFileReader(File fontFile) throws IOException {
+        this.file = map(fontFile);
+        this.fsize = this.file.capacity();
+        this.current = 0;
+    }
+
+    private static ByteBuffer map(File fontFile) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(fontFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
 
     /**
      * Set current file position to offset
@@ -100,7 +137,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        final byte ret = file[current++];
+        final byte ret = file.get(current++);
         return ret;
     }
 
@@ -167,8 +204,12 @@ public class FontFileReader {
         final byte b1 = (byte)((val >> 8) & 0xff);
         final byte b2 = (byte)(val & 0xff);
         final int fileIndex = (int) pos;
-        file[fileIndex] = b1;
-        file[fileIndex + 1] = b2;
+        if (file.isReadOnly()) {
+            // copy a memory mapped file before modifying it
+            getAllBytes();
+        }
+        file.put(fileIndex, b1);
+        file.put(fileIndex + 1, b2);
     }
 
     /**
@@ -239,7 +280,7 @@ public class FontFileReader {
      */
     public final String readTTFString() throws IOException {
         int i = current;
-        while (file[i++] != 0) {
+        while (file.get(i++) != 0) {
             if (i >= fsize) {
                 throw new java.io.EOFException("Reached EOF, file size="
                                                + fsize);
@@ -247,7 +288,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[i - current - 1];
-        System.arraycopy(file, current, tmp, 0, i - current - 1);
+        copy(current, tmp, 0, i - current - 1);
         return new String(tmp, "ISO-8859-1");
     }
 
@@ -265,7 +306,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        copy(current, tmp, 0, len);
         current += len;
         final String encoding;
         if ((tmp.length > 0) && (tmp[0] == 0)) {
@@ -290,7 +331,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        copy(current, tmp, 0, len);
         current += len;
         final String encoding;
         encoding = "UTF-16BE"; //Use this for all known encoding IDs for now
@@ -312,14 +353,47 @@ public class FontFileReader {
         }
 
         byte[] ret = new byte[length];
-        System.arraycopy(file, offset, ret, 0, length);
+        copy(offset, ret, 0, length);
         return ret;
     }
+
+    /**
+     * Copies a part of the file into the given array, without an intermediate copy.
+     *
+     * @param offset The absolute offset to start reading from
+     * @param dest The array to copy to
+     * @param destOffset The offset in the array to copy to
+     * @param length The number of bytes to copy
+     * @throws IOException if out of bounds
+     */
+    public void getBytes(int offset, byte[] dest, int destOffset, int length) throws IOException {
+        if ((offset + length) > fsize) {
+            throw new java.io.IOException("Reached EOF");
+        }
+        copy(offset, dest, destOffset, length);
+    }
+
+    private void copy(int offset, byte[] dest, int destOffset, int length) {
+        if (file.hasArray()) {
+            System.arraycopy(file.array(), file.arrayOffset() + offset, dest, destOffset, length);
+        } else {
+            ByteBuffer src = file.duplicate();
+            src.position(offset);
+            src.get(dest, destOffset, length);
+        }
+    }
+
     /**
-     * Returns the full byte array representation of the file.
+     * Returns the full byte array representation of the file. A memory mapped file is
+     * copied into a byte array at this point.
      * @return byte array.
      */
     public byte[] getAllBytes() {
-        return file;
+        if (!file.hasArray() || file.arrayOffset() != 0 || file.array().length != fsize) {
+            byte[] bytes = new byte[fsize];
+            copy(0, bytes, 0, fsize);
+            file = ByteBuffer.wrap(bytes);
+        }
+        return file.array();
     }
 }
@@ -114,6 +114,8 @@ public class OFFontLoader extends FontLoader {
             String header = readHeader(reader);
             boolean isCFF = header.equals("OTTO");
             OpenFont otf = (isCFF) ? new OTFFile(useKerning, useAdvanced) : new TTFFile(useKerning, useAdvanced);
+            // the font data (mapped if large) is kept until GDEF/GSUB/GPOS are first used, then released
+            otf.setReadAdvancedLazily(true);
             boolean supported = otf.readFont(reader, header, ttcFontName);
             if (!supported) {
                 throw new IOException("The font does not have a Unicode cmap table: " + fontFileURI);
@@ -289,9 +291,7 @@ public class OFFontLoader extends FontLoader {
     private void copyAdvanced(OpenFont otf) {
         if (returnFont instanceof MultiByteFont) {
             MultiByteFont mbf = (MultiByteFont) returnFont;
-            mbf.setGDEF(otf.getGDEF());
-            mbf.setGSUB(otf.getGSUB());
-            mbf.setGPOS(otf.getGPOS());
+            mbf.setAdvancedTableReader(otf.getAdvancedTableReader());
         }
     }
 
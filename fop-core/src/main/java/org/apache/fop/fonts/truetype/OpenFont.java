@@ -229,6 +229,7 @@ public abstract class OpenFont {
 
     // advanced typographic table support
     protected boolean useAdvanced;
+    protected boolean readAdvancedLazily;
     protected OTFAdvancedTypographicTableReader advancedTableReader;
 
     /**
@@ -264,6 +265,25 @@ public abstract class OpenFont {
         this.useAdvanced = useAdvanced;
     }
 
+    /**
+     * Sets whether the advanced typographic tables (GDEF, GSUB, GPOS) are only read when
+     * they are first requested instead of while reading the font. This must be set before
+     * the font is read, and the {@link FontFileReader} used to read the font must remain
+     * usable afterwards.
+     * @param readAdvancedLazily true to read the advanced typographic tables on demand
+     */
+    public void setReadAdvancedLazily(boolean readAdvancedLazily) {
+        this.readAdvancedLazily = readAdvancedLazily;
+    }
+
+    /**
+     * Returns the reader of the advanced typographic tables.
+     * @return the reader or null if advanced typographic tables are not used
+     */
+    public OTFAdvancedTypographicTableReader getAdvancedTableReader() {
+        return advancedTableReader;
+    }
+
     /**
      * Key-value helper class.
      */
@@ -879,7 +899,12 @@ public abstract class OpenFont {
 
     protected void handleCharacterSpacing(FontFileReader in) throws IOException {
         // Read advanced typographic tables.
-        if (useAdvanced) {
+        if (useAdvanced && readAdvancedLazily) {
+            // no reader (holding on to the font data) for fonts without any of the tables
+            if (OTFAdvancedTypographicTableReader.hasAdvancedTable(this)) {
+                this.advancedTableReader = new OTFAdvancedTypographicTableReader(this, in);
+            }
+        } else if (useAdvanced) {
             try {
                 OTFAdvancedTypographicTableReader atr
                     = new OTFAdvancedTypographicTableReader(this, in);
@@ -182,7 +182,7 @@ public class TTFSubSetFile extends TTFFile {
         if (entry != null) {
             pad4();
             seekTab(in, tableName, 0);
-            writeBytes(in.getBytes((int) entry.getOffset(), (int) entry.getLength()));
+            writeBytes(in, (int) entry.getOffset(), (int) entry.getLength());
 
             updateCheckSum(currentPos, (int) entry.getLength(), tableName);
             currentPos += (int) entry.getLength();
@@ -231,7 +231,7 @@ public class TTFSubSetFile extends TTFFile {
         if (entry != null) {
             pad4();
             seekTab(in, maxp, 0);
-            writeBytes(in.getBytes((int) entry.getOffset(), (int) entry.getLength()));
+            writeBytes(in, (int) entry.getOffset(), (int) entry.getLength());
             writeUShort(currentPos + 4, size);
 
             updateCheckSum(currentPos, (int)entry.getLength(), maxp);
@@ -282,7 +282,7 @@ public class TTFSubSetFile extends TTFFile {
         if (entry != null) {
             pad4();
             seekTab(in, OFTableName.HHEA, 0);
-            writeBytes(in.getBytes((int) entry.getOffset(), (int) entry.getLength()));
+            writeBytes(in, (int) entry.getOffset(), (int) entry.getLength());
             writeUShort((int) entry.getLength() + currentPos - 2, size);
 
             updateCheckSum(currentPos, (int) entry.getLength(), OFTableName.HHEA);
@@ -306,7 +306,7 @@ public class TTFSubSetFile extends TTFFile {
         if (entry != null) {
             pad4();
             seekTab(in, head, 0);
-            writeBytes(in.getBytes((int) entry.getOffset(), (int) entry.getLength()));
+            writeBytes(in, (int) entry.getOffset(), (int) entry.getLength());
 
             checkSumAdjustmentOffset = currentPos + 8;
             output[currentPos + 8] = 0;     // Set checkSumAdjustment to 0
@@ -358,12 +358,9 @@ public class TTFSubSetFile extends TTFFile {
                 int glyphOffset = (int)mtxTab[origGlyphIndex].getOffset();
                 int glyphLength = nextOffset - glyphOffset;
 
-                byte[] glyphData = in.getBytes(
-                        (int)entry.getOffset() + glyphOffset,
-                        glyphLength);
                 int endOffset1 = endOffset;
                 // Copy glyph
-                writeBytes(glyphData);
+                writeBytes(in, (int) entry.getOffset() + glyphOffset, glyphLength);
 
 
                 // Update loca table
@@ -608,6 +605,19 @@ public class TTFSubSetFile extends TTFFile {
         System.arraycopy(b, 0, output, currentPos, b.length);
     }
 
+    /**
+     * Appends a part of the font file to the output array, without an intermediate copy.
+     * Doesn't update currentPos or realSize.
+     */
+    protected void writeBytes(FontFileReader in, int offset, int length) throws IOException {
+        if (length + currentPos > output.length) {
+            byte[] newoutput = new byte[Math.max(output.length * 2, length + currentPos)];
+            System.arraycopy(output, 0, newoutput, 0, output.length);
+            output = newoutput;
+        }
+        in.getBytes(offset, output, currentPos, length);
+    }
+
     /**
      * Appends a USHORT to the output array,
      * updates currentPost but not realSize
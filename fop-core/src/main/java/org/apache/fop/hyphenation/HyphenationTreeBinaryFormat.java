@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * <p>Compact binary representation of a {@link HyphenationTree}.</p>
+ *
+ * <p>Unlike the ".hyp" files produced through Java serialization, this format consists of
+ * the raw node arrays of the ternary trees, so a tree can be restored with a few bulk copies
+ * out of a (possibly memory-mapped) buffer instead of through an
+ * {@link java.io.ObjectInputStream}. All values are stored in big endian byte order.</p>
+ *
+ * <pre>
+ * int     magic ("FOPH")
+ * int     format version
+ * tree    pattern tree
+ * int     n, byte[n] interletter value space
+ * tree    character class map
+ * int     n, n times: string word, int m, m times: (byte 0, string) | (byte 1, 3 strings)
+ *
+ * tree:   char root, char freenode, int length,
+ *         int n, char[n] lo, char[n] hi, char[n] eq, char[n] sc,
+ *         int k, char[k] kv
+ * string: int length (-1 for null), char[length]
+ * </pre>
+ */
+public final class HyphenationTreeBinaryFormat {
+
+    /** File extension used for hyphenation trees in this format. */
+    public static final String EXTENSION = ".hyb";
+
+    private static final int MAGIC = 0x464F5048; // "FOPH"
+
+    private static final int VERSION = 1;
+
+    private static final byte EXCEPTION_STRING = 0;
+
+    private static final byte EXCEPTION_HYPHEN = 1;
+
+    private HyphenationTreeBinaryFormat() {
+    }
+
+    /**
+     * Writes a hyphenation tree in the compact binary format.
+     * @param hTree the hyphenation tree
+     * @param out the output stream (not closed by this method)
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(HyphenationTree hTree, OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        writeTree(hTree, dout);
+        byte[] values = hTree.vspace.getArray();
+        int valuesLength = hTree.vspace.capacity();
+        dout.writeInt(valuesLength);
+        dout.write(values, 0, valuesLength);
+        writeTree(hTree.classmap, dout);
+        dout.writeInt(hTree.stoplist.size());
+        for (Object exception : hTree.stoplist.entrySet()) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) exception;
+            writeString((String) entry.getKey(), dout);
+            List<?> hyphenatedWord = (List<?>) entry.getValue();
+            dout.writeInt(hyphenatedWord.size());
+            for (Object o : hyphenatedWord) {
+                if (o instanceof Hyphen) {
+                    Hyphen hyphen = (Hyphen) o;
+                    dout.writeByte(EXCEPTION_HYPHEN);
+                    writeString(hyphen.preBreak, dout);
+                    writeString(hyphen.noBreak, dout);
+                    writeString(hyphen.postBreak, dout);
+                } else {
+                    dout.writeByte(EXCEPTION_STRING);
+                    writeString((String) o, dout);
+                }
+            }
+        }
+        dout.flush();
+    }
+
+    private static void writeTree(TernaryTree tree, DataOutputStream dout) throws IOException {
+        dout.writeChar(tree.root);
+        dout.writeChar(tree.freenode);
+        dout.writeInt(tree.length);
+        int n = tree.sc.length;
+        dout.writeInt(n);
+        writeChars(tree.lo, n, dout);
+        writeChars(tree.hi, n, dout);
+        writeChars(tree.eq, n, dout);
+        writeChars(tree.sc, n, dout);
+        int k = tree.kv.length();
+        dout.writeInt(k);
+        writeChars(tree.kv.getArray(), k, dout);
+    }
+
+    private static void writeChars(char[] chars, int n, DataOutputStream dout) throws IOException {
+        for (int i = 0; i < n; i++) {
+            dout.writeChar(chars[i]);
+        }
+    }
+
+    private static void writeString(String s, DataOutputStream dout) throws IOException {
+        if (s == null) {
+            dout.writeInt(-1);
+        } else {
+            dout.writeInt(s.length());
+            dout.writeChars(s);
+        }
+    }
+
+    /**
+     * Loads a hyphenation tree from a file by mapping it into memory.
+     * @param file the file in the compact binary format
+     * @return the hyphenation tree
+     * @throws IOException if an I/O error occurs or the file is not in the expected format
+     */
+    public static HyphenationTree load(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Loads a hyphenation tree from a stream.
+     * @param in the input stream (not closed by this method)
+     * @return the hyphenation tree
+     * @throws IOException if an I/O error occurs or the data is not in the expected format
+     */
+    public static HyphenationTree load(InputStream in) throws IOException {
+        return read(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    /**
+     * Restores a hyphenation tree from a buffer holding the compact binary format, starting
+     * at the buffer's current position.
+     * @param buffer the buffer
+     * @return the hyphenation tree
+     * @throws IOException if the data is not in the expected format
+     */
+    public static HyphenationTree read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary hyphenation pattern file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary hyphenation pattern version: " + version);
+            }
+            HyphenationTree hTree = new HyphenationTree();
+            readTree(hTree, buffer);
+            byte[] values = new byte[buffer.getInt()];
+            buffer.get(values);
+            hTree.vspace = new ByteVector(values);
+            readTree(hTree.classmap, buffer);
+            int exceptions = buffer.getInt();
+            for (int i = 0; i < exceptions; i++) {
+                String word = readString(buffer);
+                int n = buffer.getInt();
+                ArrayList<Object> hyphenatedWord = new ArrayList<Object>(n);
+                for (int j = 0; j < n; j++) {
+                    byte type = buffer.get();
+                    if (type == EXCEPTION_HYPHEN) {
+                        String pre = readString(buffer);
+                        String no = readString(buffer);
+                        String post = readString(buffer);
+                        hyphenatedWord.add(new Hyphen(pre, no, post));
+                    } else if (type == EXCEPTION_STRING) {
+                        hyphenatedWord.add(readString(buffer));
+                    } else {
+                        throw new IOException("Invalid hyphenation exception entry: " + type);
+                    }
+                }
+                hTree.addException(word, hyphenatedWord);
+            }
+            return hTree;
+        } catch (BufferUnderflowException bue) {
+            throw new IOException("Truncated binary hyphenation pattern file");
+        }
+    }
+
+    private static void readTree(TernaryTree tree, ByteBuffer buffer) {
+        tree.root = buffer.getChar();
+        tree.freenode = buffer.getChar();
+        tree.length = buffer.getInt();
+        int n = buffer.getInt();
+        tree.lo = readChars(buffer, n);
+        tree.hi = readChars(buffer, n);
+        tree.eq = readChars(buffer, n);
+        tree.sc = readChars(buffer, n);
+        tree.kv = new CharVector(readChars(buffer, buffer.getInt()));
+    }
+
+    private static char[] readChars(ByteBuffer buffer, int n) {
+        char[] chars = new char[n];
+        buffer.asCharBuffer().get(chars);
+        buffer.position(buffer.position() + 2 * n);
+        return chars;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(readChars(buffer, length));
+    }
+
+}
@@ -22,16 +22,50 @@ package org.apache.fop.hyphenation;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.fop.util.CompareUtil;
+import org.apache.fop.util.LRUCache;
 
 /**
- * <p>This is a cache for HyphenationTree instances.</p>
+ * <p>This is a cache for HyphenationTree instances and the hyphenation results obtained
+ * from them.</p>
  */
 public class HyphenationTreeCache {
 
+    /**
+     * JVM-wide cache of the hyphenation trees shipped as resources on the class path, keyed by
+     * resource URL. These trees are never modified once loaded, so all factories share them.
+     */
+    private static final ConcurrentMap<String, HyphenationTree> SHARED_TREES
+            = new ConcurrentHashMap<String, HyphenationTree>();
+
+    /** Default maximum number of words whose hyphenation results are cached. */
+    public static final int DEFAULT_HYPHENATION_CACHE_SIZE = 20000;
+
+    /** Marks words that were looked up but cannot be hyphenated. */
+    private static final Hyphenation NO_HYPHENATION = new Hyphenation("", new int[0]);
+
     /** Contains the cached hyphenation trees */
     private Hashtable hyphenTrees = new Hashtable();
     /** Used to avoid multiple error messages for the same language if a pattern file is missing. */
     private Set missingHyphenationTrees;
+    /** Contains the hyphenation results of recently hyphenated words */
+    private final LRUCache<HyphenationKey, Hyphenation> hyphenations;
+
+    /** Creates a new cache using the default size for the hyphenation results. */
+    public HyphenationTreeCache() {
+        this(DEFAULT_HYPHENATION_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param hyphenationCacheSize the maximum number of words whose hyphenation results are cached
+     */
+    public HyphenationTreeCache(int hyphenationCacheSize) {
+        hyphenations = new LRUCache<HyphenationKey, Hyphenation>(hyphenationCacheSize);
+    }
 
     /**
      * Looks in the cache if a hyphenation tree is available and returns it if it is found.
@@ -94,6 +128,25 @@ public class HyphenationTreeCache {
         hyphenTrees.put(key, hTree);
     }
 
+    /**
+     * Cache a hyphenation tree under its key, unless a tree is already cached under that key,
+     * in which case that tree is kept and returned instead, so that concurrent callers end up
+     * using the same instance.
+     * @param key the key (ex. "de_CH" or "en")
+     * @param hTree the hyphenation tree
+     * @return the cached hyphenation tree
+     */
+    public HyphenationTree cacheIfAbsent(String key, HyphenationTree hTree) {
+        synchronized (hyphenTrees) {
+            HyphenationTree existing = (HyphenationTree) hyphenTrees.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            cache(key, hTree);
+            return hTree;
+        }
+    }
+
     /**
      * Notes a key to a hyphenation tree as missing.
      * This is to avoid searching a second time for a hyphenation pattern file which is not
@@ -118,4 +171,102 @@ public class HyphenationTreeCache {
         return (missingHyphenationTrees != null && missingHyphenationTrees.contains(key));
     }
 
+    /**
+     * Hyphenates a word, reusing the result of an earlier call for the same word and settings
+     * if it is still in the cache.
+     * <p>The returned instance may be shared and must not be modified.</p>
+     * @param hTree the hyphenation tree for the language and country
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param word the word to be hyphenated
+     * @param remainCharCount the minimum number of characters before a hyphenation point
+     * @param pushCharCount the minimum number of characters after a hyphenation point
+     * @return the hyphenation result or null if the word is not hyphenated
+     */
+    public Hyphenation hyphenate(HyphenationTree hTree, String lang, String country, String word,
+            int remainCharCount, int pushCharCount) {
+        HyphenationKey key = new HyphenationKey(lang, country, word, remainCharCount, pushCharCount);
+        Hyphenation hyph = hyphenations.get(key);
+        if (hyph == null) {
+            hyph = hTree.hyphenate(word, remainCharCount, pushCharCount);
+            hyph = hyphenations.putIfAbsent(key, hyph != null ? hyph : NO_HYPHENATION);
+        }
+        return hyph != NO_HYPHENATION ? hyph : null;
+    }
+
+    /**
+     * Returns the cache of hyphenation results, mainly to obtain its statistics
+     * (hits, misses, evictions).
+     * @return the cache of hyphenation results
+     */
+    public LRUCache<?, Hyphenation> getHyphenationResultCache() {
+        return hyphenations;
+    }
+
+    /**
+     * Returns a hyphenation tree from the JVM-wide cache of class path resources.
+     * @param resourceKey the key of the resource (usually its URL)
+     * @return the hyphenation tree or null if it hasn't been loaded yet
+     */
+    public static HyphenationTree getSharedHyphenationTree(String resourceKey) {
+        return SHARED_TREES.get(resourceKey);
+    }
+
+    /**
+     * Puts a hyphenation tree loaded from a class path resource into the JVM-wide cache.
+     * If another thread has cached a tree for the same resource in the meantime, that tree
+     * is returned instead so all callers end up using the same instance.
+     * @param resourceKey the key of the resource (usually its URL)
+     * @param hTree the hyphenation tree
+     * @return the cached hyphenation tree
+     */
+    public static HyphenationTree cacheShared(String resourceKey, HyphenationTree hTree) {
+        HyphenationTree existing = SHARED_TREES.putIfAbsent(resourceKey, hTree);
+        return existing != null ? existing : hTree;
+    }
+
+    private static final class HyphenationKey {
+
+        private final String lang;
+        private final String country;
+        private final String word;
+        private final int remainCharCount;
+        private final int pushCharCount;
+        private final int hash;
+
+        HyphenationKey(String lang, String country, String word, int remainCharCount,
+                int pushCharCount) {
+            this.lang = lang;
+            this.country = country;
+            this.word = word;
+            this.remainCharCount = remainCharCount;
+            this.pushCharCount = pushCharCount;
+            int h = word.hashCode();
+            h = 31 * h + (lang != null ? lang.hashCode() : 0);
+            h = 31 * h + (country != null ? country.hashCode() : 0);
+            h = 31 * h + remainCharCount;
+            this.hash = 31 * h + pushCharCount;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof HyphenationKey)) {
+                return false;
+            }
+            HyphenationKey other = (HyphenationKey) obj;
+            return hash == other.hash
+                    && remainCharCount == other.remainCharCount
+                    && pushCharCount == other.pushCharCount
+                    && word.equals(other.word)
+                    && CompareUtil.equal(lang, other.lang)
+                    && CompareUtil.equal(country, other.country);
+        }
+    }
+
 }
@@ -20,10 +20,12 @@
 package org.apache.fop.hyphenation;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.Map;
 
 import org.xml.sax.InputSource;
@@ -51,8 +53,12 @@ public final class Hyphenator {
     /** Enables a dump of statistics. Note: If activated content is sent to System.out! */
     private static boolean statisticsDump;
 
+    /** Serializes the loading of the hyphenation trees shared by the whole JVM */
+    private static final Object SHARED_TREES_LOCK = new Object();
+
     public static final String HYPTYPE = Hyphenator.class.toString() + "HYP";
     public static final String XMLTYPE = Hyphenator.class.toString() + "XML";
+    public static final String HYBTYPE = Hyphenator.class.toString() + "HYB";
 
     private Hyphenator() {
     }
@@ -92,14 +98,14 @@ public final class Hyphenator {
 
         // put it into the pattern cache
         if (hTree != null) {
-            cache.cache(llccKey, hTree);
+            hTree = cache.cacheIfAbsent(llccKey, hTree);
         } else {
             EventBroadcaster eventBroadcaster = foUserAgent.getEventBroadcaster();
             if (eventBroadcaster == null) {
                 log.error("Couldn't find hyphenation pattern " + llccKey);
             } else {
                 ResourceEventProducer producer = ResourceEventProducer.Provider.get(eventBroadcaster);
-                String name = key.replace(HYPTYPE, "").replace(XMLTYPE, "");
+                String name = key.replace(HYPTYPE, "").replace(XMLTYPE, "").replace(HYBTYPE, "");
                 producer.hyphenationNotFound(cache, name);
             }
             cache.noteMissing(llccKey);
@@ -107,33 +113,16 @@ public final class Hyphenator {
         return hTree;
     }
 
-    private static InputStream getResourceStream(String key) {
-        InputStream is = null;
-        // Try to use Context Class Loader to load the properties file.
-        try {
-            java.lang.reflect.Method getCCL = Thread.class.getMethod(
-                    "getContextClassLoader", new Class[0]);
-            if (getCCL != null) {
-                ClassLoader contextClassLoader = (ClassLoader)getCCL.invoke(
-                        Thread.currentThread(),
-                        new Object[0]);
-                is = contextClassLoader.getResourceAsStream("hyph/" + key
-                                                            + ".hyp");
-            }
-        } catch (NoSuchMethodException e) {
-            //ignore, fallback further down
-        } catch (IllegalAccessException e) {
-            //ignore, fallback further down
-        } catch (java.lang.reflect.InvocationTargetException e) {
-            //ignore, fallback further down
+    private static URL getResource(String name) {
+        URL url = null;
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (contextClassLoader != null) {
+            url = contextClassLoader.getResource("hyph/" + name);
         }
-
-        if (is == null) {
-            is = Hyphenator.class.getResourceAsStream("/hyph/" + key
-                                                      + ".hyp");
+        if (url == null) {
+            url = Hyphenator.class.getResource("/hyph/" + name);
         }
-
-        return is;
+        return url;
     }
 
     private static HyphenationTree readHyphenationTree(InputStream in) {
@@ -149,22 +138,81 @@ public final class Hyphenator {
         return hTree;
     }
 
+    private static HyphenationTree readBinaryHyphenationTree(URL url) {
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return HyphenationTreeBinaryFormat.load(new File(url.toURI()));
+            }
+            InputStream in = url.openStream();
+            try {
+                return HyphenationTreeBinaryFormat.load(in);
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        } catch (IOException ioe) {
+            log.error("I/O error while loading binary hyphenation pattern file " + url, ioe);
+        } catch (URISyntaxException use) {
+            log.error("Invalid URL for binary hyphenation pattern file " + url, use);
+        }
+        return null;
+    }
+
+    private static HyphenationTree loadFopHyphenationTree(URL url, boolean binary) {
+        String resourceKey = url.toExternalForm();
+        HyphenationTree hTree = HyphenationTreeCache.getSharedHyphenationTree(resourceKey);
+        if (hTree != null) {
+            return hTree;
+        }
+        // looked up again under the lock, so concurrent callers load the resource only once
+        synchronized (SHARED_TREES_LOCK) {
+            hTree = HyphenationTreeCache.getSharedHyphenationTree(resourceKey);
+            if (hTree != null) {
+                return hTree;
+            }
+            if (binary) {
+                hTree = readBinaryHyphenationTree(url);
+            } else {
+                InputStream in = null;
+                try {
+                    in = new BufferedInputStream(url.openStream());
+                    hTree = readHyphenationTree(in);
+                } catch (IOException ioe) {
+                    log.error("I/O error while loading precompiled hyphenation pattern file " + url, ioe);
+                } finally {
+                    IOUtils.closeQuietly(in);
+                }
+            }
+            if (hTree != null) {
+                hTree = HyphenationTreeCache.cacheShared(resourceKey, hTree);
+            }
+            return hTree;
+        }
+    }
+
     /**
-     * Returns a hyphenation tree. This method looks in the resources (getResourceStream) for
-     * the hyphenation patterns.
+     * Returns a hyphenation tree. This method looks in the resources (getResource) for
+     * the hyphenation patterns, preferring the compact binary format (".hyb") over serialized
+     * objects (".hyp"). Trees loaded from the resources are shared by all users in the JVM.
      * @param key the language/country key
      * @return the hyphenation tree or null if it wasn't found in the resources
      */
     public static HyphenationTree getFopHyphenationTree(String key) {
-        InputStream is = getResourceStream(key);
-        if (is == null) {
-            if (log.isDebugEnabled()) {
-                log.debug("Couldn't find precompiled hyphenation pattern "
-                          + key + " in resources");
+        HyphenationTree hTree = null;
+        URL url = getResource(key + HyphenationTreeBinaryFormat.EXTENSION);
+        if (url != null) {
+            hTree = loadFopHyphenationTree(url, true);
+        }
+        if (hTree == null) {
+            url = getResource(key + ".hyp");
+            if (url != null) {
+                hTree = loadFopHyphenationTree(url, false);
             }
-            return null;
         }
-        return readHyphenationTree(is);
+        if (hTree == null && log.isDebugEnabled()) {
+            log.debug("Couldn't find precompiled hyphenation pattern "
+                      + key + " in resources");
+        }
+        return hTree;
     }
 
     /**
@@ -179,11 +227,37 @@ public final class Hyphenator {
         HyphenationTree hTree = null;
         // I use here the following convention. The file name specified in
         // the configuration is taken as the base name. First we try
+        // name + ".hyb" assuming a compact binary HyphenationTree, then
         // name + ".hyp" assuming a serialized HyphenationTree. If that fails
         // we try name + ".xml", assumming a raw hyphenation pattern file.
 
-        // first try serialized object
-        String name = key + ".hyp";
+        // first try the compact binary format
+        String name = key + HyphenationTreeBinaryFormat.EXTENSION;
+        if (key.endsWith(HYBTYPE)) {
+            name = key.replace(HYBTYPE, "");
+        }
+        if (!key.endsWith(XMLTYPE) && !key.endsWith(HYPTYPE)) {
+            try {
+                InputStream in = getHyphenationTreeStream(name, resourceResolver);
+                if (in != null) {
+                    try {
+                        return HyphenationTreeBinaryFormat.load(in);
+                    } finally {
+                        IOUtils.closeQuietly(in);
+                    }
+                }
+            } catch (IOException ioe) {
+                if (log.isDebugEnabled()) {
+                    log.debug("I/O problem while trying to load " + name, ioe);
+                }
+            }
+            if (key.endsWith(HYBTYPE)) {
+                return null;
+            }
+        }
+
+        // then try serialized object
+        name = key + ".hyp";
         if (key.endsWith(HYPTYPE)) {
             name = key.replace(HYPTYPE, "");
         }
@@ -244,6 +318,19 @@ public final class Hyphenator {
         return null;
     }
 
+    /**
+     * Hyphenates a word. Results are cached per {@link org.apache.fop.apps.FopFactory} (see
+     * {@link HyphenationTreeCache#hyphenate}), so the returned instance must not be modified.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param resourceResolver the resource resolver to find user-supplied hyphenation files
+     * @param hyphPatNames the map of user-configured hyphenation pattern file names
+     * @param word the word to be hyphenated
+     * @param leftMin the minimum number of characters before a hyphenation point
+     * @param rightMin the minimum number of characters after a hyphenation point
+     * @param foUserAgent the user agent
+     * @return the hyphenation result or null if the word is not hyphenated
+     */
     public static Hyphenation hyphenate(String lang, String country, InternalResourceResolver resourceResolver,
                                         Map hyphPatNames,
                                         String word,
@@ -252,7 +339,9 @@ public final class Hyphenator {
         if (hTree == null) {
             return null;
         }
-        return hTree.hyphenate(word, leftMin, rightMin);
+        // the tree cache is non-null here, otherwise no tree would have been found
+        return foUserAgent.getHyphenationTreeCache().hyphenate(hTree, lang, country, word,
+                leftMin, rightMin);
     }
 
 }
@@ -23,16 +23,21 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 /**
  * <p>Serialize hyphenation patterns.</p>
- * <p>For all xml files in the source directory a pattern file is built in the target directory.</p>
+ * <p>For all xml files in the source directory a pattern file is built in the target directory.
+ * Depending on the configuration, either serialized objects (".hyp") or the compact binary
+ * format of {@link HyphenationTreeBinaryFormat} (".hyb") are written.</p>
  * <p>This class may be called from the ant build file in a java task.</p>
  */
 public class SerializeHyphPattern {
 
     private boolean errorDump;
 
+    private boolean binaryFormat;
+
     /**
      * Controls the amount of error information dumped.
      * @param errorDump True if more error info should be provided
@@ -41,10 +46,18 @@ public class SerializeHyphPattern {
         this.errorDump = errorDump;
     }
 
+    /**
+     * Controls whether the compact binary format is written instead of serialized objects.
+     * @param binaryFormat True to write ".hyb" files, false to write ".hyp" files
+     */
+    public void setBinaryFormat(boolean binaryFormat) {
+        this.binaryFormat = binaryFormat;
+    }
+
     /**
      * Compile all xml files in sourceDir, and write output hyp files in targetDir
      * @param sourceDir Directory with pattern xml files
-     * @param targetDir Directory to which compiled pattern hyp files should be written
+     * @param targetDir Directory to which compiled pattern hyp (or hyb) files should be written
      */
     public void serializeDir(File sourceDir, File targetDir) {
         final String extension = ".xml";
@@ -57,7 +70,8 @@ public class SerializeHyphPattern {
             for (String sourceFile : sourceFiles) {
                 File infile = new File(sourceDir, sourceFile);
                 String outfilename = sourceFile.substring(0, sourceFile.length()
-                        - extension.length()) + ".hyp";
+                        - extension.length())
+                        + (binaryFormat ? HyphenationTreeBinaryFormat.EXTENSION : ".hyp");
                 File outfile = new File(targetDir, outfilename);
                 serializeFile(infile, outfile);
             }
@@ -73,13 +87,18 @@ public class SerializeHyphPattern {
         startProcess = rebuild(infile, outfile);
         if (startProcess) {
             HyphenationTree hTree = buildPatternFile(infile);
-            // serialize class
             try {
                 // @SuppressFBWarnings("OS_OPEN_STREAM_EXCEPTION_PATH")
-                ObjectOutputStream out = new ObjectOutputStream(
-                        new java.io.BufferedOutputStream(
-                        new java.io.FileOutputStream(outfile)));
-                out.writeObject(hTree);
+                OutputStream out = new java.io.BufferedOutputStream(
+                        new java.io.FileOutputStream(outfile));
+                if (binaryFormat) {
+                    HyphenationTreeBinaryFormat.write(hTree, out);
+                } else {
+                    // serialize class
+                    ObjectOutputStream oout = new ObjectOutputStream(out);
+                    oout.writeObject(hTree);
+                    oout.flush();
+                }
                 out.close();
             } catch (IOException ioe) {
                 System.err.println("Can't write compiled pattern file: "
@@ -131,10 +150,11 @@ public class SerializeHyphPattern {
 
     /**
      * Entry point for ant java task
-     * @param args sourceDir, targetDir
+     * @param args sourceDir, targetDir and optionally "hyb" to write the compact binary format
      */
     public static void main(String[] args) {
         SerializeHyphPattern ser = new SerializeHyphPattern();
+        ser.setBinaryFormat(args.length > 2 && "hyb".equals(args[2]));
         ser.serializeDir(new File(args[0]), new File(args[1]));
     }
 
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.cache.ImageCache;
+import org.apache.xmlgraphics.image.loader.cache.ImageCacheListener;
+import org.apache.xmlgraphics.image.loader.cache.ImageKey;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+
+/**
+ * Image cache which keeps decoded images ({@link ImageRendered}) and raw image data
+ * ({@link ImageRawStream}) with strong references up to a maximum number of bytes, evicting the
+ * least recently used images first. Other images, and all images while no maximum size is set,
+ * are left to the soft-reference based {@link ImageCache}.
+ * <p>
+ * Images loaded from files are validated against the file's modification time: once a file
+ * changes, the information and images cached for it are dropped so the image is loaded again.
+ */
+public class FOPImageCache extends ImageCache {
+
+    private final Map<ImageKey, Entry> entries = new LinkedHashMap<ImageKey, Entry>(16, 0.75f, true);
+
+    /** Number of cached images per URI */
+    private final Map<String, Integer> imageCounts = new HashMap<String, Integer>();
+
+    /** Modification times of the files the cached images were loaded from */
+    private final Map<String, Long> lastModifiedTimes = new HashMap<String, Long>();
+
+    /**
+     * Flavors loaded again since the file behind a URI was modified. Other flavors of those URIs
+     * still held by the {@link ImageCache} are outdated.
+     */
+    private final Map<String, Set<ImageFlavor>> reloadedFlavors = new HashMap<String, Set<ImageFlavor>>();
+
+    private long maxSize;
+
+    private long size;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private ImageCacheListener listener;
+
+    private static final class Entry {
+
+        private final Image image;
+
+        private final long byteSize;
+
+        Entry(Image image, long byteSize) {
+            this.image = image;
+            this.byteSize = byteSize;
+        }
+    }
+
+    /**
+     * Sets the maximum number of bytes taken by the images kept by this cache. Images are only
+     * kept with strong references if this is larger than 0, which is not the case by default.
+     * @param maxSize the maximum size in bytes
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evict(0);
+    }
+
+    /** @return the maximum number of bytes taken by the images kept by this cache */
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    /** {@inheritDoc} */
+    public void setCacheListener(ImageCacheListener listener) {
+        super.setCacheListener(listener);
+        this.listener = listener;
+    }
+
+    /** {@inheritDoc} */
+    protected ImageInfo getImageInfo(String uri) {
+        if (isModified(uri)) {
+            invalidate(uri);
+            return null;
+        }
+        return super.getImageInfo(uri);
+    }
+
+    /** {@inheritDoc} */
+    public Image getImage(String uri, ImageFlavor flavor) {
+        if (uri == null || "".equals(uri)) {
+            return null;
+        }
+        if (isModified(uri)) {
+            invalidate(uri);
+        }
+        ImageKey key = new ImageKey(uri, flavor);
+        Entry entry;
+        boolean outdated;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            Set<ImageFlavor> flavors = reloadedFlavors.get(uri);
+            outdated = flavors != null && !flavors.contains(flavor);
+        }
+        if (entry != null) {
+            if (listener != null) {
+                listener.cacheHitImage(key);
+            }
+            return entry.image;
+        }
+        return outdated ? null : super.getImage(uri, flavor);
+    }
+
+    /** {@inheritDoc} */
+    public void putImage(Image img) {
+        String uri = img.getInfo().getOriginalURI();
+        if (uri != null) {
+            synchronized (this) {
+                Set<ImageFlavor> flavors = reloadedFlavors.get(uri);
+                if (flavors != null) {
+                    flavors.add(img.getFlavor());
+                }
+            }
+        }
+        if (getMaxSize() <= 0 || uri == null || "".equals(uri) || !img.isCacheable()
+                || !(img instanceof ImageRendered || img instanceof ImageRawStream)) {
+            super.putImage(img);
+            return;
+        }
+        long byteSize = getByteSize(img);
+        long lastModified = getLastModified(uri);
+        synchronized (this) {
+            if (byteSize < 0 || byteSize > maxSize) {
+                byteSize = -1;
+            } else {
+                remove(new ImageKey(uri, img.getFlavor()));
+                evict(byteSize);
+                entries.put(new ImageKey(uri, img.getFlavor()), new Entry(img, byteSize));
+                size += byteSize;
+                Integer count = imageCounts.get(uri);
+                imageCounts.put(uri, count == null ? 1 : count + 1);
+                if (lastModified > 0) {
+                    lastModifiedTimes.put(uri, lastModified);
+                }
+            }
+        }
+        if (byteSize < 0) {
+            super.putImage(img);
+        }
+    }
+
+    private void remove(ImageKey key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            removed(entry);
+        }
+    }
+
+    private void removed(Entry entry) {
+        size -= entry.byteSize;
+        String uri = entry.image.getInfo().getOriginalURI();
+        int count = imageCounts.get(uri);
+        if (count == 1) {
+            imageCounts.remove(uri);
+            lastModifiedTimes.remove(uri);
+        } else {
+            imageCounts.put(uri, count - 1);
+        }
+    }
+
+    private void evict(long needed) {
+        for (Iterator<Entry> iter = entries.values().iterator();
+                iter.hasNext() && size + needed > maxSize;) {
+            Entry entry = iter.next();
+            iter.remove();
+            removed(entry);
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops the images loaded from a modified file. The {@link ImageCache} offers no way to
+     * remove single images, so the ones it holds for the URI are ignored until loaded again.
+     * @param uri the URI of the file
+     */
+    private synchronized void invalidate(String uri) {
+        for (Iterator<Entry> iter = entries.values().iterator(); iter.hasNext();) {
+            Entry entry = iter.next();
+            if (uri.equals(entry.image.getInfo().getOriginalURI())) {
+                iter.remove();
+                removed(entry);
+            }
+        }
+        lastModifiedTimes.remove(uri);
+        reloadedFlavors.put(uri, new HashSet<ImageFlavor>());
+    }
+
+    /** {@inheritDoc} */
+    public void clearCache() {
+        synchronized (this) {
+            entries.clear();
+            imageCounts.clear();
+            lastModifiedTimes.clear();
+            reloadedFlavors.clear();
+            size = 0;
+        }
+        super.clearCache();
+    }
+
+    private boolean isModified(String uri) {
+        Long lastModified;
+        synchronized (this) {
+            lastModified = lastModifiedTimes.get(uri);
+        }
+        return lastModified != null && getLastModified(uri) != lastModified;
+    }
+
+    private static long getLastModified(String uri) {
+        if (uri.startsWith("file:")) {
+            try {
+                return new File(new URI(uri)).lastModified();
+            } catch (Exception e) {
+                //not a file URI that can be validated
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Estimates the number of bytes taken by an image. The data of raw images is not read for
+     * this: its size is only known if it's held in memory or if the image was loaded from a file.
+     * @param img the image
+     * @return the number of bytes or -1 if unknown
+     */
+    static long getByteSize(Image img) {
+        if (img instanceof ImageRendered) {
+            RenderedImage ri = ((ImageRendered) img).getRenderedImage();
+            if (ri instanceof BufferedImage) {
+                DataBuffer buffer = ((BufferedImage) ri).getRaster().getDataBuffer();
+                return (long) buffer.getSize() * buffer.getNumBanks()
+                        * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+            }
+            SampleModel sm = ri.getSampleModel();
+            long bitsPerPixel = 0;
+            for (int sampleSize : sm.getSampleSize()) {
+                bitsPerPixel += sampleSize;
+            }
+            return (long) ri.getWidth() * ri.getHeight() * bitsPerPixel / 8;
+        } else {
+            InputStream in = ((ImageRawStream) img).createInputStream();
+            try {
+                if (in instanceof ByteArrayInputStream) {
+                    //Reusable raw streams are usually held in memory
+                    return ((ByteArrayInputStream) in).available();
+                }
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+            String uri = img.getInfo().getOriginalURI();
+            if (uri != null && uri.startsWith("file:")) {
+                try {
+                    File file = new File(new URI(uri));
+                    if (file.isFile()) {
+                        return file.length();
+                    }
+                } catch (Exception e) {
+                    //not a file URI that can be used
+                }
+            }
+            return -1;
+        }
+    }
+
+    /** @return the number of bytes taken by the images kept by this cache */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /** @return the number of images kept by this cache */
+    public synchronized int getImageCount() {
+        return entries.size();
+    }
+
+    /** @return the number of image lookups served by this cache */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of image lookups not served by this cache */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /** @return the number of images evicted to respect the maximum size */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /** {@inheritDoc} */
+    public synchronized String toString() {
+        return getClass().getSimpleName() + "[images=" + entries.size() + ", size=" + size
+                + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+}
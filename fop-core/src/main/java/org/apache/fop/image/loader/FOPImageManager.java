@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader;
+
+import org.apache.xmlgraphics.image.loader.ImageContext;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.spi.ImageImplRegistry;
+
+import org.apache.fop.image.loader.batik.BitmapCache;
+import org.apache.fop.image.loader.batik.CachingImageConverterG2D2Bitmap;
+
+/**
+ * The image manager used by FOP. It caches images in a {@link FOPImageCache} whose size can be
+ * configured, and converts SVG graphics to bitmaps with a converter that keeps the bitmaps.
+ * <p>
+ * The converter is registered in the default {@link ImageImplRegistry}, but the bitmaps it
+ * keeps belong to the manager of the image session, so they aren't shared by the whole JVM.
+ */
+public class FOPImageManager extends ImageManager {
+
+    private static final long BITMAP_CACHE_SIZE = 64L * 1024 * 1024;
+
+    private final FOPImageCache cache = new FOPImageCache();
+
+    private final BitmapCache bitmapCache = new BitmapCache(BITMAP_CACHE_SIZE);
+
+    /**
+     * Main constructor.
+     * @param context the parent image context
+     */
+    public FOPImageManager(ImageContext context) {
+        super(context);
+        registerBitmapConverter(getRegistry());
+    }
+
+    /**
+     * Registers the converter that keeps the bitmaps of SVG graphics. Of several converters
+     * between the same image flavors, the last one registered is used, so it has to be
+     * registered after the converters found on the classpath.
+     * @param registry the image implementation registry
+     */
+    private static void registerBitmapConverter(ImageImplRegistry registry) {
+        synchronized (registry) {
+            for (Object converter : registry.getImageConverters()) {
+                if (converter instanceof CachingImageConverterG2D2Bitmap) {
+                    return;
+                }
+            }
+            registry.registerConverter(new CachingImageConverterG2D2Bitmap());
+        }
+    }
+
+    /** {@inheritDoc} */
+    public FOPImageCache getCache() {
+        return cache;
+    }
+
+    /** @return the cache of the bitmaps SVG graphics were converted to */
+    public BitmapCache getBitmapCache() {
+        return bitmapCache;
+    }
+}
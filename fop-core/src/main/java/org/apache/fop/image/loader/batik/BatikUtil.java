@@ -19,7 +19,13 @@
 
 package org.apache.fop.image.loader.batik;
 
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 
 import org.apache.batik.dom.AbstractDocument;
 import org.apache.batik.dom.util.DOMUtilities;
@@ -60,4 +66,70 @@ public final class BatikUtil {
         return clonedDoc;
     }
 
+    /**
+     * Computes a digest over the content of an SVG DOM document: its URI (against which
+     * relative references are resolved), elements, attributes, text and processing
+     * instructions. Two documents with the same digest render the same way, so the digest can
+     * be used to share the output generated for equal documents.
+     * @param doc the SVG DOM
+     * @return the hexadecimal SHA-256 digest
+     */
+    public static String computeDigest(Document doc) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            update(md, doc.getDocumentURI());
+            update(md, doc);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : md.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest md, Node node) {
+        md.update((byte) node.getNodeType());
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+            update(md, node.getNamespaceURI());
+            update(md, node.getNodeName());
+            NamedNodeMap atts = node.getAttributes();
+            for (int i = 0, c = atts.getLength(); i < c; i++) {
+                Node att = atts.item(i);
+                update(md, att.getNamespaceURI());
+                update(md, att.getNodeName());
+                update(md, att.getNodeValue());
+            }
+            break;
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+        case Node.PROCESSING_INSTRUCTION_NODE:
+            update(md, node.getNodeName());
+            update(md, node.getNodeValue());
+            break;
+        default:
+            //comments and the like don't affect rendering
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            update(md, child);
+        }
+        md.update((byte) 0);
+    }
+
+    private static void update(MessageDigest md, String s) {
+        if (s == null) {
+            md.update((byte) 0);
+        } else {
+            try {
+                md.update((byte) 1);
+                md.update(s.getBytes("UTF-8"));
+                md.update((byte) 0);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
 }
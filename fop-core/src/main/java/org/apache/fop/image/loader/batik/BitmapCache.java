@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader.batik;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps bitmaps that vector graphics were rasterized to, so a graphic that is shown several
+ * times at the same size (a logo on every page, for example) is only rasterized once. The
+ * cache is bounded by the memory used by the bitmaps and evicts the least recently used
+ * bitmap first.
+ * <p>
+ * The key has to identify the graphic as well as every setting that influences the bitmap
+ * (pixel size, color model, dithering). The cached bitmaps are shared, so they must not be
+ * modified.
+ */
+public class BitmapCache {
+
+    private final Map<List<Object>, BufferedImage> cache
+            = new LinkedHashMap<List<Object>, BufferedImage>(16, 0.75f, true);
+
+    private final long maxSize;
+
+    private long size;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of bytes used by the bitmaps in the cache
+     */
+    public BitmapCache(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the bitmap cached for a key.
+     * @param key the key
+     * @return the bitmap or null if there's none in the cache
+     */
+    public synchronized BufferedImage get(List<Object> key) {
+        BufferedImage image = cache.get(key);
+        if (image != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return image;
+    }
+
+    /**
+     * Puts a bitmap into the cache, evicting the least recently used bitmaps as necessary.
+     * A bitmap larger than the maximum size isn't cached.
+     * @param key the key
+     * @param image the bitmap
+     */
+    public synchronized void put(List<Object> key, BufferedImage image) {
+        long byteSize = getByteSize(image);
+        if (byteSize > maxSize) {
+            return;
+        }
+        BufferedImage old = cache.remove(key);
+        if (old != null) {
+            size -= getByteSize(old);
+        }
+        Iterator<BufferedImage> iter = cache.values().iterator();
+        while (size + byteSize > maxSize && iter.hasNext()) {
+            size -= getByteSize(iter.next());
+            iter.remove();
+        }
+        cache.put(key, image);
+        size += byteSize;
+    }
+
+    /**
+     * Returns the number of bytes used by the data of a bitmap.
+     * @param image the bitmap
+     * @return the number of bytes
+     */
+    static long getByteSize(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /** @return the number of bitmaps in the cache */
+    public synchronized int getCount() {
+        return cache.size();
+    }
+
+    /** @return the number of bytes used by the bitmaps in the cache */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /** @return the number of lookups that found a bitmap */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of lookups that didn't find a bitmap */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader.batik;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.batik.bridge.BridgeContext;
+
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageSize;
+import org.apache.xmlgraphics.image.loader.impl.ImageConverterG2D2Bitmap;
+import org.apache.xmlgraphics.image.loader.impl.ImageGraphics2D;
+import org.apache.xmlgraphics.java2d.Graphics2DImagePainter;
+import org.apache.xmlgraphics.util.UnitConv;
+
+import org.apache.fop.image.loader.FOPImageManager;
+import org.apache.fop.svg.AbstractFOPBridgeContext;
+
+/**
+ * This ImageConverter converts Java2D images into bitmaps like its superclass, but keeps the
+ * bitmaps of SVG graphics so a graphic that is painted several times in a document is only
+ * rasterized once per size and color setting. This matters for output formats which can
+ * only show SVG as bitmaps, like PCL or AFP without GOCA.
+ * <p>
+ * SVG graphics are identified by the content key {@link ImageConverterSVG2G2D} gives their
+ * painters (the digest of the SVG document and the settings its GVT tree was built with), so
+ * the bitmaps are shared between documents without keeping their GVT trees. The bitmaps are
+ * kept by the {@link FOPImageManager} the graphic was loaded with. Other Java2D images, and
+ * graphics loaded with other image managers, are not cached.
+ * <p>
+ * The converter is registered by {@link FOPImageManager}, after the converters found on the
+ * classpath, so it replaces its superclass in the pipelines.
+ */
+public class CachingImageConverterG2D2Bitmap extends ImageConverterG2D2Bitmap {
+
+    /** {@inheritDoc} */
+    protected BufferedImage paintToBufferedImage(ImageGraphics2D g2dImage, int bitsPerPixel,
+            boolean withAlpha, int resolution, boolean cmyk) {
+        List<Object> key = createKey(g2dImage, bitsPerPixel, withAlpha, resolution, cmyk);
+        BitmapCache bitmapCache = (key != null ? getBitmapCache(g2dImage) : null);
+        if (bitmapCache == null) {
+            return super.paintToBufferedImage(g2dImage, bitsPerPixel, withAlpha, resolution, cmyk);
+        }
+        BufferedImage bi = bitmapCache.get(key);
+        if (bi == null) {
+            bi = super.paintToBufferedImage(g2dImage, bitsPerPixel, withAlpha, resolution, cmyk);
+            bitmapCache.put(key, bi);
+        }
+        return bi;
+    }
+
+    /**
+     * Creates the key of the bitmap of a Java2D image.
+     * @param g2dImage the Java2D image
+     * @param bitsPerPixel the number of bits per pixel of the bitmap
+     * @param withAlpha true if the bitmap has an alpha channel
+     * @param resolution the resolution of the bitmap
+     * @param cmyk true if the bitmap is in CMYK
+     * @return the key or null if the bitmap is not to be cached
+     */
+    static List<Object> createKey(ImageGraphics2D g2dImage, int bitsPerPixel,
+            boolean withAlpha, int resolution, boolean cmyk) {
+        Graphics2DImagePainter painter = g2dImage.getGraphics2DImagePainter();
+        if (!(painter instanceof Graphics2DImagePainterImpl)) {
+            return null;
+        }
+        Graphics2DImagePainterImpl svgPainter = (Graphics2DImagePainterImpl) painter;
+        if (svgPainter.getContentKey() == null || svgPainter.getBridgeContext().isDynamic()) {
+            //Dynamic documents can change while they are painted
+            return null;
+        }
+        ImageSize size = g2dImage.getSize();
+        int bmw = (int) Math.ceil(UnitConv.mpt2px(size.getWidthMpt(), resolution));
+        int bmh = (int) Math.ceil(UnitConv.mpt2px(size.getHeightMpt(), resolution));
+        return Arrays.<Object>asList(svgPainter.getContentKey(), size.getWidthMpt(), size.getHeightMpt(),
+                bmw, bmh, bitsPerPixel, withAlpha, cmyk);
+    }
+
+    /**
+     * Returns the bitmap cache of the image manager an SVG graphic was loaded with.
+     * @param g2dImage the Java2D image of the SVG graphic
+     * @return the bitmap cache or null if the graphic wasn't loaded by a {@link FOPImageManager}
+     */
+    static BitmapCache getBitmapCache(ImageGraphics2D g2dImage) {
+        BridgeContext ctx = ((Graphics2DImagePainterImpl) g2dImage.getGraphics2DImagePainter())
+                .getBridgeContext();
+        if (ctx instanceof AbstractFOPBridgeContext) {
+            ImageManager imageManager = ((AbstractFOPBridgeContext) ctx).getImageManager();
+            if (imageManager instanceof FOPImageManager) {
+                return ((FOPImageManager) imageManager).getBitmapCache();
+            }
+        }
+        return null;
+    }
+}
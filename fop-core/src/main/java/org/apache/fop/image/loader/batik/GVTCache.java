@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader.batik;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.w3c.dom.Document;
+
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.gvt.GraphicsNode;
+
+import org.apache.fop.util.LRUCache;
+
+/**
+ * Keeps the GVT trees built by Apache Batik for SVG documents, so an SVG graphic that is
+ * painted several times (on every page, for example) is cloned and built only once.
+ * <p>
+ * FOP builds GVT trees statically (without scripting or animation), so a tree doesn't change
+ * once it has been built. The settings used to build a tree have to be part of the key.
+ * As painting a tree isn't thread-safe, and as a tree references its bridge context and SVG
+ * document, a cache belongs to one image session (see {@link Holder}) and is dropped with it.
+ */
+public class GVTCache {
+
+    /** The default maximum number of GVT trees kept in a cache */
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    /**
+     * Implemented by image sessions that keep the GVT trees built for them.
+     */
+    public interface Holder {
+
+        /** @return the GVT tree cache of the image session */
+        GVTCache getGVTCache();
+    }
+
+    private final LRUCache<List<Object>, Entry> cache;
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of GVT trees kept in the cache
+     */
+    public GVTCache(int maxSize) {
+        this.cache = new LRUCache<List<Object>, Entry>(maxSize);
+    }
+
+    /**
+     * Creates the key for an SVG document. The document is identified by its content, so
+     * equal documents share their GVT tree.
+     * @param doc the SVG document
+     * @param settings the settings the GVT tree is built with
+     * @return the key
+     */
+    public static List<Object> createKey(Document doc, Object... settings) {
+        List<Object> key = new ArrayList<Object>(settings.length + 1);
+        key.add(BatikUtil.computeDigest(doc));
+        key.addAll(Arrays.asList(settings));
+        return key;
+    }
+
+    /**
+     * Returns the GVT tree built before for a key.
+     * @param key the key
+     * @return the GVT tree and its bridge context or null if there's none in the cache
+     */
+    public Entry get(List<Object> key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Puts a GVT tree into the cache.
+     * @param key the key
+     * @param root the root of the GVT tree
+     * @param ctx the bridge context the tree was built with
+     */
+    public void put(List<Object> key, GraphicsNode root, BridgeContext ctx) {
+        if (root != null) {
+            cache.put(key, new Entry(root, ctx));
+        }
+    }
+
+    /** @return the number of GVT trees in the cache */
+    public int size() {
+        return cache.size();
+    }
+
+    /** @return the number of lookups that found a GVT tree */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /** @return the number of lookups that didn't find a GVT tree */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * A GVT tree together with the bridge context it was built with.
+     */
+    public static final class Entry {
+
+        private final GraphicsNode root;
+
+        private final BridgeContext bridgeContext;
+
+        private Entry(GraphicsNode root, BridgeContext bridgeContext) {
+            this.root = root;
+            this.bridgeContext = bridgeContext;
+        }
+
+        /** @return the root of the GVT tree */
+        public GraphicsNode getRoot() {
+            return root;
+        }
+
+        /** @return the bridge context the tree was built with */
+        public BridgeContext getBridgeContext() {
+            return bridgeContext;
+        }
+    }
+}
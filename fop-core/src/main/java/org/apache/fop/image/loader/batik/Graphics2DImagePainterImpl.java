@@ -43,6 +43,8 @@ public class Graphics2DImagePainterImpl implements Graphics2DImagePainter {
     /** the intrinsic size of the image */
     protected final Dimension imageSize;
 
+    private Object contentKey;
+
     /**
      * Main constructor
      *
@@ -56,6 +58,30 @@ public class Graphics2DImagePainterImpl implements Graphics2DImagePainter {
         this.ctx = ctx;
     }
 
+    /** @return the root of the GVT tree */
+    public GraphicsNode getRoot() {
+        return root;
+    }
+
+    /** @return the Batik bridge context */
+    public BridgeContext getBridgeContext() {
+        return ctx;
+    }
+
+    /**
+     * Sets the key identifying the content painted by this painter. Painters with equal keys
+     * paint the same graphic, so what they paint can be cached under the key.
+     * @param contentKey the key (it must not reference the GVT tree or the SVG document)
+     */
+    public void setContentKey(Object contentKey) {
+        this.contentKey = contentKey;
+    }
+
+    /** @return the key identifying the painted content, or null if there's none */
+    public Object getContentKey() {
+        return contentKey;
+    }
+
     /** {@inheritDoc} */
     public Dimension getImageSize() {
         return imageSize;
@@ -21,6 +21,7 @@ package org.apache.fop.image.loader.batik;
 
 import java.awt.Dimension;
 import java.awt.geom.AffineTransform;
+import java.util.List;
 import java.util.Map;
 
 import org.w3c.dom.Document;
@@ -80,30 +81,50 @@ public class ImageConverterSVG2G2D extends AbstractImageConverter {
         if (ptm != null) {
             pxToMillimeter = (float)(UnitConv.IN2MM / ptm.doubleValue());
         }
-        UserAgent ua = createBatikUserAgent(pxToMillimeter);
-        GVTBuilder builder = new GVTBuilder();
-
         final ImageManager imageManager = (ImageManager)hints.get(
                 ImageProcessingHints.IMAGE_MANAGER);
         final ImageSessionContext sessionContext = (ImageSessionContext)hints.get(
                 ImageProcessingHints.IMAGE_SESSION_CONTEXT);
 
         boolean useEnhancedBridgeContext = (imageManager != null && sessionContext != null);
-        final BridgeContext ctx = (useEnhancedBridgeContext
-                ? new GenericFOPBridgeContext(ua, null, imageManager, sessionContext)
-                : new BridgeContext(ua));
-
         Document doc = svg.getDocument();
-        //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
-        //to it.
-        Document clonedDoc = BatikUtil.cloneSVGDocument(doc);
 
-        //Build the GVT tree
+        //GVT trees are only reused within the image session that keeps them
+        GVTCache gvtCache = null;
+        List<Object> key = null;
+        GVTCache.Entry cached = null;
+        if (useEnhancedBridgeContext && sessionContext instanceof GVTCache.Holder) {
+            gvtCache = ((GVTCache.Holder) sessionContext).getGVTCache();
+            key = GVTCache.createKey(doc, pxToMillimeter, imageManager);
+            cached = gvtCache.get(key);
+        }
+
+        final BridgeContext ctx;
         final GraphicsNode root;
-        try {
-            root = builder.build(ctx, clonedDoc);
-        } catch (Exception e) {
-            throw new ImageException("GVT tree could not be built for SVG graphic", e);
+        if (cached != null) {
+            ctx = cached.getBridgeContext();
+            root = cached.getRoot();
+        } else {
+            UserAgent ua = createBatikUserAgent(pxToMillimeter);
+            GVTBuilder builder = new GVTBuilder();
+
+            ctx = (useEnhancedBridgeContext
+                    ? new GenericFOPBridgeContext(ua, null, imageManager, sessionContext)
+                    : new BridgeContext(ua));
+
+            //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
+            //to it.
+            Document clonedDoc = BatikUtil.cloneSVGDocument(doc);
+
+            //Build the GVT tree
+            try {
+                root = builder.build(ctx, clonedDoc);
+            } catch (Exception e) {
+                throw new ImageException("GVT tree could not be built for SVG graphic", e);
+            }
+            if (gvtCache != null) {
+                gvtCache.put(key, root, ctx);
+            }
         }
 
         //Create the painter
@@ -111,6 +132,10 @@ public class ImageConverterSVG2G2D extends AbstractImageConverter {
         int height = svg.getSize().getHeightMpt();
         Dimension imageSize = new Dimension(width, height);
         Graphics2DImagePainter painter = createPainter(ctx, root, imageSize);
+        if (key != null && painter instanceof Graphics2DImagePainterImpl) {
+            //The key identifies the document by its digest, which allows caching its bitmaps
+            ((Graphics2DImagePainterImpl) painter).setContentKey(key);
+        }
 
         //Create g2d image
         ImageInfo imageInfo = src.getInfo();
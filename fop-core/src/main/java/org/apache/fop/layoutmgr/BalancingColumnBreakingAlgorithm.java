@@ -34,6 +34,9 @@ public class BalancingColumnBreakingAlgorithm extends PageBreakingAlgorithm {
 
     private int columnCount;
     private List<Integer> idealBreaks;
+    /** cumulative widths of the boxes and glues in par: contentLengths[i] is the width of
+     * the elements before index i */
+    private int[] contentLengths;
 
     public BalancingColumnBreakingAlgorithm(LayoutManager topLevelLM,
             PageProvider pageProvider,
@@ -79,6 +82,7 @@ public class BalancingColumnBreakingAlgorithm extends PageBreakingAlgorithm {
         List<ColumnContent> previousPreviousBreaks = null;
         List<ColumnContent> previousBreaks = null;
         List<ColumnContent> breaks = new ArrayList<ColumnContent>();
+        contentLengths = calcContentLengths(par);
         breaks.add(new ColumnContent(startPos, par.size() - 1));
         do {
             previousPreviousBreaks = previousBreaks;
@@ -230,8 +234,22 @@ public class BalancingColumnBreakingAlgorithm extends PageBreakingAlgorithm {
                 || prevIsBox && element instanceof KnuthGlue;
     }
 
+    private static int[] calcContentLengths(KnuthSequence par) {
+        int[] lengths = new int[par.size() + 1];
+        for (int i = 0; i < par.size(); i++) {
+            KnuthElement element = (KnuthElement) par.get(i);
+            lengths[i + 1] = lengths[i] + (element.isBox() || element.isGlue() ? element.getWidth() : 0);
+        }
+        return lengths;
+    }
+
     private int calcContentLength(KnuthSequence par, int startIndex, int endIndex) {
-        return ElementListUtils.calcContentLength(par, startIndex, endIndex) + getPenaltyWidth(endIndex);
+        // same as ElementListUtils.calcContentLength(par, startIndex, endIndex),
+        // which runs to the end of the list if endIndex < startIndex,
+        // but without iterating over the elements every time
+        int start = Math.min(startIndex, par.size());
+        int end = (endIndex < startIndex) ? par.size() : Math.min(endIndex + 1, par.size());
+        return contentLengths[end] - contentLengths[start] + getPenaltyWidth(endIndex);
     }
 
     private int getPenaltyWidth(int index) {
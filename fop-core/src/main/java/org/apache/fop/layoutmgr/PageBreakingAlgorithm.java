@@ -772,11 +772,11 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
                     elementIndex = 0;
                 }
                 // try adding the new footnotes
-                while (lengthList.get(listIndex) - prevLength
-                       <= availableLength) {
-                    splitLength = lengthList.get(listIndex) - prevLength;
+                int nextListIndex = getFirstFootnoteExceeding(listIndex, prevLength + availableLength);
+                if (nextListIndex > listIndex) {
+                    splitLength = lengthList.get(nextListIndex - 1) - prevLength;
                     somethingAdded = true;
-                    listIndex++;
+                    listIndex = nextListIndex;
                     elementIndex = 0;
                 }
                 // as this method is called only if it is not possible to insert
@@ -853,6 +853,29 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
     }
 
+    /**
+     * Returns the index of the first footnote, starting from the given one, whose cumulative
+     * length exceeds the given length. As the lengths in {@link #lengthList} are cumulative,
+     * a binary search is enough.
+     * @param fromIndex index of the first footnote to consider
+     * @param length the maximum cumulative length
+     * @return the index of the first footnote that doesn't fit in the given length, or the
+     * number of footnotes if all of them fit
+     */
+    private int getFirstFootnoteExceeding(int fromIndex, int length) {
+        int low = fromIndex;
+        int high = lengthList.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lengthList.get(mid) <= length) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected double computeAdjustmentRatio(KnuthNode activeNode, int difference) {
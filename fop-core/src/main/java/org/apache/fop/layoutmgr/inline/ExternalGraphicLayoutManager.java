@@ -19,6 +19,15 @@
 
 package org.apache.fop.layoutmgr.inline;
 
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.xmlgraphics.image.loader.ImageException;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.area.Area;
 import org.apache.fop.area.inline.Image;
 import org.apache.fop.fo.flow.ExternalGraphic;
@@ -29,6 +38,9 @@ import org.apache.fop.fo.flow.ExternalGraphic;
  */
 public class ExternalGraphicLayoutManager extends AbstractGraphicsLayoutManager {
 
+    /** logging instance */
+    private static Log log = LogFactory.getLog(ExternalGraphicLayoutManager.class);
+
     /**
      * Constructor.
      *
@@ -38,6 +50,33 @@ public class ExternalGraphicLayoutManager extends AbstractGraphicsLayoutManager
      */
     public ExternalGraphicLayoutManager(ExternalGraphic node) {
         super(node);
+        prefetchImage(node);
+    }
+
+    /**
+     * Has the image loaded in the background so it is ready when the page is rendered.
+     * Images with foreign attributes may be loaded with other processing hints, and XML images
+     * are converted rather than decoded, so these are left to the renderer.
+     */
+    private void prefetchImage(ExternalGraphic node) {
+        if (!node.getForeignAttributes().isEmpty()) {
+            return;
+        }
+        FOUserAgent userAgent = node.getUserAgent();
+        try {
+            ImageInfo info = userAgent.getImageManager().getImageInfo(node.getURL(),
+                    userAgent.getImageSessionContext());
+            String mime = info.getMimeType();
+            if (mime != null && !mime.endsWith("xml")) {
+                userAgent.getImagePrefetcher().prefetch(info);
+            }
+        } catch (ImageException e) {
+            //the image has already been reported by the FO tree
+            log.debug("Image not prefetched: " + node.getURL(), e);
+        } catch (IOException e) {
+            //the image has already been reported by the FO tree
+            log.debug("Image not prefetched: " + node.getURL(), e);
+        }
     }
 
     /** {@inheritDoc} */
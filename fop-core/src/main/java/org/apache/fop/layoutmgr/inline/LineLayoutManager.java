@@ -21,10 +21,12 @@ package org.apache.fop.layoutmgr.inline;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -177,6 +179,20 @@ public class LineLayoutManager extends InlineStackingLayoutManager
      */
     private boolean hyphenationPerformed;
 
+    /**
+     * The maximum number of different line widths for which the line breaks are remembered.
+     */
+    private static final int MAX_CACHED_LINE_LAYOUTS = 4;
+
+    /**
+     * When layout must be re-started due to a change of IPD, the line breaks previously
+     * found for the same IPD (e.g. alternating odd and even page masters) can be reused
+     * as long as the Knuth paragraphs haven't changed. Keyed by IPD, valid for the
+     * alignment in {@link #cachedLineLayoutsAlignment}.
+     */
+    private Map<Integer, LineLayoutPossibilities[]> cachedLineLayouts;
+    private int cachedLineLayoutsAlignment;
+
     /**
      * This class is used to remember
      * which was the first element in the paragraph
@@ -659,6 +675,8 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             isFirstInBlock = false;
         }
         paragraph.subList(0, restartPosition.getIndex() + 1).clear();
+        // the paragraphs change, so the line breaks found so far cannot be reused
+        cachedLineLayouts = null;
         Iterator<KnuthElement> iter = paragraph.iterator();
         while (iter.hasNext() && !iter.next().isBox()) {
             iter.remove();
@@ -809,21 +827,31 @@ public class LineLayoutManager extends InlineStackingLayoutManager
      * @return a list of Knuth elements representing broken lines
      */
     private List<ListElement> createLineBreaks(int alignment, LayoutContext context) {
-        // find the optimal line breaking points for each paragraph
-        Iterator<KnuthSequence> paragraphsIterator = knuthParagraphs.iterator();
-        lineLayoutsList = new LineLayoutPossibilities[knuthParagraphs.size()];
-        LineLayoutPossibilities llPoss;
-        for (int i = 0; paragraphsIterator.hasNext(); i++) {
-            KnuthSequence seq = paragraphsIterator.next();
-            if (!seq.isInlineSequence()) {
-                // This set of line layout possibilities does not matter;
-                // we only need an entry in lineLayoutsList.
-                llPoss = new LineLayoutPossibilities();
-            } else {
-                llPoss = findOptimalBreakingPoints(alignment, (Paragraph) seq,
-                                                   !paragraphsIterator.hasNext());
+        LineLayoutPossibilities[] cached = getCachedLineLayouts(alignment);
+        if (cached != null) {
+            // the line breaks for this IPD are already known
+            lineLayoutsList = cached;
+            for (LineLayoutPossibilities llPoss : lineLayoutsList) {
+                llPoss.resetChosenPossibility();
+            }
+        } else {
+            // find the optimal line breaking points for each paragraph
+            Iterator<KnuthSequence> paragraphsIterator = knuthParagraphs.iterator();
+            lineLayoutsList = new LineLayoutPossibilities[knuthParagraphs.size()];
+            LineLayoutPossibilities llPoss;
+            for (int i = 0; paragraphsIterator.hasNext(); i++) {
+                KnuthSequence seq = paragraphsIterator.next();
+                if (!seq.isInlineSequence()) {
+                    // This set of line layout possibilities does not matter;
+                    // we only need an entry in lineLayoutsList.
+                    llPoss = new LineLayoutPossibilities();
+                } else {
+                    llPoss = findOptimalBreakingPoints(alignment, (Paragraph) seq,
+                                                       !paragraphsIterator.hasNext());
+                }
+                lineLayoutsList[i] = llPoss;
             }
-            lineLayoutsList[i] = llPoss;
+            cacheLineLayouts(alignment);
         }
 
         setFinished(true);
@@ -832,6 +860,22 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         return postProcessLineBreaks(alignment, context);
     }
 
+    private LineLayoutPossibilities[] getCachedLineLayouts(int alignment) {
+        if (cachedLineLayouts == null || cachedLineLayoutsAlignment != alignment) {
+            return null;
+        }
+        return cachedLineLayouts.get(ipd);
+    }
+
+    private void cacheLineLayouts(int alignment) {
+        if (cachedLineLayouts == null || cachedLineLayoutsAlignment != alignment
+                || cachedLineLayouts.size() >= MAX_CACHED_LINE_LAYOUTS) {
+            cachedLineLayouts = new HashMap<Integer, LineLayoutPossibilities[]>();
+            cachedLineLayoutsAlignment = alignment;
+        }
+        cachedLineLayouts.put(ipd, lineLayoutsList);
+    }
+
     /**
      * Find the optimal linebreaks for a paragraph
      * @param alignment alignment of the paragraph
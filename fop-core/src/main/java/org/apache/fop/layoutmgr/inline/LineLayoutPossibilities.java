@@ -266,6 +266,15 @@ public class LineLayoutPossibilities {
         }
     }
 
+    /**
+     * Chooses the optimum possibility again, undoing any line count adjustment.
+     */
+    public void resetChosenPossibility() {
+        if (optimumIndex >= 0) {
+            chosenIndex = optimumIndex;
+        }
+    }
+
     /** print all */
     public void printAll() {
         System.out.println("++++++++++");
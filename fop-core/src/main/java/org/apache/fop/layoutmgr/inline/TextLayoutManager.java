@@ -131,6 +131,9 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
     private boolean keepTogether;
 
+    /** line break classes of the text, reused by the calls to getNextKnuthElements */
+    private byte[] lineBreakClasses;
+
     private final Position auxiliaryPosition = new LeafPosition(this, -1);
 
     private FOUserAgent userAgent;
@@ -772,6 +775,12 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             LOG.debug("GK: [" + nextStart + "," + foText.length() + "]");
         }
         LineBreakStatus lineBreakStatus = new LineBreakStatus();
+        // classify the remaining text in one pass instead of character by character
+        final int classesStart = nextStart;
+        if (!keepTogether) {
+            lineBreakClasses = LineBreakStatus.getLineBreakClasses(foText, classesStart, foText.length(),
+                    lineBreakClasses);
+        }
         thisStart = nextStart;
         boolean inWord = false;
         boolean inWhitespace = false;
@@ -785,7 +794,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             boolean breakOpportunity = false;
             byte breakAction = keepTogether
                     ? LineBreakStatus.PROHIBITED_BREAK
-                    : lineBreakStatus.nextChar(ch);
+                    : lineBreakStatus.nextLineBreakClass(lineBreakClasses[nextStart - classesStart]);
             switch (breakAction) {
                 case LineBreakStatus.COMBINING_PROHIBITED_BREAK:
                 case LineBreakStatus.PROHIBITED_BREAK:
@@ -19,9 +19,14 @@
 
 package org.apache.fop.pdf;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.io.output.CountingOutputStream;
 
@@ -41,6 +46,9 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private PDFNumber refLength = new PDFNumber();
 
+    /** The stream encoded ahead of output by {@link #encodeWithDigest()} */
+    private StreamCache preparedStream;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -210,6 +218,67 @@ public abstract class AbstractPDFStream extends PDFObject {
         return bytesWritten;
     }
 
+    /**
+     * Encodes the stream ahead of its output and computes a SHA-256 digest of the encoded
+     * data while doing so. The stream dictionary is included in the digest, except for the
+     * /Length and /Name entries, so two streams have the same digest if they produce the same
+     * output apart from those. The encoded stream is kept and written out by
+     * {@link #output(OutputStream)}, so the raw data is only read once.
+     * <p>
+     * The document has to be set, and it must not be encrypted since the encrypted data
+     * depends on the object number.
+     * @return the digest as a hex string
+     * @throws IOException in case of an I/O problem
+     */
+    protected String encodeWithDigest() throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        setupFilterList();
+        StreamCache encodedStream = StreamCacheFactory.getInstance()
+                .createStreamCache(getSizeHint());
+        DigestOutputStream dout = new DigestOutputStream(encodedStream.getOutputStream(), md);
+        OutputStream filteredOutput = getFilterList().applyFilters(dout);
+        outputRawStreamData(filteredOutput);
+        filteredOutput.flush();
+        filteredOutput.close();
+        preparedStream = encodedStream;
+
+        populateStreamDict(refLength);
+        ByteArrayOutputStream dictOut = new ByteArrayOutputStream();
+        StringBuilder textBuffer = new StringBuilder(64);
+        for (String key : new TreeSet<String>(dictionary.keySet())) {
+            if (!"Length".equals(key) && !"Name".equals(key)) {
+                textBuffer.append(PDFName.escapeName(key)).append(' ');
+                formatObject(dictionary.get(key), dictOut, textBuffer);
+                textBuffer.append('\n');
+            }
+        }
+        PDFDocument.flushTextBuffer(textBuffer, dictOut);
+        md.update(dictOut.toByteArray());
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : md.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Discards the stream encoded by {@link #encodeWithDigest()}, for a stream that is not
+     * going to be written.
+     * @throws IOException in case of an I/O problem
+     */
+    protected void discardEncodedStream() throws IOException {
+        if (preparedStream != null) {
+            preparedStream.clear();
+            preparedStream = null;
+        }
+    }
+
     /**
      * Overload the base object method so we don't have to copy
      * byte arrays around so much
@@ -217,7 +286,9 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     @Override
     public int output(OutputStream stream) throws IOException {
-        setupFilterList();
+        if (preparedStream == null) {
+            setupFilterList();
+        }
 
         CountingOutputStream cout = new CountingOutputStream(stream);
         StringBuilder textBuffer = new StringBuilder(64);
@@ -230,7 +301,7 @@ public abstract class AbstractPDFStream extends PDFObject {
             }
             lengthEntry = refLength;
         } else {
-            encodedStream = encodeStream();
+            encodedStream = preparedStream != null ? preparedStream : encodeStream();
             lengthEntry = encodedStream.getSize();
         }
 
@@ -240,11 +311,17 @@ public abstract class AbstractPDFStream extends PDFObject {
         //Send encoded stream to target OutputStream
         PDFDocument.flushTextBuffer(textBuffer, cout);
         if (encodedStream == null) {
-            encodeAndWriteStream(cout, refLength);
+            if (preparedStream != null) {
+                refLength.setNumber(preparedStream.getSize());
+                outputStreamData(preparedStream, cout);
+            } else {
+                encodeAndWriteStream(cout, refLength);
+            }
         } else {
             outputStreamData(encodedStream, cout);
             encodedStream.clear(); //Encoded stream can now be discarded
         }
+        discardEncodedStream();
 
         PDFDocument.flushTextBuffer(textBuffer, cout);
         return cout.getCount();
@@ -31,14 +31,20 @@ import java.io.OutputStream;
 
 import org.apache.xmlgraphics.image.GraphicsUtil;
 
+import org.apache.fop.util.bitmap.BitmapImageUtil;
+
 /**
  * PDFImage implementation for alpha channel "images".
  */
 public class AlphaRasterImage implements PDFImage {
 
+    /** The maximum number of pixels of an image fetched at once. */
+    private static final int STRIP_PIXELS = 1 << 20;
+
     private int bitsPerComponent;
     private PDFDeviceColorSpace colorSpace;
     private Raster alpha;
+    private RenderedImage image;
     private String key;
 
     /**
@@ -49,12 +55,7 @@ public class AlphaRasterImage implements PDFImage {
      * @param alpha the alpha channel raster
      */
     public AlphaRasterImage(String k, Raster alpha) {
-        this.key = k;
-        //Enable the commented line below if 16-bit alpha channels are desired.
-        //Otherwise, we compress the alpha channel to 8 bit which should be sufficient.
-        //this.bitsPerComponent = alpha.getSampleModel().getSampleSize(0);
-        this.bitsPerComponent = 8;
-        this.colorSpace = new PDFDeviceColorSpace(PDFDeviceColorSpace.DEVICE_GRAY);
+        this(k);
         if (alpha == null) {
             throw new NullPointerException("Parameter alpha must not be null");
         }
@@ -63,14 +64,27 @@ public class AlphaRasterImage implements PDFImage {
 
     /**
      * Create a alpha channel image.
-     * Extracts the alpha channel from the RenderedImage and creates a new bitmap image
-     * with the given data.
+     * The alpha channel is extracted from the RenderedImage strip by strip when the image
+     * data is written so the image data is never copied all at once.
      *
      * @param k the key to be used to lookup the image
      * @param image the image (must have an alpha channel)
      */
     public AlphaRasterImage(String k, RenderedImage image) {
-        this(k, getAlphaRaster(image));
+        this(k);
+        if (image == null) {
+            throw new NullPointerException("Parameter image must not be null");
+        }
+        this.image = image;
+    }
+
+    private AlphaRasterImage(String k) {
+        this.key = k;
+        //Enable the commented line below if 16-bit alpha channels are desired.
+        //Otherwise, we compress the alpha channel to 8 bit which should be sufficient.
+        //this.bitsPerComponent = alpha.getSampleModel().getSampleSize(0);
+        this.bitsPerComponent = 8;
+        this.colorSpace = new PDFDeviceColorSpace(PDFDeviceColorSpace.DEVICE_GRAY);
     }
 
     /**
@@ -118,12 +132,12 @@ public class AlphaRasterImage implements PDFImage {
 
     /** {@inheritDoc} */
     public int getWidth() {
-        return alpha.getWidth();
+        return image != null ? image.getWidth() : alpha.getWidth();
     }
 
     /** {@inheritDoc} */
     public int getHeight() {
-        return alpha.getHeight();
+        return image != null ? image.getHeight() : alpha.getHeight();
     }
 
     /** {@inheritDoc} */
@@ -168,8 +182,21 @@ public class AlphaRasterImage implements PDFImage {
 
     /** {@inheritDoc} */
     public void outputContents(OutputStream out) throws IOException {
-        int w = getWidth();
-        int h = getHeight();
+        if (image == null) {
+            writeAlpha(alpha, out);
+        } else {
+            int stripHeight = BitmapImageUtil.getStripHeight(image, STRIP_PIXELS);
+            for (int y = 0; y < image.getHeight(); y += stripHeight) {
+                BufferedImage strip = BitmapImageUtil.getStrip(image, y,
+                        Math.min(stripHeight, image.getHeight() - y));
+                writeAlpha(getAlphaRaster(strip), out);
+            }
+        }
+    }
+
+    private static void writeAlpha(Raster alpha, OutputStream out) throws IOException {
+        int w = alpha.getWidth();
+        int h = alpha.getHeight();
 
         //Check Raster
         int nbands = alpha.getNumBands();
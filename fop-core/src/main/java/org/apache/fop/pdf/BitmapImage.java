@@ -121,6 +121,15 @@ public class BitmapImage implements PDFImage {
         return colorSpace;
     }
 
+    /**
+     * Set the number of bits per component of the image data. The default is 8.
+     *
+     * @param bitsPerComponent the number of bits per component
+     */
+    public void setBitsPerComponent(int bitsPerComponent) {
+        this.bitsPerComponent = bitsPerComponent;
+    }
+
     /** {@inheritDoc} */
     public int getBitsPerComponent() {
         return bitsPerComponent;
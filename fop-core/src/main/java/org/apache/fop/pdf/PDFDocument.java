@@ -20,6 +20,7 @@
 package org.apache.fop.pdf;
 
 // Java
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
@@ -132,6 +133,9 @@ public class PDFDocument {
     /* TODO: Should be modified (works only for image subtype) */
     private Map<String, PDFXObject> xObjectsMap = new HashMap<String, PDFXObject>();
 
+    /** XObjects by the digest of their content, if XObject deduplication is enabled */
+    private Map<String, PDFXObject> xObjectDigests = new HashMap<String, PDFXObject>();
+
     private Map<String, PDFFont> fontMap = new HashMap<String, PDFFont>();
 
     private Map<String, List<String>> filterMap = new HashMap<String, List<String>>();
@@ -176,6 +180,12 @@ public class PDFDocument {
 
     private boolean formXObjectEnabled;
 
+    private boolean xObjectDeduplicationEnabled;
+
+    private float imageMaxResolution;
+
+    private Float imageJPEGQuality;
+
     protected boolean outputStarted;
 
     /**
@@ -870,7 +880,17 @@ public class PDFDocument {
         // setup image
         img.setup(this);
         // create a new XObject
-        xObject = new PDFImageXObject(++this.xObjectCount, img);
+        xObject = new PDFImageXObject(this.xObjectCount + 1, img);
+        PDFXObject duplicate = findDuplicateXObject(xObject);
+        if (duplicate instanceof PDFImageXObject) {
+            xObject = (PDFImageXObject) duplicate;
+            if (res != null) {
+                res.addXObject(xObject);
+            }
+            this.xObjectsMap.put(key, xObject);
+            return xObject;
+        }
+        this.xObjectCount++;
         registerObject(xObject);
         this.resources.addXObject(xObject);
         if (res != null) {
@@ -885,6 +905,11 @@ public class PDFDocument {
      * This adds a Form XObject to the PDF objects.
      * If a Form XObject with the same key already exists it will return the
      * old {@link PDFFormXObject}.
+     * <p>
+     * Form XObjects added this way are never merged by XObject deduplication, since
+     * their bounding box and matrix are usually set afterwards. Use
+     * {@link #addFormXObject(PDFResourceContext, PDFStream, PDFReference, String, Rectangle2D)}
+     * for forms that can be merged.
      *
      * @param res the PDF resource context to add to, may be null
      * @param cont the PDF Stream contents of the Form XObject
@@ -897,6 +922,30 @@ public class PDFDocument {
         PDFStream cont,
         PDFReference formres,
         String key) {
+        return addFormXObject(res, cont, formres, key, null, false);
+    }
+
+    /**
+     * Add a form XObject with a bounding box to the PDF document.
+     * If a Form XObject with the same key already exists it will return the
+     * old {@link PDFFormXObject}. The bounding box has to be given here rather than
+     * set afterwards for forms with the same content to be merged by
+     * XObject deduplication.
+     *
+     * @param res the PDF resource context to add to, may be null
+     * @param cont the PDF Stream contents of the Form XObject
+     * @param formres a reference to the PDF Resources for the Form XObject data
+     * @param key the key for the object
+     * @param bbox the bounding box of the Form XObject, may be null
+     * @return the PDF Form XObject that references the PDF data
+     */
+    public PDFFormXObject addFormXObject(PDFResourceContext res, PDFStream cont,
+            PDFReference formres, String key, Rectangle2D bbox) {
+        return addFormXObject(res, cont, formres, key, bbox, true);
+    }
+
+    private PDFFormXObject addFormXObject(PDFResourceContext res, PDFStream cont,
+            PDFReference formres, String key, Rectangle2D bbox, boolean deduplicate) {
 
         // check if already created
         PDFFormXObject xObject = (PDFFormXObject)xObjectsMap.get(key);
@@ -908,9 +957,22 @@ public class PDFDocument {
         }
 
         xObject = new PDFFormXObject(
-                ++this.xObjectCount,
+                this.xObjectCount + 1,
                 cont,
                 formres);
+        if (bbox != null) {
+            xObject.setBBox(bbox);
+        }
+        PDFXObject duplicate = (deduplicate ? findDuplicateXObject(xObject) : null);
+        if (duplicate instanceof PDFFormXObject) {
+            xObject = (PDFFormXObject) duplicate;
+            if (res != null) {
+                res.addXObject(xObject);
+            }
+            this.xObjectsMap.put(key, xObject);
+            return xObject;
+        }
+        this.xObjectCount++;
         registerObject(xObject);
         this.resources.addXObject(xObject);
         if (res != null) {
@@ -920,6 +982,35 @@ public class PDFDocument {
         return xObject;
     }
 
+    /**
+     * Looks for an XObject with the same content as a new one if XObject deduplication is
+     * active. The content is encoded right away for this, and the new XObject is remembered
+     * by its digest if no XObject with the same content has been added before.
+     *
+     * @param xObject the new XObject, not registered yet
+     * @return the XObject with the same content or null if there's none
+     */
+    private PDFXObject findDuplicateXObject(PDFXObject xObject) {
+        //Encrypted streams and the PDF/VT image IDs depend on more than the content
+        if (!xObjectDeduplicationEnabled || isEncryptionActive() || getProfile().isPDFVTActive()) {
+            return null;
+        }
+        xObject.setDocument(this);
+        try {
+            String digest = xObject.encodeWithDigest();
+            PDFXObject duplicate = xObjectDigests.get(digest);
+            if (duplicate != null) {
+                xObject.discardEncodedStream();
+            } else {
+                xObjectDigests.put(digest, xObject);
+            }
+            return duplicate;
+        } catch (IOException ioe) {
+            log.error("Could not encode XObject for deduplication", ioe);
+            return null;
+        }
+    }
+
     /**
      * Get the root Outlines object. This method does not write
      * the outline to the PDF document, it simply creates a
@@ -1238,4 +1329,56 @@ public class PDFDocument {
     public void setFormXObjectEnabled(boolean b) {
         formXObjectEnabled = b;
     }
+
+    /**
+     * Indicates whether image and form XObjects with the same content are only written once,
+     * even if they are added under different keys.
+     * @return true if XObject deduplication is enabled
+     */
+    public boolean isXObjectDeduplicationEnabled() {
+        return xObjectDeduplicationEnabled;
+    }
+
+    /**
+     * Enables or disables the deduplication of image and form XObjects by the digest of their
+     * encoded content. The content is then encoded when the XObject is added rather than when
+     * it's written. Deduplication is not done for encrypted and PDF/VT documents.
+     * @param b true to enable XObject deduplication
+     */
+    public void setXObjectDeduplicationEnabled(boolean b) {
+        xObjectDeduplicationEnabled = b;
+    }
+
+    /**
+     * Returns the maximum resolution of bitmap images. Images with a higher resolution at
+     * the size they are shown are downsampled.
+     * @return the resolution (in dpi), 0 if images are not downsampled
+     */
+    public float getImageMaxResolution() {
+        return imageMaxResolution;
+    }
+
+    /**
+     * Sets the maximum resolution of bitmap images.
+     * @param resolution the resolution (in dpi), 0 to disable downsampling
+     */
+    public void setImageMaxResolution(float resolution) {
+        imageMaxResolution = resolution;
+    }
+
+    /**
+     * Returns the quality downsampled images are compressed with as JPEG.
+     * @return the JPEG quality (0..1) or null if they are compressed losslessly
+     */
+    public Float getImageJPEGQuality() {
+        return imageJPEGQuality;
+    }
+
+    /**
+     * Sets the quality downsampled images are compressed with as JPEG.
+     * @param quality the JPEG quality (0..1) or null to compress them losslessly
+     */
+    public void setImageJPEGQuality(Float quality) {
+        imageJPEGQuality = quality;
+    }
 }
@@ -53,6 +53,8 @@ public abstract class PDFTextUtil {
     private boolean useMultiByte;
     private boolean useCid;
     private StringBuffer bufTJ;
+    private final StringBuffer buf = new StringBuffer();
+    private final double[] matrix = new double[6];
     private int textRenderingMode = TR_FILL;
 
     private String currentFontName;
@@ -72,13 +74,23 @@ public abstract class PDFTextUtil {
     protected abstract void write(String code);
 
     /**
-     * Writes PDF code.
+     * Writes PDF code. The buffer is reused once this method returns, so implementations
+     * have to copy its contents.
      * @param code the PDF code to write
      */
     protected abstract void write(StringBuffer code);
 
+    /**
+     * Returns the buffer used to build single commands, emptied.
+     * @return the buffer
+     */
+    private StringBuffer getBuffer() {
+        buf.setLength(0);
+        return buf;
+    }
+
     private void writeAffineTransform(AffineTransform at, StringBuffer sb) {
-        double[] lt = new double[6];
+        double[] lt = matrix;
         at.getMatrix(lt);
         PDFNumber.doubleOut(lt[0], DEC, sb);
         sb.append(' ');
@@ -169,7 +181,7 @@ public abstract class PDFTextUtil {
     public void concatMatrix(AffineTransform at) {
         if (!at.isIdentity()) {
             writeTJ();
-            StringBuffer sb = new StringBuffer();
+            StringBuffer sb = getBuffer();
             writeAffineTransform(at, sb);
             sb.append(" cm\n");
             write(sb);
@@ -183,7 +195,7 @@ public abstract class PDFTextUtil {
      */
     public void writeTf(String fontName, double fontSize) {
         checkInTextObject();
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getBuffer();
         sb.append('/');
         sb.append(fontName);
         sb.append(' ');
@@ -252,7 +264,7 @@ public abstract class PDFTextUtil {
      * @param localTransform the new text transformation matrix
      */
     public void writeTextMatrix(AffineTransform localTransform) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getBuffer();
         writeAffineTransform(localTransform, sb);
         sb.append(" Tm ");
         write(sb);
@@ -336,7 +348,7 @@ public abstract class PDFTextUtil {
      * @param y coordinate
      */
     public void writeTd(double x, double y) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getBuffer();
         PDFNumber.doubleOut(x, DEC, sb);
         sb.append(' ');
         PDFNumber.doubleOut(y, DEC, sb);
@@ -349,7 +361,7 @@ public abstract class PDFTextUtil {
      * @param ch character code to write
      */
     public void writeTj(char ch, boolean multibyte, boolean cid) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getBuffer();
         sb.append(startText);
         writeChar(ch, sb, multibyte, cid);
         sb.append(endText);
@@ -23,6 +23,7 @@ package org.apache.fop.render;
 import java.awt.Dimension;
 import java.awt.geom.AffineTransform;
 import java.io.IOException;
+import java.util.List;
 
 import org.w3c.dom.Document;
 
@@ -38,6 +39,7 @@ import org.apache.xmlgraphics.java2d.Graphics2DImagePainter;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.events.EventBroadcaster;
 import org.apache.fop.image.loader.batik.BatikUtil;
+import org.apache.fop.image.loader.batik.GVTCache;
 import org.apache.fop.image.loader.batik.Graphics2DImagePainterImpl;
 import org.apache.fop.render.RendererContext.RendererContextWrapper;
 import org.apache.fop.svg.SVGEventProducer;
@@ -123,18 +125,37 @@ public abstract class AbstractGenericSVGHandler implements XMLHandler, RendererC
 
         //Prepare
         FOUserAgent userAgent = rendererContext.getUserAgent();
-        SVGUserAgent svgUserAgent = new SVGUserAgent(userAgent, DefaultFontFamilyResolver.SINGLETON,
-                new AffineTransform());
-
-        //Create Batik BridgeContext
-        final BridgeContext bridgeContext = new BridgeContext(svgUserAgent);
-
-        //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
-        //to it.
-        Document clonedDoc = BatikUtil.cloneSVGDocument(doc);
-
-        //Build the GVT tree
-        final GraphicsNode root = buildGraphicsNode(userAgent, bridgeContext, clonedDoc);
+        //GVT trees are only reused within the image session of this rendering run
+        GVTCache gvtCache = null;
+        List<Object> key = null;
+        GVTCache.Entry cached = null;
+        if (userAgent.getImageSessionContext() instanceof GVTCache.Holder) {
+            gvtCache = ((GVTCache.Holder) userAgent.getImageSessionContext()).getGVTCache();
+            key = GVTCache.createKey(doc, AbstractGenericSVGHandler.class);
+            cached = gvtCache.get(key);
+        }
+        final BridgeContext bridgeContext;
+        final GraphicsNode root;
+        if (cached != null) {
+            bridgeContext = cached.getBridgeContext();
+            root = cached.getRoot();
+        } else {
+            SVGUserAgent svgUserAgent = new SVGUserAgent(userAgent, DefaultFontFamilyResolver.SINGLETON,
+                    new AffineTransform());
+
+            //Create Batik BridgeContext
+            bridgeContext = new BridgeContext(svgUserAgent);
+
+            //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
+            //to it.
+            Document clonedDoc = BatikUtil.cloneSVGDocument(doc);
+
+            //Build the GVT tree
+            root = buildGraphicsNode(userAgent, bridgeContext, clonedDoc);
+            if (gvtCache != null) {
+                gvtCache.put(key, root, bridgeContext);
+            }
+        }
 
         // Create Graphics2DImagePainter
         final RendererContextWrapper wrappedContext = RendererContext.wrapRendererContext(
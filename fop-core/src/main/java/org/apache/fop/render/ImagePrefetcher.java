@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageProcessingHints;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+
+/**
+ * Loads images in background threads ahead of rendering. The layout engine announces the
+ * images it encounters through {@link #prefetch(ImageInfo)}; the loaded images end up in the
+ * {@link ImageManager}'s image cache where the renderer picks them up. Images which can't be
+ * cached (like raw image streams which can only be read once) are handed to the renderer by
+ * {@link #await(ImageInfo)} instead.
+ * <p>
+ * The renderer has to call {@link #setup(ImageFlavor[], Map)} with the image flavors and
+ * processing hints it loads images with: nothing is loaded before as the loaded images depend
+ * on both. Before loading an image, the renderer calls {@link #await(ImageInfo)} so an image
+ * isn't loaded twice. As image sessions aren't thread-safe (they keep the sources and the GVT
+ * trees of the images loaded with them), every image is loaded with an image session of its
+ * own, see {@link #createSessionContext()}. {@link #clear()} releases the images that were
+ * announced but never rendered once the document is finished.
+ */
+public abstract class ImagePrefetcher {
+
+    /** logging instance */
+    private static Log log = LogFactory.getLog(ImagePrefetcher.class);
+
+    /** The maximum number of images being loaded or waiting to be picked up by the renderer. */
+    private static final int MAX_PENDING = 32;
+
+    private static ExecutorService executor;
+
+    private final ImageManager imageManager;
+
+    private ImageFlavor[] flavors;
+
+    private Map<Object, Object> hints;
+
+    /** The images being loaded, by URI */
+    private final Map<String, Future<?>> pending = new HashMap<String, Future<?>>();
+
+    /** The images announced before the renderer set the prefetcher up */
+    private final List<ImageInfo> queued = new ArrayList<ImageInfo>();
+
+    /** The loaded images which couldn't be cached, by URI */
+    private final Map<String, Image> loaded = new HashMap<String, Image>();
+
+    /**
+     * Creates a new image prefetcher.
+     * @param imageManager the image manager
+     */
+    public ImagePrefetcher(ImageManager imageManager) {
+        this.imageManager = imageManager;
+    }
+
+    /**
+     * Creates the image session an image is loaded with in a background thread. A new session
+     * is used for every image, so no session is used by several threads at the same time.
+     * @return a new image session
+     */
+    protected abstract ImageSessionContext createSessionContext();
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "FOP image prefetcher");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return executor;
+    }
+
+    /**
+     * Announces an image that will be rendered. The image is loaded in the background unless
+     * too many images are pending already.
+     * @param info the image information of the preloaded image
+     */
+    public synchronized void prefetch(ImageInfo info) {
+        String uri = info.getOriginalURI();
+        if (uri == null || pending.containsKey(uri) || loaded.containsKey(uri)
+                || getPendingCount() >= MAX_PENDING) {
+            return;
+        }
+        if (flavors == null) {
+            pending.put(uri, null);
+            queued.add(info);
+        } else {
+            pending.put(uri, submit(info));
+        }
+    }
+
+    /**
+     * Sets the image flavors and processing hints the renderer loads images with and starts
+     * loading the images announced so far. Only the first call has an effect.
+     * @param flavors the image flavors supported by the renderer
+     * @param hints the image processing hints
+     */
+    public synchronized void setup(ImageFlavor[] flavors, Map<?, ?> hints) {
+        if (this.flavors != null) {
+            return;
+        }
+        this.flavors = flavors.clone();
+        this.hints = new HashMap<Object, Object>(hints);
+        //hints specific to a page don't apply to the images loaded ahead
+        this.hints.remove("page-number");
+        for (ImageInfo info : queued) {
+            pending.put(info.getOriginalURI(), submit(info));
+        }
+        queued.clear();
+    }
+
+    private Future<?> submit(final ImageInfo info) {
+        final ImageFlavor[] flavors = this.flavors;
+        final ImageSessionContext sessionContext = createSessionContext();
+        final Map<Object, Object> hints = new HashMap<Object, Object>(this.hints);
+        hints.put(ImageProcessingHints.IMAGE_SESSION_CONTEXT, sessionContext);
+        //Have warnings passed on to the renderer, see AbstractIFPainter. The custom objects are
+        //set up here as the renderer reads them only after await().
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> customObjects = info.getCustomObjects();
+        customObjects.put("warningincustomobject", true);
+        final String uri = info.getOriginalURI();
+        FutureTask<Image> task = new FutureTask<Image>(new Callable<Image>() {
+            public Image call() {
+                try {
+                    return imageManager.getImage(info, flavors, hints, sessionContext);
+                } catch (Exception e) {
+                    //The renderer loads the image again and reports the problem
+                    log.debug("Error prefetching image " + uri, e);
+                    return null;
+                }
+            }
+        }) {
+            protected void done() {
+                Image img = null;
+                try {
+                    img = get();
+                } catch (InterruptedException e) {
+                    //not thrown, the task is done
+                } catch (ExecutionException e) {
+                    //not thrown, errors are handled by the task
+                }
+                loaded(uri, this, img);
+            }
+        };
+        getExecutor().execute(task);
+        return task;
+    }
+
+    private synchronized void loaded(String uri, Future<Image> task, Image img) {
+        if (pending.get(uri) != task) {
+            //abandoned by clear()
+            release(img);
+        } else {
+            pending.remove(uri);
+            if (img != null && !img.isCacheable()) {
+                //The image didn't end up in the cache, keep it for the renderer
+                loaded.put(uri, img);
+            }
+        }
+        notifyAll();
+    }
+
+    private static void release(Image img) {
+        if (img instanceof ImageRawStream) {
+            IOUtils.closeQuietly(((ImageRawStream) img).createInputStream());
+        }
+    }
+
+    /**
+     * Waits until an image that is being loaded in the background is available.
+     * @param info the image information of the preloaded image
+     * @return the loaded image if it couldn't be cached and has to be used by the caller, or
+     *         null if the image has to be obtained from the image manager
+     */
+    public synchronized Image await(ImageInfo info) {
+        String uri = info.getOriginalURI();
+        if (pending.containsKey(uri) && pending.get(uri) == null) {
+            pending.remove(uri);
+            for (Iterator<ImageInfo> iter = queued.iterator(); iter.hasNext();) {
+                if (iter.next().getOriginalURI().equals(uri)) {
+                    iter.remove();
+                }
+            }
+            return null;
+        }
+        Future<?> future = pending.get(uri);
+        try {
+            //the task leaves the pending images once it has handed over its image
+            while (future != null && pending.get(uri) == future) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return loaded.remove(uri);
+    }
+
+    /**
+     * Forgets about the images which were announced but not rendered, releasing the loaded
+     * images that couldn't be cached. Images still being loaded are released once loaded.
+     */
+    public synchronized void clear() {
+        pending.clear();
+        queued.clear();
+        for (Image img : loaded.values()) {
+            release(img);
+        }
+        loaded.clear();
+    }
+
+    /** @return the number of images being loaded or waiting to be picked up by the renderer */
+    public synchronized int getPendingCount() {
+        return pending.size() + loaded.size();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.xmlgraphics.image.loader.impl.ImageRawPNG;
+
+/**
+ * Utilities for embedding raw (not decoded) PNG image data.
+ */
+public final class RawPNGUtil {
+
+    private RawPNGUtil() {
+    }
+
+    /**
+     * Separates the color and alpha channels of a raw PNG image with an alpha channel (gray +
+     * alpha or RGB + alpha). The PNG filters are kept: they work on each channel separately so
+     * the rows written can still be decoded with the PNG predictors. The image data is only
+     * inflated, it is never decoded into pixels.
+     * @param png the PNG image
+     * @param colorOut receives the deflated color channels, or null
+     * @param alphaOut receives the deflated alpha channel, or null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeChannels(ImageRawPNG png, OutputStream colorOut, OutputStream alphaOut)
+            throws IOException {
+        int numComponents = png.getColorModel().getNumComponents();
+        // the alpha channel is only allowed with 8 or 16 bits per sample
+        int bytesPerSample = Math.max(1, png.getBitDepth() / 8);
+        int bytesPerPixel = numComponents * bytesPerSample;
+        int colorBytesPerPixel = bytesPerPixel - bytesPerSample;
+        int numColumns = png.getSize().getWidthPx();
+        // the first byte of each row holds the filter
+        byte[] row = new byte[1 + numColumns * bytesPerPixel];
+        byte[] colorRow = new byte[1 + numColumns * colorBytesPerPixel];
+        byte[] alphaRow = new byte[1 + numColumns * bytesPerSample];
+        Deflater colorDeflater = colorOut != null ? new Deflater() : null;
+        Deflater alphaDeflater = alphaOut != null ? new Deflater() : null;
+        InputStream in = png.createInputStream();
+        try {
+            DataInputStream dataStream = new DataInputStream(new InflaterInputStream(in));
+            DeflaterOutputStream colorStream = colorOut != null
+                    ? new DeflaterOutputStream(colorOut, colorDeflater) : null;
+            DeflaterOutputStream alphaStream = alphaOut != null
+                    ? new DeflaterOutputStream(alphaOut, alphaDeflater) : null;
+            int filter;
+            while ((filter = dataStream.read()) != -1) {
+                dataStream.readFully(row, 1, row.length - 1);
+                colorRow[0] = (byte) filter;
+                alphaRow[0] = (byte) filter;
+                int src = 1;
+                int colorPos = 1;
+                int alphaPos = 1;
+                for (int j = 0; j < numColumns; j++) {
+                    System.arraycopy(row, src, colorRow, colorPos, colorBytesPerPixel);
+                    System.arraycopy(row, src + colorBytesPerPixel, alphaRow, alphaPos, bytesPerSample);
+                    src += bytesPerPixel;
+                    colorPos += colorBytesPerPixel;
+                    alphaPos += bytesPerSample;
+                }
+                if (colorStream != null) {
+                    colorStream.write(colorRow);
+                }
+                if (alphaStream != null) {
+                    alphaStream.write(alphaRow);
+                }
+            }
+            // finish instead of close so the target streams stay open
+            if (colorStream != null) {
+                colorStream.finish();
+            }
+            if (alphaStream != null) {
+                alphaStream.finish();
+            }
+            dataStream.close();
+        } finally {
+            IOUtils.closeQuietly(in);
+            if (colorDeflater != null) {
+                colorDeflater.end();
+            }
+            if (alphaDeflater != null) {
+                alphaDeflater.end();
+            }
+        }
+    }
+}
@@ -58,6 +58,7 @@ import org.apache.fop.afp.modca.ResourceObject;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.util.bitmap.BitmapImageUtil;
+import org.apache.fop.util.bitmap.StreamingImageEncodingHelper;
 
 /**
  * PDFImageHandler implementation which handles RenderedImage instances.
@@ -283,7 +284,7 @@ public class AFPImageHandlerRenderedImage extends AFPImageHandler implements Ima
             boolean allowDirectEncoding = true;
             if (allowDirectEncoding && (pixelSize <= maxPixelSize)) {
                 //Attempt to encode without resampling the image
-                ImageEncodingHelper helper = new ImageEncodingHelper(renderedImage,
+                ImageEncodingHelper helper = new StreamingImageEncodingHelper(renderedImage,
                         pixelSize == 32);
                 ColorModel encodedColorModel = helper.getEncodedColorModel();
                 boolean directEncode = true;
@@ -51,6 +51,7 @@ import org.apache.fop.fonts.FontTriplet;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.ImageHandlerUtil;
+import org.apache.fop.render.ImagePrefetcher;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.traits.BorderProps;
 import org.apache.fop.traits.RuleStyle;
@@ -155,10 +156,18 @@ public abstract class AbstractIFPainter<T extends IFDocumentHandler> implements
         context.putHints(hints);
 
         ImageFlavor[] flavors = imageHandlerRegistry.getSupportedFlavors(context);
-        info.getCustomObjects().put("warningincustomobject", true);
-        org.apache.xmlgraphics.image.loader.Image img = manager.getImage(
+        ImagePrefetcher prefetcher = getUserAgent().getImagePrefetcher();
+        if (getContext().getForeignAttributes().isEmpty()) {
+            //Images loaded ahead need to be loaded the way this painter loads them
+            prefetcher.setup(flavors, hints);
+        }
+        org.apache.xmlgraphics.image.loader.Image img = prefetcher.await(info);
+        if (img == null) {
+            info.getCustomObjects().put("warningincustomobject", true);
+            img = manager.getImage(
                     info, flavors,
                     hints, sessionContext);
+        }
 
         if (info.getCustomObjects().get("warning") != null) {
             ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
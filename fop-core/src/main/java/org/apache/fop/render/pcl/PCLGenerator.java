@@ -39,10 +39,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
@@ -86,6 +89,13 @@ public class PCLGenerator {
     private int maxBitmapResolution = PCL_RESOLUTIONS[PCL_RESOLUTIONS.length - 1];
     private float ditheringQuality = 0.5f;
 
+    /**
+     * Dithered versions of the bitmaps painted so far, by source bitmap and target size and
+     * dithering quality, so a bitmap that is shared by several images is only dithered once.
+     */
+    private final Map<RenderedImage, Map<List<Object>, RenderedImage>> ditheredImages
+            = new WeakHashMap<RenderedImage, Map<List<Object>, RenderedImage>>();
+
     /**
      * true: Standard PCL shades are used (poor quality). false: user-defined pattern are used
      * to create custom dither patterns for better grayscale quality.
@@ -602,6 +612,31 @@ public class PCLGenerator {
         return this.ditheringQuality;
     }
 
+    /**
+     * Converts an image to a monochrome image with the current dithering quality. The result
+     * is kept while the source image is in use.
+     * @param img the image
+     * @param targetDim the target size of the monochrome image (in pixels)
+     * @return the monochrome image
+     */
+    private RenderedImage dither(RenderedImage img, Dimension targetDim) {
+        List<Object> key = Arrays.<Object>asList(targetDim, ditheringQuality);
+        Map<List<Object>, RenderedImage> dithered = ditheredImages.get(img);
+        RenderedImage red = (dithered != null ? dithered.get(key) : null);
+        if (red == null) {
+            red = BitmapImageUtil.convertToMonochrome(img, targetDim, this.ditheringQuality);
+            //The entry is only released with the source if the value doesn't refer to it
+            if (red instanceof BufferedImage && red != img) {
+                if (dithered == null) {
+                    dithered = new HashMap<List<Object>, RenderedImage>();
+                    ditheredImages.put(img, dithered);
+                }
+                dithered.put(key, red);
+            }
+        }
+        return red;
+    }
+
     /**
      * Indicates whether an image is a monochrome (b/w) image.
      * @param img the image
@@ -778,8 +813,7 @@ public class PCLGenerator {
                 }
                 */
 
-                RenderedImage red = BitmapImageUtil.convertToMonochrome(
-                        img, effDim, this.ditheringQuality);
+                RenderedImage red = dither(img, effDim);
                 selectCurrentPattern(0, 0); //Solid black
                 setTransparencyMode(sourceTransparency /*|| mask != null*/, true);
                 paintMonochromeBitmap(red, effResolution);
@@ -25,6 +25,9 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.logging.Log;
@@ -40,6 +43,7 @@ import org.apache.xmlgraphics.java2d.GraphicContext;
 import org.apache.xmlgraphics.util.UnitConv;
 
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.image.loader.batik.Graphics2DImagePainterImpl;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.ImageHandlerUtil;
 import org.apache.fop.render.RenderingContext;
@@ -54,6 +58,14 @@ public class PCLImageHandlerGraphics2D implements ImageHandler {
     /** logging instance */
     private static Log log = LogFactory.getLog(PCLImageHandlerGraphics2D.class);
 
+    /**
+     * GVT trees of SVG graphics which could not be painted natively. The keys are weak so the
+     * trees (and their documents) are released with the image sessions they belong to; the
+     * handler is shared by all documents of a FopFactory, hence the synchronization.
+     */
+    private final Map<Object, Boolean> unpaintable
+            = Collections.synchronizedMap(new WeakHashMap<Object, Boolean>());
+
     /** {@inheritDoc} */
     public int getPriority() {
         return 400;
@@ -76,13 +88,52 @@ public class PCLImageHandlerGraphics2D implements ImageHandler {
             throws IOException {
         PCLRenderingContext pclContext = (PCLRenderingContext)context;
         ImageGraphics2D imageG2D = (ImageGraphics2D)image;
-        Dimension imageDim = imageG2D.getSize().getDimensionMpt();
         PCLGenerator gen = pclContext.getPCLGenerator();
 
         Point2D transPoint = pclContext.transformedPoint(pos.x, pos.y);
         gen.setCursorPos(transPoint.getX(), transPoint.getY());
 
         boolean painted = false;
+        //A graphic that couldn't be painted natively before is rasterized right away
+        Object graphic = getGraphic(imageG2D);
+        if (graphic == null || unpaintable.get(graphic) == null) {
+            painted = paintNatively(pclContext, imageG2D, pos);
+            if (!painted && graphic != null) {
+                unpaintable.put(graphic, Boolean.TRUE);
+            }
+        }
+
+        if (!painted) {
+            //Fallback solution: Paint to a BufferedImage
+            FOUserAgent ua = context.getUserAgent();
+            ImageManager imageManager = ua.getImageManager();
+            ImageRendered imgRend;
+            try {
+                imgRend = (ImageRendered)imageManager.convertImage(
+                        imageG2D, new ImageFlavor[] {ImageFlavor.RENDERED_IMAGE}/*, hints*/);
+            } catch (ImageException e) {
+                throw new IOException(
+                        "Image conversion error while converting the image to a bitmap"
+                          + " as a fallback measure: " + e.getMessage());
+            }
+
+            gen.paintBitmap(imgRend.getRenderedImage(), new Dimension(pos.width, pos.height),
+                    pclContext.isSourceTransparencyEnabled(), pclContext.getPCLUtil());
+        }
+    }
+
+    /**
+     * Tries to paint a Java2D image with the HP GL/2 commands PCLGraphics2D supports.
+     * @param pclContext the rendering context
+     * @param imageG2D the Java2D image
+     * @param pos the position and size of the image
+     * @return true if the image was painted, false if it uses features that aren't supported
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean paintNatively(PCLRenderingContext pclContext, ImageGraphics2D imageG2D,
+            Rectangle pos) throws IOException {
+        Dimension imageDim = imageG2D.getSize().getDimensionMpt();
+        PCLGenerator gen = pclContext.getPCLGenerator();
         ByteArrayOutputStream baout = new ByteArrayOutputStream();
         PCLGenerator tempGen = new PCLGenerator(baout, gen.getMaximumBitmapResolution());
         tempGen.setDitheringQuality(gen.getDitheringQuality());
@@ -128,30 +179,26 @@ public class PCLImageHandlerGraphics2D implements ImageHandler {
             gen.writeText("\n");
 
             gen.enterPCLMode(false);
-            painted = true;
+            return true;
         } catch (UnsupportedOperationException uoe) {
             log.debug(
                 "Cannot paint graphic natively. Falling back to bitmap painting. Reason: "
                     + uoe.getMessage());
         }
+        return false;
+    }
 
-        if (!painted) {
-            //Fallback solution: Paint to a BufferedImage
-            FOUserAgent ua = context.getUserAgent();
-            ImageManager imageManager = ua.getImageManager();
-            ImageRendered imgRend;
-            try {
-                imgRend = (ImageRendered)imageManager.convertImage(
-                        imageG2D, new ImageFlavor[] {ImageFlavor.RENDERED_IMAGE}/*, hints*/);
-            } catch (ImageException e) {
-                throw new IOException(
-                        "Image conversion error while converting the image to a bitmap"
-                          + " as a fallback measure: " + e.getMessage());
-            }
-
-            gen.paintBitmap(imgRend.getRenderedImage(), new Dimension(pos.width, pos.height),
-                    pclContext.isSourceTransparencyEnabled(), pclContext.getPCLUtil());
+    /**
+     * Returns the object that identifies the graphic of a Java2D image: the GVT tree for SVG
+     * graphics, which is shared between the occurrences of the graphic within an image session.
+     * @param imageG2D the Java2D image
+     * @return the GVT tree or null if the graphic can't be identified
+     */
+    private static Object getGraphic(ImageGraphics2D imageG2D) {
+        if (imageG2D.getGraphics2DImagePainter() instanceof Graphics2DImagePainterImpl) {
+            return ((Graphics2DImagePainterImpl) imageG2D.getGraphics2DImagePainter()).getRoot();
         }
+        return null;
     }
 
     private void rotate(AffineTransform prepareHPGL2, Dimension imageDim, int direction) {
@@ -42,9 +42,16 @@ abstract class AbstractPDFImageHandler implements ImageHandler {
         assert context instanceof PDFRenderingContext;
         PDFRenderingContext pdfContext = (PDFRenderingContext)context;
         PDFContentGenerator generator = pdfContext.getGenerator();
-        PDFImage pdfimage = createPDFImage(image, image.getInfo().getOriginalURI());
-        PDFXObject xobj = generator.getDocument().addImage(
-                generator.getResourceContext(), pdfimage);
+        PDFXObject xobj = null;
+        if (isOptimizable()) {
+            xobj = PDFImageOptimizer.addImage(generator.getDocument(), generator.getResourceContext(),
+                    context.getUserAgent(), image, pos);
+        }
+        if (xobj == null) {
+            PDFImage pdfimage = createPDFImage(image, image.getInfo().getOriginalURI());
+            xobj = generator.getDocument().addImage(
+                    generator.getResourceContext(), pdfimage);
+        }
 
         float x = (float)pos.getX() / 1000f;
         float y = (float)pos.getY() / 1000f;
@@ -67,4 +74,14 @@ abstract class AbstractPDFImageHandler implements ImageHandler {
      * the given image
      */
     abstract PDFImage createPDFImage(Image image, String xobjectKey);
+
+    /**
+     * Indicates whether the images of this handler may be downsampled and recompressed
+     * according to the document's image settings.
+     * @return true if the images may be optimized
+     * @see PDFImageOptimizer
+     */
+    boolean isOptimizable() {
+        return false;
+    }
 }
@@ -87,12 +87,14 @@ public final class CTMHelper {
     }
 
     private static String constructPDFArray(double[] matrix) {
-        return PDFNumber.doubleOut(matrix[0], 8) + " "
-                + PDFNumber.doubleOut(matrix[1], 8) + " "
-                + PDFNumber.doubleOut(matrix[2], 8) + " "
-                + PDFNumber.doubleOut(matrix[3], 8) + " "
-                + PDFNumber.doubleOut(matrix[4], 8) + " "
-                + PDFNumber.doubleOut(matrix[5], 8);
+        StringBuffer sb = new StringBuffer(64);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            PDFNumber.doubleOut(matrix[i], 8, sb);
+        }
+        return sb.toString();
     }
 
     /**
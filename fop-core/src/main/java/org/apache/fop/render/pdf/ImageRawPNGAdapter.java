@@ -23,14 +23,9 @@ package org.apache.fop.render.pdf;
 
 import java.awt.image.ColorModel;
 import java.awt.image.IndexColorModel;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
@@ -51,6 +46,7 @@ import org.apache.fop.pdf.PDFFilterException;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.render.RawPNGUtil;
 
 public class ImageRawPNGAdapter extends AbstractImageAdapter {
 
@@ -117,32 +113,10 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
             // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha channel
             // and then deflate it back again
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            DeflaterOutputStream dos = new DeflaterOutputStream(baos, new Deflater());
-            InputStream in = ((ImageRawStream) image).createInputStream();
             try {
-                InflaterInputStream infStream = new InflaterInputStream(in, new Inflater());
-                DataInputStream dataStream = new DataInputStream(infStream);
-                // offset is the byte offset of the alpha component
-                int offset = numberOfInterleavedComponents - 1; // 1 for GA, 3 for RGBA
-                int numColumns = image.getSize().getWidthPx();
-                int bytesPerRow = numberOfInterleavedComponents * numColumns;
-                int filter;
-                // read line by line; the first byte holds the filter
-                while ((filter = dataStream.read()) != -1) {
-                    byte[] bytes = new byte[bytesPerRow];
-                    dataStream.readFully(bytes, 0, bytesPerRow);
-                    dos.write((byte) filter);
-                    for (int j = 0; j < numColumns; j++) {
-                        dos.write(bytes, offset, 1);
-                        offset += numberOfInterleavedComponents;
-                    }
-                    offset = numberOfInterleavedComponents - 1;
-                }
-                dos.close();
+                RawPNGUtil.writeChannels((ImageRawPNG) image, null, baos);
             } catch (IOException e) {
                 throw new RuntimeException("Error processing transparency channel:", e);
-            } finally {
-                IOUtils.closeQuietly(in);
             }
             // set up alpha channel compression
             FlateFilter transFlate;
@@ -158,6 +132,7 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
             }
             BitmapImage alphaMask = new BitmapImage("Mask:" + this.getKey(), image.getSize().getWidthPx(),
                     image.getSize().getHeightPx(), baos.toByteArray(), null);
+            alphaMask.setBitsPerComponent(this.getBitsPerComponent());
             alphaMask.setPDFFilter(transFlate);
             alphaMask.disallowMultipleFilters();
             alphaMask.setColorSpace(new PDFDeviceColorSpace(PDFDeviceColorSpace.DEVICE_GRAY));
@@ -208,39 +183,19 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
 
     /** {@inheritDoc} */
     public void outputContents(OutputStream out) throws IOException {
-        InputStream in = ((ImageRawStream) image).createInputStream();
-
-        try {
-            if (numberOfInterleavedComponents == 1 || numberOfInterleavedComponents == 3) {
-                // means we have Gray, RGB, or Palette
+        if (numberOfInterleavedComponents == 1 || numberOfInterleavedComponents == 3) {
+            // means we have Gray, RGB, or Palette
+            InputStream in = ((ImageRawStream) image).createInputStream();
+            try {
                 IOUtils.copy(in, out);
-            } else {
-                // means we have Gray + alpha or RGB + alpha
-                // TODO: since we have alpha here do this when the alpha channel is extracted
-                int numBytes = numberOfInterleavedComponents - 1; // 1 for Gray, 3 for RGB
-                int numColumns = image.getSize().getWidthPx();
-                InflaterInputStream infStream = new InflaterInputStream(in, new Inflater());
-                DataInputStream dataStream = new DataInputStream(infStream);
-                int offset = 0;
-                int bytesPerRow = numberOfInterleavedComponents * numColumns;
-                int filter;
-                // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha
-                // channel and then deflate the RGB channels back again
-                DeflaterOutputStream dos = new DeflaterOutputStream(out, new Deflater());
-                while ((filter = dataStream.read()) != -1) {
-                    byte[] bytes = new byte[bytesPerRow];
-                    dataStream.readFully(bytes, 0, bytesPerRow);
-                    dos.write((byte) filter);
-                    for (int j = 0; j < numColumns; j++) {
-                        dos.write(bytes, offset, numBytes);
-                        offset += numberOfInterleavedComponents;
-                    }
-                    offset = 0;
-                }
-                dos.close();
+            } finally {
+                IOUtils.closeQuietly(in);
             }
-        } finally {
-            IOUtils.closeQuietly(in);
+        } else {
+            // means we have Gray + alpha or RGB + alpha
+            // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha
+            // channel and then deflate the color channels back again
+            RawPNGUtil.writeChannels((ImageRawPNG) image, out, null);
         }
     }
 
@@ -42,6 +42,7 @@ import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFilter;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.util.bitmap.StreamingImageEncodingHelper;
 
 /**
  * PDFImage implementation for the PDF renderer which handles RenderedImages.
@@ -64,7 +65,7 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
      */
     public ImageRenderedAdapter(ImageRendered image, String key) {
         super(image, key);
-        this.encodingHelper = new ImageEncodingHelper(image.getRenderedImage());
+        this.encodingHelper = new StreamingImageEncodingHelper(image.getRenderedImage());
     }
 
     /**
@@ -67,6 +67,9 @@ public class PDFContentGenerator {
     private AffineTransform transform;
     private IFContext context;
 
+    /** buffer for building commands, reused to avoid creating strings for each one */
+    private final StringBuffer commandBuffer = new StringBuffer();
+
     /**
      * Main constructor. Creates a new PDF stream and additional helper classes for text painting
      * and state management.
@@ -377,12 +380,12 @@ public class PDFContentGenerator {
      * @param rect the clip rectangle
      */
     public void clipRect(Rectangle rect) {
-        StringBuffer sb = new StringBuffer();
-        sb.append(format(rect.x / 1000f)).append(' ');
-        sb.append(format(rect.y / 1000f)).append(' ');
-        sb.append(format(rect.width / 1000f)).append(' ');
-        sb.append(format(rect.height / 1000f)).append(" re W n\n");
-        add(sb.toString());
+        StringBuffer sb = getCommandBuffer();
+        appendNumber(sb, rect.x / 1000f).append(' ');
+        appendNumber(sb, rect.y / 1000f).append(' ');
+        appendNumber(sb, rect.width / 1000f).append(' ');
+        appendNumber(sb, rect.height / 1000f).append(" re W n\n");
+        getStream().add(sb);
     }
 
     /**
@@ -402,6 +405,26 @@ public class PDFContentGenerator {
         return PDFNumber.doubleOut(value);
     }
 
+    /**
+     * Formats a float value like {@link #format(float)} but appends it to a buffer.
+     * @param sb the buffer
+     * @param value the value
+     * @return the buffer
+     */
+    private static StringBuffer appendNumber(StringBuffer sb, float value) {
+        return PDFNumber.doubleOut(value, 6, sb);
+    }
+
+    /**
+     * Returns the buffer for building a command, emptied. {@link PDFStream#add(StringBuffer)}
+     * copies its contents, so the buffer can be reused right after the command is written.
+     * @return the buffer
+     */
+    private StringBuffer getCommandBuffer() {
+        commandBuffer.setLength(0);
+        return commandBuffer;
+    }
+
     /**
      * Sets the current line width in points.
      * @param width line width in points
@@ -409,7 +432,7 @@ public class PDFContentGenerator {
     public void updateLineWidth(float width) {
         if (getState().setLineWidth(width)) {
             //Only write if value has changed WRT the current line width
-            getStream().add(format(width) + " w\n");
+            getStream().add(appendNumber(getCommandBuffer(), width).append(" w\n"));
         }
     }
 
@@ -419,7 +442,7 @@ public class PDFContentGenerator {
      */
     public void updateCharacterSpacing(float value) {
         if (getState().setCharacterSpacing(value)) {
-            getStream().add(format(value) + " Tc\n");
+            getStream().add(appendNumber(getCommandBuffer(), value).append(" Tc\n"));
         }
     }
 
@@ -431,9 +454,9 @@ public class PDFContentGenerator {
      */
     public void setColor(Color col, boolean fill, PDFStream stream) {
         assert stream != null;
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getCommandBuffer();
         setColor(col, fill, sb);
-        stream.add(sb.toString());
+        stream.add(sb);
     }
 
     /**
@@ -494,11 +517,7 @@ public class PDFContentGenerator {
      */
     public void placeImage(float x, float y, float w, float h, PDFXObject xobj) {
         saveGraphicsState();
-        add(format(w) + " 0 0 "
-                          + format(-h) + " "
-                          + format(x) + " "
-                          + format(y + h)
-                          + " cm\n" + xobj.getName() + " Do\n");
+        writeImagePlacement(x, y, w, h, xobj);
         restoreGraphicsState();
     }
 
@@ -525,12 +544,17 @@ public class PDFContentGenerator {
     public void placeImage(float x, float y, float w, float h, PDFXObject xobj,
             String structElemType, int mcid) {
         saveGraphicsState(structElemType, mcid);
-        add(format(w) + " 0 0 "
-                          + format(-h) + " "
-                          + format(x) + " "
-                          + format(y + h)
-                          + " cm\n" + xobj.getName() + " Do\n");
+        writeImagePlacement(x, y, w, h, xobj);
         restoreGraphicsStateAccess();
     }
 
+    private void writeImagePlacement(float x, float y, float w, float h, PDFXObject xobj) {
+        StringBuffer sb = getCommandBuffer();
+        appendNumber(sb, w).append(" 0 0 ");
+        appendNumber(sb, -h).append(' ');
+        appendNumber(sb, x).append(' ');
+        appendNumber(sb, y + h).append(" cm\n").append(xobj.getName()).append(" Do\n");
+        getStream().add(sb);
+    }
+
 }
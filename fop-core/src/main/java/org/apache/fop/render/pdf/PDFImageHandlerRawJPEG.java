@@ -45,6 +45,11 @@ public class PDFImageHandlerRawJPEG extends AbstractPDFImageHandler {
         return new ImageRawJPEGAdapter((ImageRawJPEG) image, xobjectKey);
     }
 
+    @Override
+    boolean isOptimizable() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     public Class getSupportedImageClass() {
         return ImageRawJPEG.class;
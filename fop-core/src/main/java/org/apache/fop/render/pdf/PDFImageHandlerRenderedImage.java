@@ -46,6 +46,11 @@ public class PDFImageHandlerRenderedImage extends AbstractPDFImageHandler {
         return 300;
     }
 
+    @Override
+    boolean isOptimizable() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     public Class getSupportedImageClass() {
         return ImageRendered.class;
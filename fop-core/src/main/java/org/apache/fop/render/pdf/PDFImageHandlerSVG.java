@@ -22,6 +22,7 @@ package org.apache.fop.render.pdf;
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 
 import org.w3c.dom.Document;
@@ -44,6 +45,12 @@ import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.events.EventBroadcaster;
 import org.apache.fop.image.loader.batik.BatikImageFlavors;
 import org.apache.fop.image.loader.batik.BatikUtil;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFFormXObject;
+import org.apache.fop.pdf.PDFResourceContext;
+import org.apache.fop.pdf.PDFStream;
+import org.apache.fop.pdf.PDFXObject;
 import org.apache.fop.pdf.TransparencyDisallowedException;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.ImageHandlerUtil;
@@ -83,31 +90,6 @@ public class PDFImageHandlerSVG implements ImageHandler {
         SVGUserAgent ua = new SVGUserAgent(userAgent, new FOPFontFamilyResolverImpl(pdfContext.getFontInfo()),
                 new AffineTransform());
 
-        GVTBuilder builder = new GVTBuilder();
-
-        //Controls whether text painted by Batik is generated using text or path operations
-        boolean strokeText = PSImageHandlerSVG.shouldStrokeText(imageSVG.getDocument().getChildNodes());
-        //TODO connect with configuration elsewhere.
-
-        BridgeContext ctx = new PDFBridgeContext(ua,
-                (strokeText ? null : pdfContext.getFontInfo()),
-                userAgent.getImageManager(),
-                userAgent.getImageSessionContext(),
-                new AffineTransform());
-
-        //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
-        //to it.
-        Document clonedDoc = BatikUtil.cloneSVGDocument(imageSVG.getDocument());
-
-        GraphicsNode root;
-        try {
-            root = builder.build(ctx, clonedDoc);
-        } catch (Exception e) {
-            SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
-                    context.getUserAgent().getEventBroadcaster());
-            eventProducer.svgNotBuilt(this, e, image.getInfo().getOriginalURI());
-            return;
-        }
         // get the 'width' and 'height' attributes of the SVG document
         float w = image.getSize().getWidthMpt();
         float h = image.getSize().getHeightMpt();
@@ -145,47 +127,75 @@ public class PDFImageHandlerSVG implements ImageHandler {
             log.trace("image transform: " + resolutionScaling);
         }
 
+        //The SVG is rendered into a form XObject that is reused wherever the same SVG is painted
+        //at the same scale in the document. Links are created per use and marked content needs
+        //to be in the page content, so such SVGs are painted directly into the page.
+        boolean accessibilityEnabled = userAgent.isAccessibilityEnabled();
+        PDFDocument pdfDoc = generator.getDocument();
+        String formKey = null;
+        if (!accessibilityEnabled && !containsLinks(imageSVG.getDocument())) {
+            formKey = "SVG:" + BatikUtil.computeDigest(imageSVG.getDocument())
+                    + ":" + resolutionScaling.getScaleX() + ":" + resolutionScaling.getScaleY();
+            PDFXObject xobj = pdfDoc.getXObject(formKey);
+            if (xobj instanceof PDFFormXObject) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Reusing " + xobj.getName() + " for " + image.getInfo().getOriginalURI());
+                }
+                generator.getResourceContext().addXObject(xobj);
+                beginSVG(generator, pdfContext, accessibilityEnabled, scaling, resolutionScaling);
+                generator.add(xobj.getName() + " Do\n");
+                endSVG(generator, accessibilityEnabled);
+                return;
+            }
+        }
+
+        GVTBuilder builder = new GVTBuilder();
+
+        //Controls whether text painted by Batik is generated using text or path operations
+        boolean strokeText = PSImageHandlerSVG.shouldStrokeText(imageSVG.getDocument().getChildNodes());
+        //TODO connect with configuration elsewhere.
+
+        BridgeContext ctx = new PDFBridgeContext(ua,
+                (strokeText ? null : pdfContext.getFontInfo()),
+                userAgent.getImageManager(),
+                userAgent.getImageSessionContext(),
+                new AffineTransform());
+
+        //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
+        //to it.
+        Document clonedDoc = BatikUtil.cloneSVGDocument(imageSVG.getDocument());
+
+        GraphicsNode root;
+        try {
+            root = builder.build(ctx, clonedDoc);
+        } catch (Exception e) {
+            SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
+                    context.getUserAgent().getEventBroadcaster());
+            eventProducer.svgNotBuilt(this, e, image.getInfo().getOriginalURI());
+            return;
+        }
+
         /*
          * Clip to the svg area.
          * Note: To have the svg overlay (under) a text area then use
          * an fo:block-container
          */
-        if (log.isTraceEnabled()) {
-            generator.comment("SVG setup");
-        }
-        generator.saveGraphicsState();
-        if (context.getUserAgent().isAccessibilityEnabled()) {
-            MarkedContentInfo mci = pdfContext.getMarkedContentInfo();
-            generator.beginMarkedContentSequence(mci.tag, mci.mcid);
-        }
-        generator.updateColor(Color.black, false, null);
-        generator.updateColor(Color.black, true, null);
-
-        if (!scaling.isIdentity()) {
-            if (log.isTraceEnabled()) {
-                generator.comment("viewbox");
-            }
-            generator.add(CTMHelper.toPDFString(scaling, false) + " cm\n");
-        }
+        beginSVG(generator, pdfContext, accessibilityEnabled, scaling, resolutionScaling);
 
         //SVGSVGElement svg = ((SVGDocument)doc).getRootElement();
 
         PDFGraphics2D graphics = new PDFGraphics2D(true, pdfContext.getFontInfo(),
-                generator.getDocument(),
+                pdfDoc,
                 generator.getResourceContext(), pdfContext.getPage().makeReference(),
                 "", 0, new TransparencyIgnoredEventListener(pdfContext, imageSVG));
         graphics.setGraphicContext(new org.apache.xmlgraphics.java2d.GraphicContext());
 
+        AffineTransform graphicsTransform = new AffineTransform();
         if (!resolutionScaling.isIdentity()) {
-            if (log.isTraceEnabled()) {
-                generator.comment("resolution scaling for " + uaResolution
-                        + " -> " + deviceResolution);
-            }
-            generator.add(
-                    CTMHelper.toPDFString(resolutionScaling, false) + " cm\n");
-            graphics.scale(
+            graphicsTransform.scale(
                     1.0 / resolutionScaling.getScaleX(),
                     1.0 / resolutionScaling.getScaleY());
+            graphics.transform(graphicsTransform);
         }
 
         if (log.isTraceEnabled()) {
@@ -202,12 +212,25 @@ public class PDFImageHandlerSVG implements ImageHandler {
                 SVGDOMImplementation.SVG_NAMESPACE_URI, SVGConstants.SVG_A_TAG);
         aBridge.getCurrentTransform().setTransform(generator.getState().getTransform());
 
-        graphics.setPaintingState(generator.getState());
+        if (formKey == null) {
+            graphics.setPaintingState(generator.getState());
+        }
+        //else: the form's content is painted relative to the form's own coordinate system
         graphics.setOutputStream(generator.getOutputStream());
         try {
             root.paint(graphics);
             ctx.dispose();
-            generator.add(graphics.getString());
+            if (formKey == null) {
+                generator.add(graphics.getString());
+            } else {
+                PDFStream stream = pdfDoc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+                stream.add(graphics.getString());
+                PDFResourceContext resourceContext = generator.getResourceContext();
+                PDFFormXObject form = pdfDoc.addFormXObject(resourceContext, stream,
+                        resourceContext.getPDFResources().makeReference(), formKey,
+                        getFormBBox(root, graphicsTransform));
+                generator.add(form.getName() + " Do\n");
+            }
         } catch (TransparencyDisallowedException e) {
             SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
                     context.getUserAgent().getEventBroadcaster());
@@ -218,7 +241,40 @@ public class PDFImageHandlerSVG implements ImageHandler {
             eventProducer.svgRenderingError(this, e, image.getInfo().getOriginalURI());
         }
         generator.getState().restore();
-        if (context.getUserAgent().isAccessibilityEnabled()) {
+        endSVG(generator, accessibilityEnabled);
+    }
+
+    private void beginSVG(PDFContentGenerator generator, PDFRenderingContext pdfContext,
+            boolean accessibilityEnabled, AffineTransform scaling, AffineTransform resolutionScaling) {
+        if (log.isTraceEnabled()) {
+            generator.comment("SVG setup");
+        }
+        generator.saveGraphicsState();
+        if (accessibilityEnabled) {
+            MarkedContentInfo mci = pdfContext.getMarkedContentInfo();
+            generator.beginMarkedContentSequence(mci.tag, mci.mcid);
+        }
+        generator.updateColor(Color.black, false, null);
+        generator.updateColor(Color.black, true, null);
+
+        if (!scaling.isIdentity()) {
+            if (log.isTraceEnabled()) {
+                generator.comment("viewbox");
+            }
+            generator.add(CTMHelper.toPDFString(scaling, false) + " cm\n");
+        }
+
+        if (!resolutionScaling.isIdentity()) {
+            if (log.isTraceEnabled()) {
+                generator.comment("resolution scaling");
+            }
+            generator.add(
+                    CTMHelper.toPDFString(resolutionScaling, false) + " cm\n");
+        }
+    }
+
+    private void endSVG(PDFContentGenerator generator, boolean accessibilityEnabled) {
+        if (accessibilityEnabled) {
             generator.restoreGraphicsStateAccess();
         } else {
             generator.restoreGraphicsState();
@@ -228,6 +284,21 @@ public class PDFImageHandlerSVG implements ImageHandler {
         }
     }
 
+    private static boolean containsLinks(Document doc) {
+        return doc.getElementsByTagNameNS(SVGDOMImplementation.SVG_NAMESPACE_URI,
+                SVGConstants.SVG_A_TAG).getLength() > 0;
+    }
+
+    private static Rectangle2D getFormBBox(GraphicsNode root, AffineTransform graphicsTransform) {
+        Rectangle2D bounds = root.getTransformedBounds(graphicsTransform);
+        if (bounds == null) {
+            return new Rectangle2D.Double();
+        }
+        //leave some room for rounding and anti-aliasing at the edges
+        return new Rectangle2D.Double(bounds.getX() - 1, bounds.getY() - 1,
+                bounds.getWidth() + 2, bounds.getHeight() + 2);
+    }
+
     private static class TransparencyIgnoredEventListener
             implements PDFGraphics2D.TransparencyIgnoredEventListener {
 
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.color.ColorSpace;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageException;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageSize;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawJPEG;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+import org.apache.xmlgraphics.image.writer.ImageWriter;
+import org.apache.xmlgraphics.image.writer.ImageWriterParams;
+import org.apache.xmlgraphics.image.writer.ImageWriterRegistry;
+import org.apache.xmlgraphics.util.MimeConstants;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFImage;
+import org.apache.fop.pdf.PDFResourceContext;
+import org.apache.fop.pdf.PDFXObject;
+
+/**
+ * Downsamples bitmap images which have a higher resolution than the maximum image resolution
+ * of a PDF document and, if a JPEG quality is set, recompresses them as JPEG. The optimized
+ * images are registered in the document under a key made of the image URI and the pixel size,
+ * so an image shown several times at the same size is only processed and embedded once.
+ */
+final class PDFImageOptimizer {
+
+    /** logging instance */
+    private static Log log = LogFactory.getLog(PDFImageOptimizer.class);
+
+    /** The start of frame marker type of baseline JPEG images. */
+    private static final int SOF_BASELINE = 0xC0;
+
+    private PDFImageOptimizer() {
+    }
+
+    /**
+     * Adds a downsampled version of an image to the PDF document, if the image has a higher
+     * resolution than the document's maximum image resolution at the given size.
+     * @param pdfDoc the PDF document
+     * @param res the resource context to add the image to
+     * @param userAgent the user agent
+     * @param image the image
+     * @param pos the position and size of the image on the page (in millipoints)
+     * @return the XObject of the optimized image or null if the image is to be embedded
+     *          unchanged
+     */
+    static PDFXObject addImage(PDFDocument pdfDoc, PDFResourceContext res, FOUserAgent userAgent,
+            Image image, Rectangle pos) {
+        PDFXObject xobj = optimize(pdfDoc, res, userAgent, image, pos);
+        if (xobj != null && image instanceof ImageRawStream) {
+            //The image is replaced, so its raw stream is never read
+            IOUtils.closeQuietly(((ImageRawStream) image).createInputStream());
+        }
+        return xobj;
+    }
+
+    private static PDFXObject optimize(PDFDocument pdfDoc, PDFResourceContext res,
+            FOUserAgent userAgent, Image image, Rectangle pos) {
+        Dimension targetSize = getTargetSize(image.getSize(), pos, pdfDoc.getImageMaxResolution());
+        if (targetSize == null) {
+            return null;
+        }
+        String key = image.getInfo().getOriginalURI() + "#" + targetSize.width + "x" + targetSize.height;
+        PDFXObject xobj = pdfDoc.getXObject(key);
+        if (xobj != null) {
+            if (res != null) {
+                res.addXObject(xobj);
+            }
+            return xobj;
+        }
+        RenderedImage source = getRenderedImage(image, userAgent);
+        if (source == null) {
+            return null;
+        }
+        BufferedImage scaled = scale(source, targetSize.width, targetSize.height);
+        ImageInfo info = new ImageInfo(image.getInfo().getOriginalURI(), image.getInfo().getMimeType());
+        ImageSize size = new ImageSize(targetSize.width, targetSize.height,
+                targetSize.width * 72000.0 / pos.width, targetSize.height * 72000.0 / pos.height);
+        size.calcSizeFromPixels();
+        info.setSize(size);
+        if (log.isDebugEnabled()) {
+            log.debug("Downsampling " + info.getOriginalURI() + " from " + source.getWidth() + "x"
+                    + source.getHeight() + " to " + targetSize.width + "x" + targetSize.height + " pixels");
+        }
+        return pdfDoc.addImage(res, createPDFImage(scaled, info, key, pdfDoc.getImageJPEGQuality()));
+    }
+
+    /**
+     * Returns the pixel size an image should be downsampled to.
+     * @param size the size of the image
+     * @param pos the position and size of the image on the page (in millipoints)
+     * @param maxResolution the maximum image resolution (in dpi), 0 if images are not
+     *          downsampled
+     * @return the new size or null if the image doesn't need to be downsampled
+     */
+    static Dimension getTargetSize(ImageSize size, Rectangle pos, float maxResolution) {
+        if (maxResolution <= 0 || pos.width <= 0 || pos.height <= 0) {
+            return null;
+        }
+        int width = Math.max(1, (int) Math.ceil(pos.width / 72000.0 * maxResolution));
+        int height = Math.max(1, (int) Math.ceil(pos.height / 72000.0 * maxResolution));
+        if (width >= size.getWidthPx() && height >= size.getHeightPx()) {
+            return null;
+        }
+        return new Dimension(Math.min(width, size.getWidthPx()), Math.min(height, size.getHeightPx()));
+    }
+
+    private static RenderedImage getRenderedImage(Image image, FOUserAgent userAgent) {
+        RenderedImage source;
+        if (image instanceof ImageRendered) {
+            ImageRendered rendered = (ImageRendered) image;
+            if (rendered.getTransparentColor() != null) {
+                return null;
+            }
+            source = rendered.getRenderedImage();
+        } else if (image instanceof ImageRawJPEG) {
+            ImageRawJPEG jpeg = (ImageRawJPEG) image;
+            if (jpeg.getColorSpace().getType() == ColorSpace.TYPE_CMYK) {
+                return null;
+            }
+            //The raw stream can only be read once, so the image is loaded again in decoded form
+            ImageManager manager = userAgent.getImageManager();
+            try {
+                ImageInfo info = manager.getImageInfo(image.getInfo().getOriginalURI(),
+                        userAgent.getImageSessionContext());
+                ImageRendered rendered = (ImageRendered) manager.getImage(info,
+                        ImageFlavor.RENDERED_IMAGE, userAgent.getImageSessionContext());
+                source = rendered.getRenderedImage();
+            } catch (ImageException ie) {
+                log.debug("JPEG image could not be decoded for downsampling: " + ie.getMessage());
+                return null;
+            } catch (IOException ioe) {
+                log.debug("JPEG image could not be decoded for downsampling: " + ioe.getMessage());
+                return null;
+            }
+        } else {
+            return null;
+        }
+        ColorModel cm = source.getColorModel();
+        if (cm instanceof IndexColorModel || cm.getColorSpace().getType() == ColorSpace.TYPE_CMYK) {
+            //Palette images are usually small and CMYK images would be converted to RGB
+            return null;
+        }
+        return source;
+    }
+
+    /**
+     * Scales an image down in steps of at most a half with bilinear interpolation, which
+     * gives results close to an area average at a fraction of its cost.
+     * @param source the image
+     * @param width the new width
+     * @param height the new height
+     * @return the scaled image
+     */
+    static BufferedImage scale(RenderedImage source, int width, int height) {
+        ColorModel cm = source.getColorModel();
+        int type;
+        if (cm.hasAlpha()) {
+            type = BufferedImage.TYPE_INT_ARGB;
+        } else if (cm.getColorSpace().getType() == ColorSpace.TYPE_GRAY) {
+            type = BufferedImage.TYPE_BYTE_GRAY;
+        } else {
+            type = BufferedImage.TYPE_INT_RGB;
+        }
+        RenderedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage step = new BufferedImage(w, h, type);
+            Graphics2D g2d = step.createGraphics();
+            try {
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g2d.drawRenderedImage(current, AffineTransform.getScaleInstance(
+                        (double) w / current.getWidth(), (double) h / current.getHeight()));
+            } finally {
+                g2d.dispose();
+            }
+            current = step;
+        } while (w > width || h > height);
+        return (BufferedImage) current;
+    }
+
+    private static PDFImage createPDFImage(BufferedImage image, ImageInfo info, String key,
+            Float jpegQuality) {
+        if (jpegQuality != null && !image.getColorModel().hasAlpha()) {
+            ImageWriter writer = ImageWriterRegistry.getInstance().getWriterFor(MimeConstants.MIME_JPEG);
+            if (writer != null) {
+                ImageWriterParams params = new ImageWriterParams();
+                params.setJPEGQuality(jpegQuality, true);
+                params.setResolution((int) Math.round(info.getSize().getDpiHorizontal()));
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                try {
+                    writer.writeImage(image, baos, params);
+                    ImageInfo jpegInfo = new ImageInfo(info.getOriginalURI(), MimeConstants.MIME_JPEG);
+                    jpegInfo.setSize(info.getSize());
+                    ImageRawJPEG jpeg = new ImageRawJPEG(jpegInfo, new ByteArrayInputStream(baos.toByteArray()),
+                            SOF_BASELINE, image.getColorModel().getColorSpace(), null, false);
+                    return new ImageRawJPEGAdapter(jpeg, key);
+                } catch (IOException ioe) {
+                    log.debug("Image could not be encoded as JPEG: " + ioe.getMessage());
+                }
+            }
+        }
+        return new ImageRenderedAdapter(new ImageRendered(info, image, null), key);
+    }
+}
@@ -99,6 +99,35 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /** Rendering Options key for writing image and form XObjects with the same content once. */
+    XOBJECT_DEDUPLICATION("xobject-deduplication", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
+    /** Rendering Options key for the maximum resolution (in dpi) of embedded bitmap images. */
+    IMAGE_MAX_RESOLUTION("image-max-resolution") {
+        @Override
+        Float deserialize(String value) {
+            Float resolution = Float.valueOf(value);
+            if (resolution <= 0) {
+                throw new IllegalArgumentException("The image resolution must be positive: " + value);
+            }
+            return resolution;
+        }
+    },
+    /** Rendering Options key for the JPEG quality (0..1) of downsampled bitmap images. */
+    IMAGE_JPEG_QUALITY("image-jpeg-quality") {
+        @Override
+        Float deserialize(String value) {
+            Float quality = Float.valueOf(value);
+            if (quality < 0 || quality > 1) {
+                throw new IllegalArgumentException("The JPEG quality must be between 0 and 1: " + value);
+            }
+            return quality;
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
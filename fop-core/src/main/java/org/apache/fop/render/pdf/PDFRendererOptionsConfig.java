@@ -34,6 +34,8 @@ import org.apache.fop.pdf.Version;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
 import static org.apache.fop.render.pdf.PDFRendererOption.FORM_XOBJECT;
+import static org.apache.fop.render.pdf.PDFRendererOption.IMAGE_JPEG_QUALITY;
+import static org.apache.fop.render.pdf.PDFRendererOption.IMAGE_MAX_RESOLUTION;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
@@ -42,6 +44,7 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
+import static org.apache.fop.render.pdf.PDFRendererOption.XOBJECT_DEDUPLICATION;
 
 /**
  * The renderer options configuration data.
@@ -147,4 +150,16 @@ public final class PDFRendererOptionsConfig {
     public Boolean getFormXObjectEnabled() {
         return (Boolean)properties.get(FORM_XOBJECT);
     }
+
+    public Boolean getXObjectDeduplicationEnabled() {
+        return (Boolean)properties.get(XOBJECT_DEDUPLICATION);
+    }
+
+    public Float getImageMaxResolution() {
+        return (Float) properties.get(IMAGE_MAX_RESOLUTION);
+    }
+
+    public Float getImageJPEGQuality() {
+        return (Float) properties.get(IMAGE_JPEG_QUALITY);
+    }
 }
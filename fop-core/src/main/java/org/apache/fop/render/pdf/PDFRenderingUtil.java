@@ -621,6 +621,11 @@ class PDFRenderingUtil {
         pdfDoc.setMergeFontsEnabled(rendererConfig.getMergeFontsEnabled());
         pdfDoc.setLinearizationEnabled(rendererConfig.getLinearizationEnabled());
         pdfDoc.setFormXObjectEnabled(rendererConfig.getFormXObjectEnabled());
+        pdfDoc.setXObjectDeduplicationEnabled(rendererConfig.getXObjectDeduplicationEnabled());
+        if (rendererConfig.getImageMaxResolution() != null) {
+            pdfDoc.setImageMaxResolution(rendererConfig.getImageMaxResolution());
+        }
+        pdfDoc.setImageJPEGQuality(rendererConfig.getImageJPEGQuality());
 
         return this.pdfDoc;
     }
@@ -21,16 +21,9 @@ package org.apache.fop.render.ps;
 
 import java.awt.image.ColorModel;
 import java.awt.image.IndexColorModel;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.io.IOUtils;
 
@@ -38,6 +31,8 @@ import org.apache.xmlgraphics.image.loader.impl.ImageRawPNG;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
 import org.apache.xmlgraphics.ps.ImageEncoder;
 
+import org.apache.fop.render.RawPNGUtil;
+
 /**
  * ImageEncoder implementation for PNG images.
  */
@@ -63,51 +58,19 @@ public class ImageEncoderPNG implements ImageEncoder {
 
     /** {@inheritDoc} */
     public void writeTo(OutputStream out) throws IOException {
-        // TODO: refactor this code with equivalent PDF code
-        InputStream in = ((ImageRawStream) image).createInputStream();
-        InflaterInputStream infStream = null;
-        DataInputStream dataStream = null;
-        ByteArrayOutputStream baos = null;
-        DeflaterOutputStream dos = null;
-        try {
-            if (numberOfInterleavedComponents == 1 || numberOfInterleavedComponents == 3) {
-                // means we have Gray, RGB, or Palette
+        if (numberOfInterleavedComponents == 1 || numberOfInterleavedComponents == 3) {
+            // means we have Gray, RGB, or Palette
+            InputStream in = ((ImageRawStream) image).createInputStream();
+            try {
                 IOUtils.copy(in, out);
-            } else {
-                // means we have Gray + alpha or RGB + alpha
-                int numBytes = numberOfInterleavedComponents - 1; // 1 for Gray, 3 for RGB
-                int numColumns = image.getSize().getWidthPx();
-                infStream = new InflaterInputStream(in, new Inflater());
-                dataStream = new DataInputStream(infStream);
-                int offset = 0;
-                int bytesPerRow = numberOfInterleavedComponents * numColumns;
-                int filter;
-                // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha
-                // channel and then deflate the RGB channels back again
-                // TODO: not using the baos below and using the original out instead (as happens in PDF)
-                // would be preferable but that does not work with the rest of the postscript code; this
-                // needs to be revisited
-                baos = new ByteArrayOutputStream();
-                dos = new DeflaterOutputStream(/* out */baos, new Deflater());
-                while ((filter = dataStream.read()) != -1) {
-                    byte[] bytes = new byte[bytesPerRow];
-                    dataStream.readFully(bytes, 0, bytesPerRow);
-                    dos.write((byte) filter);
-                    for (int j = 0; j < numColumns; j++) {
-                        dos.write(bytes, offset, numBytes);
-                        offset += numberOfInterleavedComponents;
-                    }
-                    offset = 0;
-                }
-                dos.close();
-                IOUtils.copy(new ByteArrayInputStream(baos.toByteArray()), out);
+            } finally {
+                IOUtils.closeQuietly(in);
             }
-        } finally {
-            IOUtils.closeQuietly(dos);
-            IOUtils.closeQuietly(baos);
-            IOUtils.closeQuietly(dataStream);
-            IOUtils.closeQuietly(infStream);
-            IOUtils.closeQuietly(in);
+        } else {
+            // means we have Gray + alpha or RGB + alpha
+            // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha
+            // channel and then deflate the color channels back again
+            RawPNGUtil.writeChannels(image, out, null);
         }
     }
 
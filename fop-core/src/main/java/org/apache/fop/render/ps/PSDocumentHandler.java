@@ -238,7 +238,8 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         gen.writeDSCComment(DSCConstants.BEGIN_SETUP);
         PSRenderingUtil.writeSetupCodeList(gen, setupCodeList, "SetupCode");
         if (!psUtil.isOptimizeResources()) {
-            this.fontResources.addAll(PSFontUtils.writeFontDict(gen, fontInfo, eventProducer));
+            this.fontResources.addAll(PSFontUtils.writeFontDict(gen, fontInfo, eventProducer,
+                    getUserAgent().getFontManager().getFontSubsetCache()));
         } else {
             gen.commentln("%FOPFontSetup"); //Place-holder, will be replaced in the second pass
         }
@@ -20,9 +20,12 @@
 package org.apache.fop.render.ps;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -51,6 +54,7 @@ import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.EmbeddingMode;
 import org.apache.fop.fonts.Font;
 import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.fonts.FontSubsetCache;
 import org.apache.fop.fonts.FontTriplet;
 import org.apache.fop.fonts.FontType;
 import org.apache.fop.fonts.LazyFont;
@@ -106,7 +110,23 @@ public class PSFontUtils extends org.apache.xmlgraphics.ps.PSFontUtils {
      */
     public static Map writeFontDict(PSGenerator gen, FontInfo fontInfo,
             PSEventProducer eventProducer) throws IOException {
-        return writeFontDict(gen, fontInfo, fontInfo.getFonts(), true, eventProducer);
+        return writeFontDict(gen, fontInfo, eventProducer, null);
+    }
+
+    /**
+     * Generates the PostScript code for the font dictionary. This method should only be
+     * used if no "resource optimization" is performed, i.e. when the fonts are not embedded
+     * in a second pass.
+     * @param gen PostScript generator to use for output
+     * @param fontInfo available fonts
+     * @param eventProducer to report events
+     * @param subsetCache the cache of generated font resources to use (may be null)
+     * @return a Map of PSResource instances representing all defined fonts (key: font key)
+     * @throws IOException in case of an I/O problem
+     */
+    public static Map<String, ?> writeFontDict(PSGenerator gen, FontInfo fontInfo,
+            PSEventProducer eventProducer, FontSubsetCache subsetCache) throws IOException {
+        return writeFontDict(gen, fontInfo, fontInfo.getFonts(), true, eventProducer, subsetCache);
     }
 
     /**
@@ -122,7 +142,24 @@ public class PSFontUtils extends org.apache.xmlgraphics.ps.PSFontUtils {
      */
     public static Map writeFontDict(PSGenerator gen, FontInfo fontInfo, Map<String, Typeface> fonts,
             PSEventProducer eventProducer) throws IOException {
-        return writeFontDict(gen, fontInfo, fonts, false, eventProducer);
+        return writeFontDict(gen, fontInfo, fonts, eventProducer, null);
+    }
+
+    /**
+     * Generates the PostScript code for the font dictionary. This method assumes all used
+     * fonts and characters are known, i.e. when PostScript is generated with resource
+     * optimization turned on.
+     * @param gen PostScript generator to use for output
+     * @param fontInfo available fonts
+     * @param fonts the set of fonts to work with
+     * @param eventProducer the event producer
+     * @param subsetCache the cache of generated font resources to use (may be null)
+     * @return a Map of PSResource instances representing all defined fonts (key: font key)
+     * @throws IOException in case of an I/O problem
+     */
+    public static Map<String, ?> writeFontDict(PSGenerator gen, FontInfo fontInfo, Map<String, Typeface> fonts,
+            PSEventProducer eventProducer, FontSubsetCache subsetCache) throws IOException {
+        return writeFontDict(gen, fontInfo, fonts, false, eventProducer, subsetCache);
     }
 
     /**
@@ -132,18 +169,19 @@ public class PSFontUtils extends org.apache.xmlgraphics.ps.PSFontUtils {
      * @param fonts the set of fonts to work with
      * @param encodeAllCharacters true if all characters shall be encoded using additional,
      *           generated encodings.
+     * @param subsetCache the cache of generated font resources to use (may be null)
      * @return a Map of PSResource instances representing all defined fonts (key: font key)
      * @throws IOException in case of an I/O problem
      */
-    private static Map writeFontDict(PSGenerator gen, FontInfo fontInfo,
-            Map<String, Typeface> fonts, boolean encodeAllCharacters, PSEventProducer eventProducer)
-            throws IOException {
+    private static Map<String, PSFontResource> writeFontDict(PSGenerator gen, FontInfo fontInfo,
+            Map<String, Typeface> fonts, boolean encodeAllCharacters, PSEventProducer eventProducer,
+            FontSubsetCache subsetCache) throws IOException {
         gen.commentln("%FOPBeginFontDict");
 
-        Map fontResources = new HashMap();
+        Map<String, PSFontResource> fontResources = new HashMap<String, PSFontResource>();
         for (String key : fonts.keySet()) {
             Typeface tf = getTypeFace(fontInfo, fonts, key);
-            PSFontResource fontResource = embedFont(gen, tf, eventProducer);
+            PSFontResource fontResource = embedFont(gen, tf, eventProducer, subsetCache);
             fontResources.put(key, fontResource);
 
             if (tf instanceof SingleByteFont) {
@@ -243,8 +281,8 @@ public class PSFontUtils extends org.apache.xmlgraphics.ps.PSFontUtils {
         return tf;
     }
 
-    private static PSFontResource embedFont(PSGenerator gen, Typeface tf, PSEventProducer eventProducer)
-            throws IOException {
+    private static PSFontResource embedFont(PSGenerator gen, Typeface tf, PSEventProducer eventProducer,
+            FontSubsetCache subsetCache) throws IOException {
         boolean embeddedFont = false;
         FontType fontType = tf.getFontType();
         PSFontResource fontResource = null;
@@ -279,7 +317,7 @@ public class PSFontUtils extends org.apache.xmlgraphics.ps.PSFontUtils {
                             }
                             PSResource cidFontResource;
                             cidFontResource = embedType2CIDFont(gen,
-                                    (MultiByteFont) tf, in);
+                                    (MultiByteFont) tf, in, subsetCache);
                             fontResource = PSFontResource.createFontResource(fontRes,
                                     gen.getProcsetCIDInitResource(), gen.getIdentityHCMapResource(),
                                     cidFontResource);
@@ -614,9 +652,53 @@ public class PSFontUtils extends org.apache.xmlgraphics.ps.PSFontUtils {
     }
 
     private static PSResource embedType2CIDFont(PSGenerator gen,
-            MultiByteFont font, InputStream fontStream) throws IOException {
+            MultiByteFont font, InputStream fontStream, FontSubsetCache subsetCache) throws IOException {
         assert font.getCIDType() == CIDFontType.CIDTYPE2;
 
+        String psName = font.getEmbedFontName();
+        if (subsetCache == null) {
+            writeType2CIDFont(gen, font, fontStream);
+        } else {
+            // a subset's glyphs are identified by the order they were used in, while the CIDMap
+            // of a fully embedded font depends on the set of used glyphs only
+            int[] glyphs;
+            BitSet glyphIndices;
+            if (font.getEmbeddingMode() != EmbeddingMode.FULL) {
+                glyphs = toArray(font.getUsedGlyphs().keySet());
+                glyphIndices = null;
+            } else {
+                glyphs = new int[0];
+                glyphIndices = (BitSet) font.getCIDSet().getGlyphIndices().clone();
+            }
+            List<Object> key = Arrays.<Object>asList(font.getEmbedFileURI(), font.getEmbedResourceName(),
+                    font.getTTCName(), psName, font.getEmbeddingMode(), glyphIndices);
+            byte[] resource = subsetCache.get(key, glyphs);
+            if (resource == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                writeType2CIDFont(new PSGenerator(out), font, fontStream);
+                resource = out.toByteArray();
+                subsetCache.put(key, glyphs, resource);
+            } else {
+                IOUtils.closeQuietly(fontStream);
+            }
+            gen.getOutputStream().write(resource);
+        }
+        PSResource cidFontResource = new PSResource(PSResource.TYPE_CIDFONT, psName);
+        gen.getResourceTracker().registerSuppliedResource(cidFontResource);
+        return cidFontResource;
+    }
+
+    private static int[] toArray(Set<Integer> values) {
+        int[] array = new int[values.size()];
+        int i = 0;
+        for (int value : values) {
+            array[i++] = value;
+        }
+        return array;
+    }
+
+    private static void writeType2CIDFont(PSGenerator gen,
+            MultiByteFont font, InputStream fontStream) throws IOException {
         String psName = font.getEmbedFontName();
         gen.write("%%BeginResource: CIDFont ");
         gen.writeln(psName);
@@ -716,9 +798,6 @@ public class PSFontUtils extends org.apache.xmlgraphics.ps.PSFontUtils {
         gen.writeln("CIDFontName currentdict end /CIDFont defineresource pop");
         gen.writeln("end");
         gen.writeln("%%EndResource");
-        PSResource cidFontResource = new PSResource(PSResource.TYPE_CIDFONT, psName);
-        gen.getResourceTracker().registerSuppliedResource(cidFontResource);
-        return cidFontResource;
     }
 
     private static void writeFontBBox(PSGenerator gen, CustomFont font) throws IOException {
@@ -41,6 +41,7 @@ import org.apache.xmlgraphics.ps.PSGenerator;
 import org.apache.xmlgraphics.ps.PSImageUtils;
 
 import org.apache.fop.render.RenderingContext;
+import org.apache.fop.util.bitmap.StreamingImageEncodingHelper;
 
 /**
  * Image handler implementation which handles RenderedImage instances for PostScript output.
@@ -77,10 +78,10 @@ public class PSImageHandlerRenderedImage implements PSImageHandler {
             ri = convertedImg;
         }
 
-        ImageEncoder encoder = ImageEncodingHelper.createRenderedImageEncoder(ri);
+        ImageEncoder encoder = StreamingImageEncodingHelper.createRenderedImageEncoder(ri);
         Dimension imgDim = new Dimension(ri.getWidth(), ri.getHeight());
         String imgDescription = ri.getClass().getName();
-        ImageEncodingHelper helper = new ImageEncodingHelper(ri);
+        ImageEncodingHelper helper = new StreamingImageEncodingHelper(ri);
         ColorModel cm = helper.getEncodedColorModel();
 
         PSImageUtils.writeImage(encoder, imgDim, imgDescription, targetRect, cm, gen, ri);
@@ -374,12 +374,23 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
     }*/
 
     private void concatMatrix(double[] matrix) {
-        currentStream.write(PDFNumber.doubleOut(matrix[0], DEC) + " "
-                + PDFNumber.doubleOut(matrix[1], DEC) + " "
-                + PDFNumber.doubleOut(matrix[2], DEC) + " "
-                + PDFNumber.doubleOut(matrix[3], DEC) + " "
-                + PDFNumber.doubleOut(matrix[4], DEC) + " "
-                + PDFNumber.doubleOut(matrix[5], DEC) + " cm\n");
+        writeOperator(matrix, 6, DEC, "cm\n");
+    }
+
+    /**
+     * Writes a PDF operator with its numeric operands. The numbers are formatted straight
+     * into the buffer of the current stream, so no intermediate strings are created.
+     * @param operands the operands
+     * @param count the number of operands
+     * @param dec the maximum number of decimal places of the operands
+     * @param operator the operator, including the separator that follows it
+     */
+    private void writeOperator(double[] operands, int count, int dec, String operator) {
+        StringBuffer sb = currentStream.getBuffer();
+        for (int i = 0; i < count; i++) {
+            PDFNumber.doubleOut(operands[i], dec, sb).append(' ');
+        }
+        sb.append(operator);
     }
 
     private void concatMatrix(AffineTransform transform) {
@@ -1159,10 +1170,10 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
                 break;
             }
             float lw = bs.getLineWidth();
-            currentStream.write(PDFNumber.doubleOut(lw) + " w\n");
+            PDFNumber.doubleOut(lw, 6, currentStream.getBuffer()).append(" w\n");
 
             float ml = Math.max(1.0f, bs.getMiterLimit());
-            currentStream.write(PDFNumber.doubleOut(ml) + " M\n");
+            PDFNumber.doubleOut(ml, 6, currentStream.getBuffer()).append(" M\n");
         }
     }
 
@@ -1300,10 +1311,8 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
         localTransform.scale(1, -1);
         double[] lt = new double[6];
         localTransform.getMatrix(lt);
-        currentStream.write(PDFNumber.doubleOut(lt[0]) + " "
-                + PDFNumber.doubleOut(lt[1]) + " " + PDFNumber.doubleOut(lt[2]) + " "
-                + PDFNumber.doubleOut(lt[3]) + " " + PDFNumber.doubleOut(lt[4]) + " "
-                + PDFNumber.doubleOut(lt[5]) + " Tm [" + startText);
+        writeOperator(lt, 6, 6, "Tm [");
+        currentStream.write(startText);
 
         int l = s.length();
 
@@ -1582,10 +1591,11 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
 
         if (s instanceof Rectangle2D) {
             Rectangle2D rect = (Rectangle2D)s;
-            currentStream.write(PDFNumber.doubleOut(rect.getMinX(), DEC) + " "
-                    + PDFNumber.doubleOut(rect.getMinY(), DEC) + " ");
-            currentStream.write(PDFNumber.doubleOut(rect.getWidth(), DEC) + " "
-                    + PDFNumber.doubleOut(rect.getHeight(), DEC) + " re ");
+            StringBuffer sb = currentStream.getBuffer();
+            PDFNumber.doubleOut(rect.getMinX(), DEC, sb).append(' ');
+            PDFNumber.doubleOut(rect.getMinY(), DEC, sb).append(' ');
+            PDFNumber.doubleOut(rect.getWidth(), DEC, sb).append(' ');
+            PDFNumber.doubleOut(rect.getHeight(), DEC, sb).append(" re ");
             doDrawing(true, false, false);
         } else {
             PathIterator iter = s.getPathIterator(IDENTITY_TRANSFORM);
@@ -1620,43 +1630,37 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
     public void processPathIterator(PathIterator iter) {
         double lastX = 0.0;
         double lastY = 0.0;
+        double[] vals = new double[6];
+        double[] cubic = null;
         while (!iter.isDone()) {
-            double[] vals = new double[6];
             int type = iter.currentSegment(vals);
             switch (type) {
             case PathIterator.SEG_CUBICTO:
                 lastX = vals[4];
                 lastY = vals[5];
-                currentStream.write(PDFNumber.doubleOut(vals[0], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[1], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[2], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[3], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[4], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[5], DEC) + " c\n");
+                writeOperator(vals, 6, DEC, "c\n");
                 break;
             case PathIterator.SEG_LINETO:
                 lastX = vals[0];
                 lastY = vals[1];
-                currentStream.write(PDFNumber.doubleOut(vals[0], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[1], DEC) + " l\n");
+                writeOperator(vals, 2, DEC, "l\n");
                 break;
             case PathIterator.SEG_MOVETO:
                 lastX = vals[0];
                 lastY = vals[1];
-                currentStream.write(PDFNumber.doubleOut(vals[0], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[1], DEC) + " m\n");
+                writeOperator(vals, 2, DEC, "m\n");
                 break;
             case PathIterator.SEG_QUADTO:
-                double controlPointAX = lastX + ((2.0 / 3.0) * (vals[0] - lastX));
-                double controlPointAY = lastY + ((2.0 / 3.0) * (vals[1] - lastY));
-                double controlPointBX = vals[2] + ((2.0 / 3.0) * (vals[0] - vals[2]));
-                double controlPointBY = vals[3] + ((2.0 / 3.0) * (vals[1] - vals[3]));
-                currentStream.write(PDFNumber.doubleOut(controlPointAX, DEC) + " "
-                        + PDFNumber.doubleOut(controlPointAY, DEC) + " "
-                        + PDFNumber.doubleOut(controlPointBX, DEC) + " "
-                        + PDFNumber.doubleOut(controlPointBY, DEC) + " "
-                        + PDFNumber.doubleOut(vals[2], DEC) + " "
-                        + PDFNumber.doubleOut(vals[3], DEC) + " c\n");
+                if (cubic == null) {
+                    cubic = new double[6];
+                }
+                cubic[0] = lastX + ((2.0 / 3.0) * (vals[0] - lastX));
+                cubic[1] = lastY + ((2.0 / 3.0) * (vals[1] - lastY));
+                cubic[2] = vals[2] + ((2.0 / 3.0) * (vals[0] - vals[2]));
+                cubic[3] = vals[3] + ((2.0 / 3.0) * (vals[1] - vals[3]));
+                cubic[4] = vals[2];
+                cubic[5] = vals[3];
+                writeOperator(cubic, 6, DEC, "c\n");
                 lastX = vals[2];
                 lastY = vals[3];
                 break;
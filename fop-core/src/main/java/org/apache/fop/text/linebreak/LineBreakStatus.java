@@ -82,8 +82,32 @@ public class LineBreakStatus {
      *                  {@link #EXPLICIT_BREAK}
      */
     public byte nextChar(char c) {
+        return nextLineBreakClass(resolveLineBreakProperty(LineBreakUtils.getLineBreakProperty(c), c));
+    }
+
+    /**
+     * Returns the resolved line break classes for a range of characters, for use with
+     * {@link #nextLineBreakClass(byte)}. This classifies the whole range in one pass (see
+     * {@link LineBreakUtils#getLineBreakProperties(CharSequence, int, int, byte[])}), which is
+     * cheaper than calling {@link #nextChar(char)} for every character.
+     *
+     * @param text the text
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @param classes an array to reuse if it is large enough (may be null)
+     * @return an array holding the line break class of <code>text.charAt(start + i)</code>
+     *         at index <code>i</code>
+     */
+    public static byte[] getLineBreakClasses(CharSequence text, int start, int end, byte[] classes) {
+        byte[] result = LineBreakUtils.getLineBreakProperties(text, start, end, classes);
+        for (int i = 0, n = end - start; i < n; i++) {
+            result[i] = resolveLineBreakProperty(result[i], text.charAt(start + i));
+        }
+        return result;
+    }
 
-        byte currentClass = LineBreakUtils.getLineBreakProperty(c);
+    private static byte resolveLineBreakProperty(byte lineBreakProperty, char c) {
+        byte currentClass = lineBreakProperty;
 
         /* Initial conversions */
         switch (currentClass) {
@@ -116,6 +140,17 @@ public class LineBreakStatus {
             default:
                 //nop
         }
+        return currentClass;
+    }
+
+    /**
+     * Same as {@link #nextChar(char)}, but for a character whose line break class has
+     * already been determined using {@link #getLineBreakClasses(CharSequence, int, int, byte[])}.
+     *
+     * @param currentClass the resolved line break class of the character to check
+     * @return the break action to be taken (see {@link #nextChar(char)})
+     */
+    public byte nextLineBreakClass(byte currentClass) {
 
         /* Check 1: First character or initial character after a reset/mandatory break? */
         switch (leftClass) {
@@ -739,6 +739,41 @@ public final class LineBreakUtils {
         return lineBreakProperties[c / 128][c % 128];
     }
 
+    /**
+     * Return the linebreak property constants for a range of characters, using the
+     * same table lookup as {@link #getLineBreakProperty(char)} in a single pass over
+     * the text. The table only covers the base plane, so for a surrogate pair the
+     * leading surrogate is classified as ID (ideographs) or AL (everything else) and
+     * the trailing surrogate as CM, which prevents a break inside the pair.
+     *
+     * @param text the text
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @param properties an array to reuse if it is large enough (may be null)
+     * @return an array holding the linebreak property of <code>text.charAt(start + i)</code>
+     *         at index <code>i</code>
+     */
+    public static byte[] getLineBreakProperties(CharSequence text, int start, int end, byte[] properties) {
+        int length = end - start;
+        byte[] result = properties;
+        if (result == null || result.length < length) {
+            result = new byte[length];
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(start + i);
+            if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(start + i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(start + i + 1));
+                result[i] = Character.isIdeographic(codePoint)
+                        ? LINE_BREAK_PROPERTY_ID : LINE_BREAK_PROPERTY_AL;
+                result[++i] = LINE_BREAK_PROPERTY_CM;
+            } else {
+                result[i] = lineBreakProperties[c / 128][c % 128];
+            }
+        }
+        return result;
+    }
+
     /**
      * Return the break class constant for the given pair of linebreak
      * property constants.
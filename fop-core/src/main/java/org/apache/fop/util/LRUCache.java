@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread-safe, bounded map which evicts the least recently used entry once it holds more
+ * than a maximum number of entries. Hit, miss and eviction counts are tracked so the
+ * effectiveness of a cache can be monitored.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LRUCache<K, V> {
+
+    private final int maxSize;
+
+    private final Map<K, V> map;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of entries kept in the cache
+     */
+    public LRUCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LRUCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the value cached for a key and marks it as most recently used.
+     * @param key the key
+     * @return the value or null if the key is not in the cache
+     */
+    public synchronized V get(K key) {
+        V value = map.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * Puts a value into the cache, evicting the least recently used entry if necessary.
+     * @param key the key
+     * @param value the value (may not be null)
+     */
+    public synchronized void put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        map.put(key, value);
+    }
+
+    /**
+     * Puts a value into the cache unless a value is already cached for the key. The lookup and
+     * the insertion happen atomically, so concurrent callers all get the same value.
+     * @param key the key
+     * @param value the value (may not be null)
+     * @return the value already cached for the key, or the given value if it has been added
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        V existing = map.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        map.put(key, value);
+        return value;
+    }
+
+    /**
+     * Removes all entries from the cache. The statistics are not reset.
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /** @return the number of entries currently in the cache */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /** @return the maximum number of entries kept in the cache */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** @return the number of lookups that found a value */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of lookups that didn't find a value */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /** @return the number of entries that were evicted to respect the maximum size */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /** {@inheritDoc} */
+    public synchronized String toString() {
+        return getClass().getSimpleName() + "[size=" + map.size() + ", maxSize=" + maxSize
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+}
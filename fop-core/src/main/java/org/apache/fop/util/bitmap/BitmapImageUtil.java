@@ -22,10 +22,12 @@ package org.apache.fop.util.bitmap;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
 import java.lang.reflect.InvocationTargetException;
@@ -220,6 +222,50 @@ public final class BitmapImageUtil {
         }
     }
 
+    /**
+     * Returns the number of rows of an image to process at once so only about the given number
+     * of pixels is held in memory. For tiled images, the number is a multiple of the tile height
+     * so tiles don't need to be fetched more than once.
+     * @param img the image
+     * @param maxPixels the maximum number of pixels per strip
+     * @return the number of rows per strip
+     */
+    public static int getStripHeight(RenderedImage img, int maxPixels) {
+        int rows = Math.max(1, maxPixels / Math.max(1, img.getWidth()));
+        int tileHeight = img.getTileHeight();
+        if (tileHeight < img.getHeight()) {
+            rows = Math.max(1, rows / tileHeight) * tileHeight;
+        }
+        return Math.min(rows, img.getHeight());
+    }
+
+    /**
+     * Returns a horizontal strip of an image as a BufferedImage. For a BufferedImage, the strip
+     * shares its data with the original image. Otherwise, only the pixels of the strip are
+     * fetched from the image.
+     * @param img the image
+     * @param y the first row of the strip, relative to the top of the image
+     * @param height the number of rows of the strip
+     * @return the strip
+     */
+    public static BufferedImage getStrip(RenderedImage img, int y, int height) {
+        if (img instanceof BufferedImage) {
+            return ((BufferedImage) img).getSubimage(0, y, img.getWidth(), height);
+        }
+        Rectangle rect = new Rectangle(img.getMinX(), img.getMinY() + y, img.getWidth(), height);
+        Raster raster = img.getData(rect);
+        WritableRaster strip;
+        if (raster instanceof WritableRaster) {
+            strip = ((WritableRaster) raster).createWritableChild(
+                    rect.x, rect.y, rect.width, rect.height, 0, 0, null);
+        } else {
+            strip = raster.createCompatibleWritableRaster(rect.width, rect.height);
+            strip.setRect(-rect.x, -rect.y, raster);
+        }
+        ColorModel cm = img.getColorModel();
+        return new BufferedImage(cm, strip, cm.isAlphaPremultiplied(), null);
+    }
+
     private static void transferImage(RenderedImage source, BufferedImage target) {
         Graphics2D g2d = target.createGraphics();
         try {
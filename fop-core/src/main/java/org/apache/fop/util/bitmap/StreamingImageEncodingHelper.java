@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util.bitmap;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.xmlgraphics.ps.ImageEncoder;
+import org.apache.xmlgraphics.ps.ImageEncodingHelper;
+
+/**
+ * {@link ImageEncodingHelper} which encodes large images in bounded chunks. The superclass
+ * copies the whole image data when it has to reorder the color components or to convert an
+ * image that isn't a {@link BufferedImage} to RGB. Here, the image is converted strip by strip
+ * and reordered components are written in small blocks. The encoded data is the same.
+ */
+public class StreamingImageEncodingHelper extends ImageEncodingHelper {
+
+    /** The maximum number of pixels fetched from an image at once. */
+    private static final int STRIP_PIXELS = 1 << 20;
+
+    /** The size of the blocks reordered color components are written in. */
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final boolean outputbw;
+
+    private boolean bwinvert;
+
+    /**
+     * Main constructor
+     * @param image the image
+     */
+    public StreamingImageEncodingHelper(RenderedImage image) {
+        super(image);
+        this.outputbw = true;
+    }
+
+    /**
+     * Main constructor
+     * @param image the image
+     * @param enableCMYK true to enable CMYK, false to disable
+     */
+    public StreamingImageEncodingHelper(RenderedImage image, boolean enableCMYK) {
+        super(image, enableCMYK);
+        this.outputbw = false;
+    }
+
+    /** {@inheritDoc} */
+    public void setBWInvert(boolean v) {
+        super.setBWInvert(v);
+        this.bwinvert = v;
+    }
+
+    /** {@inheritDoc} */
+    public void encode(OutputStream out) throws IOException {
+        RenderedImage image = getImage();
+        if (!isConverted()) {
+            if (!writeReversedComponents(out)) {
+                super.encode(out);
+            }
+        } else if (image instanceof BufferedImage) {
+            super.encode(out);
+        } else {
+            int stripHeight = BitmapImageUtil.getStripHeight(image, STRIP_PIXELS);
+            for (int y = 0; y < image.getHeight(); y += stripHeight) {
+                BufferedImage strip = BitmapImageUtil.getStrip(image, y,
+                        Math.min(stripHeight, image.getHeight() - y));
+                if (!encodeRenderedImageWithDirectColorModelAsRGB(strip, out)) {
+                    encodeRenderedImageAsRGB(strip, out, outputbw, bwinvert);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the data of a single tile image whose color components are stored in reverse
+     * order (BGR or KMYC) in the RGB or CMYK order.
+     * @param out the output stream
+     * @return true if the image was written, false if its components aren't reversed
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean writeReversedComponents(OutputStream out) throws IOException {
+        Raster tile = getImage().getTile(0, 0);
+        if (!(tile.getDataBuffer() instanceof DataBufferByte)
+                || !(tile.getSampleModel() instanceof PixelInterleavedSampleModel)) {
+            return false;
+        }
+        int[] offsets = ((PixelInterleavedSampleModel) tile.getSampleModel()).getBandOffsets();
+        int n = offsets.length;
+        if (n < 3) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (offsets[i] != n - 1 - i) {
+                return false;
+            }
+        }
+        byte[] data = ((DataBufferByte) tile.getDataBuffer()).getData();
+        byte[] block = new byte[Math.min(data.length, BLOCK_SIZE / n * n)];
+        for (int pos = 0; pos < data.length; pos += block.length) {
+            int len = Math.min(block.length, data.length - pos);
+            for (int i = 0; i < len; i += n) {
+                for (int k = 0; k < n; k++) {
+                    block[i + k] = data[pos + i + n - 1 - k];
+                }
+            }
+            out.write(block, 0, len);
+        }
+        return true;
+    }
+
+    /**
+     * Creates an ImageEncoder for a RenderedImage which encodes it in bounded chunks.
+     * @param img the rendered image
+     * @return the image encoder
+     */
+    public static ImageEncoder createRenderedImageEncoder(final RenderedImage img) {
+        return new ImageEncoder() {
+
+            public void writeTo(OutputStream out) throws IOException {
+                new StreamingImageEncodingHelper(img).encode(out);
+            }
+
+            public String getImplicitFilter() {
+                return null; //No implicit filters with RenderedImage instances
+            }
+        };
+    }
+}
@@ -28,6 +28,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.apache.commons.io.IOUtils;
 
@@ -37,7 +38,10 @@ import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.hyphenation.Hyphenation;
 import org.apache.fop.hyphenation.HyphenationException;
 import org.apache.fop.hyphenation.HyphenationTree;
+import org.apache.fop.hyphenation.HyphenationTreeBinaryFormat;
+import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.hyphenation.Hyphenator;
+import org.apache.fop.util.LRUCache;
 
 public class HyphenationTestCase {
     private FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
@@ -75,6 +79,64 @@ public class HyphenationTestCase {
         f.delete();
     }
 
+    @Test
+    public void testHyphenatorCompactBinary() throws HyphenationException, IOException {
+        File f = File.createTempFile("hyp", "fop");
+        f.delete();
+        f.mkdir();
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        File hyb = new File(f, "fr.hyb");
+        FileOutputStream out = new FileOutputStream(hyb);
+        HyphenationTreeBinaryFormat.write(hTree, out);
+        out.close();
+
+        Hyphenation hyph = Hyphenator.hyphenate("fr.hyb" + Hyphenator.HYBTYPE, null, resourceResolver, null,
+                "oello", 0, 0, fopFactory.newFOUserAgent());
+        assertEquals(hyph.toString(), "oel-lo");
+
+        HyphenationTree mapped = HyphenationTreeBinaryFormat.load(hyb);
+        assertEquals(hTree.hyphenate("hello", 0, 0).toString(), mapped.hyphenate("hello", 0, 0).toString());
+        assertEquals(hTree.findPattern("lo"), mapped.findPattern("lo"));
+
+        hyb.delete();
+        f.delete();
+    }
+
+    @Test
+    public void testHyphenationResultCache() {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        FopFactory factory = FopFactory.newInstance(new File(".").toURI());
+        Hyphenation hyph1 = Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 0, 0, factory.newFOUserAgent());
+        Hyphenation hyph2 = Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 0, 0, factory.newFOUserAgent());
+        assertSame(hyph1, hyph2);
+        Hyphenation hyph3 = Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 2, 2, factory.newFOUserAgent());
+        assertEquals("hel-lo", hyph3.toString());
+        LRUCache<?, Hyphenation> cache = factory.getHyphenationTreeCache().getHyphenationResultCache();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testFirstCachedTreeIsKept() {
+        HyphenationTreeCache cache = new HyphenationTreeCache();
+        HyphenationTree hTree1 = new HyphenationTree();
+        HyphenationTree hTree2 = new HyphenationTree();
+        assertSame(hTree1, cache.cacheIfAbsent("fr", hTree1));
+        assertSame(hTree1, cache.cacheIfAbsent("fr", hTree2));
+        assertSame(hTree1, cache.getHyphenationTree("fr", null));
+        cache.cache("fr", hTree2);
+        assertSame(hTree2, cache.getHyphenationTree("fr", null));
+    }
+
     @Test
     public void testHyphenatorCache() throws IOException {
         File f = File.createTempFile("hyp", "fop");
@@ -191,6 +191,21 @@ public class FopConfBuilder implements FontConfigurator<FopConfBuilder> {
         return createElement("prefer-renderer", String.valueOf(value));
     }
 
+    /**
+     * Set the &lt;cache&gt; tag within the &lt;image-loading&gt; tag of the fop.xconf.
+     *
+     * @param maxSize the maximum size of the image cache
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setImageCacheMaxSize(String maxSize) {
+        Element imageLoading = fopConfDOM.createElement("image-loading");
+        Element cache = fopConfDOM.createElement("cache");
+        cache.setAttribute("max-size", maxSize);
+        imageLoading.appendChild(cache);
+        root.appendChild(imageLoading);
+        return this;
+    }
+
     /**
      * Set the &lt;default-page-settings&gt; tag within the fop.xconf.
      *
@@ -32,6 +32,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.fop.image.loader.FOPImageCache;
+
 /**
  * Test case for {@link FopConfParser}.
  */
@@ -135,6 +137,20 @@ public class FopConfParserTestCase {
         assertTrue(buildFactory().getRendererFactory().isRendererPreferred());
     }
 
+    @Test
+    public void testImageCacheMaxSize() {
+        builder.setImageCacheMaxSize("64MB");
+        assertEquals(64L * 1024 * 1024,
+                ((FOPImageCache) buildFactory().getImageManager().getCache()).getMaxSize());
+    }
+
+    @Test
+    public void testParseByteSize() {
+        assertEquals(100, FopConfParser.parseByteSize("100"));
+        assertEquals(2048, FopConfParser.parseByteSize(" 2 kb "));
+        assertEquals(3L * 1024 * 1024 * 1024, FopConfParser.parseByteSize("3GB"));
+    }
+
     @Test
     public void testRelativeURINoBaseNoFont() throws Exception {
         checkRelativeURIs("test/config/relative-uri/no-base_no-font.xconf",
@@ -36,6 +36,7 @@ import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
+import static org.apache.fop.render.pdf.PDFRendererOption.XOBJECT_DEDUPLICATION;
 
 /**
  * A config builder specific to a particular renderer for specific MIME type.
@@ -99,6 +100,11 @@ public final class PDFRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public PDFRendererConfBuilder setXObjectDeduplicationEnabled(boolean b) {
+        createTextElement(XOBJECT_DEDUPLICATION, String.valueOf(b));
+        return this;
+    }
+
     public final class EncryptionParamsBuilder {
         private final Element el;
 
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.fonts;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.fop.complexscripts.util.CharAssociation;
+import org.apache.fop.complexscripts.util.GlyphSequence;
+
+public class GlyphTableTestCase {
+
+    private static GlyphTable.LookupTable createLookupTable() {
+        List<GlyphSubtable> subtables = new ArrayList<GlyphSubtable>();
+        subtables.add(GlyphSubstitutionTable.createSubtable(GlyphSubstitutionTable.GSUB_LOOKUP_TYPE_SINGLE,
+                "lu0", 0, 0, 2, Arrays.asList(5, 9), Arrays.asList(50, 90)));
+        subtables.add(GlyphSubstitutionTable.createSubtable(GlyphSubstitutionTable.GSUB_LOOKUP_TYPE_SINGLE,
+                "lu0", 1, 0, 1, Collections.singletonList(new GlyphMappingTable.MappingRange(20, 29, 0)),
+                Collections.singletonList(100)));
+        return new GlyphTable.LookupTable("lu0", subtables);
+    }
+
+    private static GlyphSequence createGlyphSequence(int[] glyphs) {
+        List<CharAssociation> associations = new ArrayList<CharAssociation>();
+        for (int i = 0; i < glyphs.length; i++) {
+            associations.add(new CharAssociation(i, 1));
+        }
+        return new GlyphSequence(IntBuffer.wrap(glyphs.clone()), IntBuffer.wrap(glyphs.clone()), associations);
+    }
+
+    @Test
+    public void testCoverageIsUnionOfSubtableCoverages() {
+        GlyphTable.LookupTable lookupTable = createLookupTable();
+        assertNull(lookupTable.getCoverage());
+        lookupTable.freezeSubtables(Collections.<String, GlyphTable.LookupTable>emptyMap());
+        BitSet expected = new BitSet();
+        expected.set(5);
+        expected.set(9);
+        expected.set(20, 30);
+        assertEquals(expected, lookupTable.getCoverage());
+    }
+
+    @Test
+    public void testSubstitutionWithCoverage() {
+        GlyphTable.LookupTable lookupTable = createLookupTable();
+        lookupTable.freezeSubtables(Collections.<String, GlyphTable.LookupTable>emptyMap());
+        GlyphSequence gs = createGlyphSequence(new int[] {1, 5, 9, 19, 20, 29, 30});
+        GlyphSequence ogs = lookupTable.substitute(gs, "latn", "dflt", "test", null);
+        assertArrayEquals(new int[] {1, 50, 90, 19, 120, 129, 30}, ogs.getGlyphArray(false));
+        assertEquals(7, ogs.getAssociations().size());
+    }
+}
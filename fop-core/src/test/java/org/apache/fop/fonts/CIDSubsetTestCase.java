@@ -154,6 +154,16 @@ public class CIDSubsetTestCase {
         assertEquals(glyphToSelector.size() + 1, fontGlyphs.size());
     }
 
+    @Test
+    public void testGetGlyphsInMappingOrder() {
+        int expectedSelector = 0;
+        for (Map.Entry<Integer, Integer> entry : cidSub.getGlyphs().entrySet()) {
+            assertEquals(expectedSelector++, entry.getValue().intValue());
+            assertEquals(entry.getKey().intValue(), cidSub.getOriginalGlyphIndex(entry.getValue()));
+        }
+        assertEquals(cidSub.getNumberOfGlyphs(), expectedSelector);
+    }
+
     @Test
     public void testGetChars() {
         char[] chars = cidSub.getChars();
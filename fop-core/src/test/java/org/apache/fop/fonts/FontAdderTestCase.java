@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class FontAdderTestCase {
+
+    private static final String THREADS_PROPERTY = "org.apache.fop.fonts.autodetect.threads";
+
+    private static final String[] FONTS = {"DejaVuLGCSerif.ttf", "DroidSansMono.ttf", "missing.ttf",
+            "glb12.ttf", "AndroidEmoji.ttf", "Aegean600.ttf"};
+
+    @After
+    public void tearDown() {
+        System.clearProperty(THREADS_PROPERTY);
+    }
+
+    private List<String> addFonts(int threads) throws Exception {
+        System.setProperty(THREADS_PROPERTY, Integer.toString(threads));
+        InternalResourceResolver resolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI());
+        FontManager fontManager = new FontManager(resolver, FontDetectorFactory.createDisabled(),
+                FontCacheManagerFactory.createDisabled());
+        FontAdder fontAdder = new FontAdder(fontManager, resolver, null);
+        List<URL> fontURLs = new ArrayList<URL>();
+        for (String font : FONTS) {
+            fontURLs.add(new File("test/resources/fonts/ttf", font).toURI().toURL());
+        }
+        List<EmbedFontInfo> fontInfos = new ArrayList<EmbedFontInfo>();
+        fontAdder.add(fontURLs, fontInfos);
+        List<String> names = new ArrayList<String>();
+        for (EmbedFontInfo fontInfo : fontInfos) {
+            names.add(fontInfo.getPostScriptName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testParallelProbingKeepsOrder() throws Exception {
+        List<String> serial = addFonts(1);
+        assertEquals(FONTS.length - 1, serial.size());
+        assertEquals("DejaVuLGCSerif", serial.get(0));
+        assertEquals(serial, addFonts(4));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class FontCacheTestCase {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("fontcache", "");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        InternalResourceResolver resolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI());
+        URI fontURI = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI();
+        List<FontTriplet> triplets = new ArrayList<FontTriplet>();
+        triplets.add(new FontTriplet("DejaVu LGC Serif", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL));
+        triplets.add(new FontTriplet("DejaVu", Font.STYLE_ITALIC, Font.WEIGHT_BOLD, 3));
+        EmbedFontInfo fontInfo = new EmbedFontInfo(new FontUris(fontURI, null), true, false, triplets,
+                null, EncodingMode.CID, EmbeddingMode.SUBSET, false, true);
+        fontInfo.setPostScriptName("DejaVuLGCSerif");
+        FontCache fontCache = new FontCache();
+        fontCache.addFont(fontInfo, resolver);
+        fontCache.registerFailedFont("file:/broken.ttf", 42);
+        assertTrue(fontCache.hasChanged());
+
+        File cacheFile = new File(dir, "fop-fonts.cache");
+        fontCache.saveTo(cacheFile);
+        assertFalse(fontCache.hasChanged());
+        assertEquals(1, dir.listFiles().length);
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        assertFalse(loaded.hasChanged());
+        String key = fontURI.toASCIIString();
+        long lastModified = FontCache.getLastModified(fontURI);
+        EmbedFontInfo[] fontInfos = loaded.getFontInfos(key, lastModified);
+        assertEquals(1, fontInfos.length);
+        EmbedFontInfo loadedInfo = fontInfos[0];
+        assertEquals(fontURI, loadedInfo.getEmbedURI());
+        assertNull(loadedInfo.getMetricsURI());
+        assertTrue(loadedInfo.getKerning());
+        assertFalse(loadedInfo.getAdvanced());
+        assertEquals(EncodingMode.CID, loadedInfo.getEncodingMode());
+        assertEquals(EmbeddingMode.SUBSET, loadedInfo.getEmbeddingMode());
+        assertTrue(loadedInfo.getEmbedAsType1());
+        assertTrue(loadedInfo.isEmbedded());
+        assertEquals("DejaVuLGCSerif", loadedInfo.getPostScriptName());
+        assertEquals(triplets, loadedInfo.getFontTriplets());
+        assertEquals(3, loadedInfo.getFontTriplets().get(1).getPriority());
+        assertTrue(loaded.isFailedFont("file:/broken.ttf", 42));
+    }
+
+    @Test
+    public void testInvalidCacheFileIsDiscarded() throws Exception {
+        File cacheFile = new File(dir, "fop-fonts.cache");
+        OutputStream out = new FileOutputStream(cacheFile);
+        try {
+            out.write(new byte[] {(byte) 0xAC, (byte) 0xED, 0, 5, 1, 2});
+        } finally {
+            out.close();
+        }
+        assertNull(FontCache.loadFrom(cacheFile));
+        assertFalse(cacheFile.exists());
+    }
+}
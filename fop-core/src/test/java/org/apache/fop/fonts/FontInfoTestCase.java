@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FontInfoTestCase {
+
+    private FontInfo fontInfo;
+
+    private int substitutions;
+
+    @Before
+    public void setUp() {
+        fontInfo = new FontInfo();
+        fontInfo.setEventListener(new FontEventAdapter(null) {
+            public void fontSubstituted(Object source, FontTriplet requested, FontTriplet effective) {
+                substitutions++;
+            }
+        });
+        addFont("F1", "Serif", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL);
+        addFont("F2", "Serif", Font.STYLE_NORMAL, Font.WEIGHT_BOLD);
+        addFont("F3", "any", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL);
+    }
+
+    private void addFont(String key, String family, String style, int weight) {
+        fontInfo.addMetrics(key, new MultiByteFont(null, EmbeddingMode.AUTO));
+        fontInfo.addFontProperties(key, family, style, weight);
+    }
+
+    @Test
+    public void testFontInstancesAreCachedPerSize() {
+        FontTriplet triplet = fontInfo.fontLookup("Serif", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL);
+        Font font = fontInfo.getFontInstance(triplet, 12000);
+        assertSame(font, fontInfo.getFontInstance(triplet, 12000));
+        assertSame(font, fontInfo.getFontInstance(new FontTriplet("Serif", "normal", 400), 12000));
+        Font larger = fontInfo.getFontInstance(triplet, 14000);
+        assertNotSame(font, larger);
+        assertEquals(14000, larger.getFontSize());
+        assertEquals("F1", larger.getFontName());
+        assertSame(larger, fontInfo.getFontInstance(triplet, 14000));
+    }
+
+    @Test
+    public void testLookupIsUpdatedWhenFontsAreAdded() {
+        assertEquals(new FontTriplet("Serif", Font.STYLE_NORMAL, Font.WEIGHT_BOLD),
+                fontInfo.fontLookup("Serif", Font.STYLE_NORMAL, 800));
+        assertEquals(new FontTriplet("Serif", Font.STYLE_NORMAL, Font.WEIGHT_BOLD),
+                fontInfo.findAdjustWeight("Serif", Font.STYLE_NORMAL, 800));
+        assertNull(fontInfo.findAdjustWeight("Serif", Font.STYLE_ITALIC, 800));
+        addFont("F4", "Serif", Font.STYLE_NORMAL, 800);
+        assertEquals(new FontTriplet("Serif", Font.STYLE_NORMAL, 800),
+                fontInfo.fontLookup("Serif", Font.STYLE_NORMAL, 800));
+        addFont("F5", "Serif", Font.STYLE_ITALIC, 900);
+        assertEquals(new FontTriplet("Serif", Font.STYLE_ITALIC, 900),
+                fontInfo.findAdjustWeight("Serif", Font.STYLE_ITALIC, 800));
+    }
+
+    @Test
+    public void testSubstitutionIsReportedForEveryLookup() {
+        FontTriplet expected = new FontTriplet("any", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL);
+        assertEquals(expected, fontInfo.fontLookup("Unknown", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL));
+        assertEquals(expected, fontInfo.fontLookup("Unknown", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL));
+        assertEquals(2, substitutions);
+        fontInfo.fontLookup("Serif", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL);
+        fontInfo.fontLookup("Serif", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL);
+        assertEquals(2, substitutions);
+    }
+
+    @Test
+    public void testAWTFontNameIsMatchedCaseInsensitively() {
+        Font font = fontInfo.getFontInstanceForAWTFont(new java.awt.Font("SERIF", java.awt.Font.BOLD, 10));
+        assertEquals("F2", font.getFontName());
+        assertEquals(10000, font.getFontSize());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FontSubsetCacheTestCase {
+
+    private static final byte[] ABC = {1};
+
+    private static final byte[] AB = {2};
+
+    @Test
+    public void testSubsetIsReusedForPrefix() {
+        FontSubsetCache cache = new FontSubsetCache(100, 4);
+        cache.put("F1", new int[] {1, 2, 3}, ABC);
+        assertArrayEquals(ABC, cache.get("F1", new int[] {1, 2, 3}));
+        assertArrayEquals(ABC, cache.get("F1", new int[] {1, 2}));
+        assertArrayEquals(ABC, cache.get("F1", new int[0]));
+        assertNull(cache.get("F1", new int[] {2, 1}));
+        assertNull(cache.get("F1", new int[] {1, 2, 3, 4}));
+        assertNull(cache.get("F2", new int[] {1, 2}));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testSupersetReplacesSubsets() {
+        FontSubsetCache cache = new FontSubsetCache(100, 4);
+        cache.put("F1", new int[] {1, 2}, AB);
+        cache.put("F1", new int[] {2}, AB);
+        assertEquals(2, cache.size());
+        cache.put("F1", new int[] {1, 2, 3}, ABC);
+        assertEquals(2, cache.size());
+        assertArrayEquals(ABC, cache.get("F1", new int[] {1, 2}));
+    }
+
+    @Test
+    public void testSize() {
+        FontSubsetCache cache = new FontSubsetCache(3, 2);
+        cache.put("F1", new int[] {1}, AB);
+        cache.put("F1", new int[] {2}, AB);
+        cache.put("F1", new int[] {3}, AB);
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getSize());
+        assertNull(cache.get("F1", new int[] {1}));
+        cache.put("F2", new int[] {1}, AB);
+        cache.get("F1", new int[] {2});
+        cache.put("F3", new int[] {1}, AB);
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("F2", new int[] {1}));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testSubsetsAreEvictedBySize() {
+        FontSubsetCache cache = new FontSubsetCache(4, 8);
+        cache.put("F1", new int[] {1}, new byte[2]);
+        cache.put("F2", new int[] {1}, new byte[2]);
+        cache.put("F3", new int[] {1}, new byte[3]);
+        assertNull(cache.get("F1", new int[] {1}));
+        assertNull(cache.get("F2", new int[] {1}));
+        assertEquals(3, cache.getSize());
+        cache.put("F4", new int[] {1}, new byte[5]);
+        assertNull(cache.get("F4", new int[] {1}));
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class LoadedFontCacheTestCase {
+
+    private final InternalResourceResolver resolver =
+            ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private final FontUris fontUris =
+            new FontUris(new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI(), null);
+
+    private CustomFont loadFont(LoadedFontCache cache, EncodingMode encodingMode) throws Exception {
+        return cache.loadFont(fontUris, "", true, EmbeddingMode.AUTO, encodingMode,
+                false, false, resolver, false, false);
+    }
+
+    @Test
+    public void testFontDataIsShared() throws Exception {
+        LoadedFontCache cache = new LoadedFontCache();
+        MultiByteFont font1 = (MultiByteFont) loadFont(cache, EncodingMode.CID);
+        MultiByteFont font2 = (MultiByteFont) loadFont(cache, EncodingMode.CID);
+        assertNotSame(font1, font2);
+        assertEquals(1, cache.size());
+        assertEquals("DejaVuLGCSerif", font2.getFontName());
+        assertEquals(font1.getWidth(font1.mapChar('A'), 10), font2.getWidth(font2.mapChar('A'), 10));
+        assertEquals(font1.getAscender(10), font2.getAscender(10));
+    }
+
+    @Test
+    public void testFontDataIsSharedBetweenResolvers() throws Exception {
+        LoadedFontCache cache = new LoadedFontCache();
+        loadFont(cache, EncodingMode.CID);
+        InternalResourceResolver otherResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File("test").toURI());
+        FontUris relativeUris = new FontUris(new URI("resources/fonts/ttf/DejaVuLGCSerif.ttf"), null);
+        CustomFont font = cache.loadFont(relativeUris, "", true, EmbeddingMode.AUTO, EncodingMode.CID,
+                false, false, otherResolver, false, false);
+        assertEquals(1, cache.size());
+        assertEquals(fontUris.getEmbed(), font.getEmbedFileURI());
+        InputStream in = font.getInputStream();
+        try {
+            assertEquals(new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").length(),
+                    IOUtils.toByteArray(in).length);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testGlyphUsageIsNotShared() throws Exception {
+        LoadedFontCache cache = new LoadedFontCache();
+        MultiByteFont font1 = (MultiByteFont) loadFont(cache, EncodingMode.CID);
+        MultiByteFont font2 = (MultiByteFont) loadFont(cache, EncodingMode.CID);
+        font1.mapChar('A');
+        font1.mapChar('B');
+        font2.mapChar('Z');
+        assertEquals(3, font1.getCIDSet().getNumberOfGlyphs());
+        assertEquals(2, font2.getCIDSet().getNumberOfGlyphs());
+        assertTrue(font1.hadMappingOperations());
+        MultiByteFont font3 = (MultiByteFont) loadFont(cache, EncodingMode.CID);
+        assertEquals(1, font3.getCIDSet().getNumberOfGlyphs());
+        assertFalse(font3.hadMappingOperations());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFontIsDropped() throws Exception {
+        LoadedFontCache cache = new LoadedFontCache(1);
+        loadFont(cache, EncodingMode.CID);
+        cache.loadFont(fontUris, "", true, EmbeddingMode.AUTO, EncodingMode.CID,
+                true, false, resolver, false, false);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testModifiedFontFileIsLoadedAgain() throws Exception {
+        File file = File.createTempFile("font", ".ttf");
+        try {
+            FileUtils.copyFile(new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf"), file, false);
+            long lastModified = file.lastModified();
+            FontUris uris = new FontUris(file.toURI(), null);
+            LoadedFontCache cache = new LoadedFontCache();
+            CustomFont font = cache.loadFont(uris, "", true, EmbeddingMode.AUTO, EncodingMode.CID,
+                    false, false, resolver, false, false);
+            assertEquals("DejaVuLGCSerif", font.getFontName());
+
+            FileUtils.copyFile(new File("test/resources/fonts/ttf/DroidSansMono.ttf"), file, false);
+            assertTrue(file.setLastModified(lastModified + 10000));
+            font = cache.loadFont(uris, "", true, EmbeddingMode.AUTO, EncodingMode.CID,
+                    false, false, resolver, false, false);
+            assertEquals("DroidSansMono", font.getFontName());
+            assertEquals(1, cache.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSingleByteFontsAreNotShared() throws Exception {
+        LoadedFontCache cache = new LoadedFontCache();
+        CustomFont font = loadFont(cache, EncodingMode.SINGLE_BYTE);
+        assertTrue(font instanceof SingleByteFont);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.complexscripts.util.CharAssociation;
+import org.apache.fop.fonts.truetype.OFFontLoader;
+
+public class MultiByteFontTestCase {
+
+    private static final String TEXT = "office AVAWAY";
+
+    private MultiByteFont font;
+
+    @Before
+    public void setUp() throws Exception {
+        InternalResourceResolver resolver =
+                ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+        File file = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        font = (MultiByteFont) new OFFontLoader(file.toURI(), null, true, EmbeddingMode.AUTO,
+                EncodingMode.AUTO, true, true, resolver, false, false).getFont();
+    }
+
+    @Test
+    public void testRepeatedSubstitutionGivesSameResult() {
+        assertTrue(font.performsSubstitution());
+        List<CharAssociation> associations1 = new ArrayList<CharAssociation>();
+        String chars1 = font.performSubstitution(TEXT, "latn", "dflt", associations1, false).toString();
+        List<CharAssociation> associations2 = new ArrayList<CharAssociation>();
+        String chars2 = font.performSubstitution(TEXT, "latn", "dflt", associations2, false).toString();
+        assertEquals(chars1, chars2);
+        assertEquals(chars1, font.performSubstitution(TEXT, "latn", "dflt", null, false).toString());
+        assertEquals(chars1.length(), associations1.size());
+        assertEquals(associations1.size(), associations2.size());
+        for (int i = 0; i < associations1.size(); i++) {
+            CharAssociation a1 = associations1.get(i);
+            CharAssociation a2 = associations2.get(i);
+            assertNotSame(a1, a2);
+            assertEquals(a1.getStart(), a2.getStart());
+            assertEquals(a1.getEnd(), a2.getEnd());
+        }
+    }
+
+    @Test
+    public void testRepeatedPositioningReturnsFreshAdjustments() {
+        assertTrue(font.performsPositioning());
+        int[][] adjustments1 = font.performPositioning(TEXT, "latn", "dflt", 12000);
+        assertNotNull(adjustments1);
+        int[][] expected = new int[adjustments1.length][];
+        for (int i = 0; i < adjustments1.length; i++) {
+            expected[i] = adjustments1[i].clone();
+            adjustments1[i][0] += 1000;
+        }
+        int[][] adjustments2 = font.performPositioning(TEXT, "latn", "dflt", 12000);
+        assertNotSame(adjustments1, adjustments2);
+        assertArrayEquals(expected, adjustments2);
+        int[][] smaller = font.performPositioning(TEXT, "latn", "dflt", 6000);
+        for (int i = 0; i < smaller.length; i++) {
+            assertEquals(expected[i][2] / 2, smaller[i][2], 1);
+        }
+    }
+}
@@ -21,6 +21,9 @@ package org.apache.fop.fonts.truetype;
 
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -300,5 +303,48 @@ public class FontFileReaderTestCase {
     public void testGetBytes() throws IOException {
         byte[] retrievedBytes = fontReader.getBytes(0, 256);
         assertTrue(Arrays.equals(byteArray, retrievedBytes));
+        byte[] dest = new byte[4];
+        fontReader.getBytes(10, dest, 1, 3);
+        assertTrue(Arrays.equals(new byte[] {0, 10, 11, 12}, dest));
+        try {
+            fontReader.getBytes(250, dest, 0, 7);
+            fail("Reading beyond the end of the file should fail");
+        } catch (IOException e) {
+            // Passed
+        }
+    }
+
+    /**
+     * Test a reader for a memory mapped file.
+     * @throws IOException exception
+     */
+    @Test
+    public void testMappedFile() throws IOException {
+        File file = File.createTempFile("fop", ".ttf");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(byteArray);
+            } finally {
+                out.close();
+            }
+            FontFileReader mappedReader = new FontFileReader(file);
+            assertEquals(256, mappedReader.getFileSize());
+            mappedReader.seekSet(0x10);
+            assertEquals(0x1011, mappedReader.readTTFUShort());
+            assertEquals(0x12131415, mappedReader.readTTFLong());
+            assertTrue(Arrays.equals(fontReader.getBytes(20, 30), mappedReader.getBytes(20, 30)));
+            mappedReader.writeTTFUShort(0, 0xabcd);
+            assertEquals(0xabcd, mappedReader.readTTFUShort(0));
+            assertEquals((byte) 0x16, mappedReader.readTTFByte());
+            byte[] all = mappedReader.getAllBytes();
+            assertEquals((byte) 0xab, all[0]);
+            assertEquals((byte) 0xff, all[255]);
+            // the file itself is not modified
+            FontFileReader fileReader = new FontFileReader(new FileInputStream(file));
+            assertEquals(0x0001, fileReader.readTTFUShort(0));
+        } finally {
+            file.delete();
+        }
     }
 }
@@ -20,18 +20,25 @@
 package org.apache.fop.fonts.truetype;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.complexscripts.fonts.OTFAdvancedTypographicTableReader;
 import org.apache.fop.fonts.EmbeddingMode;
 import org.apache.fop.fonts.EncodingMode;
+import org.apache.fop.fonts.MultiByteFont;
 
 /**
  * Test case for {@link OFFontLoader}.
@@ -59,4 +66,73 @@ public class TTFFontLoaderTestCase {
                 EncodingMode.AUTO, useKerning, useComplexScriptFeatures, resourceResolver, false, false);
         assertFalse(fontLoader.getFont().hasKerningInfo());
     }
+
+    @Test
+    public void testAdvancedTablesReadOnDemand() throws IOException {
+        File file = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI());
+        OFFontLoader fontLoader = new OFFontLoader(file.toURI(), null, true, EmbeddingMode.AUTO,
+                EncodingMode.AUTO, true, true, resourceResolver, false, false);
+        MultiByteFont font = (MultiByteFont) fontLoader.getFont();
+
+        TTFFile ttfFile = new TTFFile(true, true);
+        InputStream in = new FileInputStream(file);
+        try {
+            ttfFile.readFont(new FontFileReader(in), "", (String) null);
+        } finally {
+            in.close();
+        }
+        assertNotNull(ttfFile.getGPOS());
+        assertTrue(font.performsPositioning());
+        assertEquals(ttfFile.getGPOS().getLookups(), font.getGPOS().getLookups());
+        assertEquals(ttfFile.getGSUB() != null, font.performsSubstitution());
+        assertEquals(ttfFile.getGDEF() != null, font.getGDEF() != null);
+    }
+
+    @Test
+    public void testFontDataReleasedOnceAdvancedTablesAreRead() throws IOException {
+        TTFFile ttfFile = readLazily("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        OTFAdvancedTypographicTableReader reader = ttfFile.getAdvancedTableReader();
+        assertTrue(reader.holdsFontData());
+        assertNotNull(reader.getGSUB());
+        assertTrue(reader.isTableRead(OFTableName.GDEF));
+        assertFalse(reader.isTableRead(OFTableName.GPOS));
+        assertTrue(reader.holdsFontData());
+        assertNotNull(reader.getGPOS());
+        assertFalse(reader.holdsFontData());
+        assertNotNull(reader.getGDEF());
+    }
+
+    @Test
+    public void testAdvancedTablesNotReadToDetermineShaping() throws IOException {
+        TTFFile ttfFile = readLazily("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        OTFAdvancedTypographicTableReader reader = ttfFile.getAdvancedTableReader();
+        MultiByteFont font = new MultiByteFont(ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI()), EmbeddingMode.AUTO);
+        font.setAdvancedTableReader(reader);
+        assertTrue(font.performsSubstitution());
+        assertTrue(font.performsPositioning());
+        assertFalse(reader.isTableRead(OFTableName.GDEF));
+        assertFalse(reader.isTableRead(OFTableName.GSUB));
+        assertFalse(reader.isTableRead(OFTableName.GPOS));
+        assertTrue(reader.holdsFontData());
+    }
+
+    @Test
+    public void testNoAdvancedTableReaderWithoutAdvancedTables() throws IOException {
+        assertNull(readLazily("test/resources/fonts/ttf/DroidSansMono.ttf").getAdvancedTableReader());
+    }
+
+    private TTFFile readLazily(String fileName) throws IOException {
+        TTFFile ttfFile = new TTFFile(true, true);
+        ttfFile.setReadAdvancedLazily(true);
+        InputStream in = new FileInputStream(fileName);
+        try {
+            ttfFile.readFont(new FontFileReader(in), "", (String) null);
+        } finally {
+            in.close();
+        }
+        return ttfFile;
+    }
 }
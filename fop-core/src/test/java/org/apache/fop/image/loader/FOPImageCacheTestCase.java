@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.impl.ImageBuffered;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+
+public class FOPImageCacheTestCase {
+
+    private final FOPImageCache cache = new FOPImageCache();
+
+    private static ImageRendered createImage(String uri, int width, int height) {
+        return new ImageRendered(new ImageInfo(uri, "image/png"),
+                new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), null);
+    }
+
+    @Test
+    public void testImagesAreEvictedToRespectMaxSize() {
+        cache.setMaxSize(1000);
+        //100 pixels of 4 bytes each
+        ImageRendered img1 = createImage("img1.png", 10, 10);
+        ImageRendered img2 = createImage("img2.png", 10, 10);
+        cache.putImage(img1);
+        cache.putImage(img2);
+        assertEquals(800, cache.getSize());
+        assertSame(img1, cache.getImage("img1.png", ImageFlavor.RENDERED_IMAGE));
+        cache.putImage(createImage("img3.png", 10, 10));
+        assertEquals(2, cache.getImageCount());
+        assertEquals(800, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        //img2 is evicted as img1 has been used more recently
+        assertSame(img1, cache.getImage("img1.png", ImageFlavor.RENDERED_IMAGE));
+        assertEquals(2, cache.getHitCount());
+        cache.getImage("img2.png", ImageFlavor.RENDERED_IMAGE);
+        assertEquals(1, cache.getMissCount());
+
+        cache.setMaxSize(500);
+        assertEquals(1, cache.getImageCount());
+        assertEquals(400, cache.getSize());
+    }
+
+    @Test
+    public void testImagesLargerThanMaxSizeAreNotKept() {
+        cache.setMaxSize(100);
+        cache.putImage(createImage("img1.png", 10, 10));
+        assertEquals(0, cache.getImageCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testNoImagesAreKeptByDefault() {
+        cache.putImage(createImage("img1.png", 10, 10));
+        assertEquals(0, cache.getMaxSize());
+        assertEquals(0, cache.getImageCount());
+    }
+
+    @Test
+    public void testRawStreamSize() {
+        ImageRawStream img = new ImageRawStream(new ImageInfo("img.jpg", "image/jpeg"),
+                ImageFlavor.RAW_JPEG, new ImageRawStream.InputStreamFactory() {
+                    public InputStream createInputStream() {
+                        return new ByteArrayInputStream(new byte[1234]);
+                    }
+                    public boolean isUsedOnceOnly() {
+                        return false;
+                    }
+                    public void close() {
+                    }
+                });
+        assertEquals(1234, FOPImageCache.getByteSize(img));
+        cache.setMaxSize(2000);
+        cache.putImage(img);
+        assertSame(img, cache.getImage("img.jpg", ImageFlavor.RAW_JPEG));
+        assertNull(cache.getImage("img.jpg", ImageFlavor.RENDERED_IMAGE));
+    }
+
+    @Test
+    public void testRawStreamOfUnknownSizeIsNotRead() {
+        ImageRawStream img = new ImageRawStream(new ImageInfo("http://host/img.jpg", "image/jpeg"),
+                ImageFlavor.RAW_JPEG, new ImageRawStream.InputStreamFactory() {
+                    public InputStream createInputStream() {
+                        return new InputStream() {
+                            public int read() {
+                                throw new AssertionError("The stream must not be read");
+                            }
+                        };
+                    }
+                    public boolean isUsedOnceOnly() {
+                        return false;
+                    }
+                    public void close() {
+                    }
+                });
+        assertEquals(-1, FOPImageCache.getByteSize(img));
+        cache.setMaxSize(2000);
+        cache.putImage(img);
+        assertEquals(0, cache.getImageCount());
+    }
+
+    @Test
+    public void testModifiedFilesAreLoadedAgain() throws Exception {
+        File file = File.createTempFile("img", ".png");
+        try {
+            String uri = file.toURI().toString();
+            file.setLastModified(1000000000L);
+            cache.setMaxSize(1000);
+            ImageRendered img = createImage(uri, 10, 10);
+            cache.putImage(img);
+            assertSame(img, cache.getImage(uri, ImageFlavor.RENDERED_IMAGE));
+            file.setLastModified(2000000000L);
+            assertNull(cache.getImage(uri, ImageFlavor.RENDERED_IMAGE));
+            assertEquals(0, cache.getImageCount());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testOnlyImagesOfModifiedFileAreDropped() throws Exception {
+        File file = File.createTempFile("img", ".png");
+        try {
+            String uri = file.toURI().toString();
+            file.setLastModified(1000000000L);
+            cache.setMaxSize(1000);
+            ImageRendered other = createImage("img2.png", 10, 10);
+            cache.putImage(other);
+            cache.putImage(createImage(uri, 10, 10));
+            //too large to be kept by this cache, so it's left to the soft references
+            ImageBuffered large = new ImageBuffered(new ImageInfo(uri, "image/png"),
+                    new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB), null);
+            cache.putImage(large);
+            assertSame(large, cache.getImage(uri, ImageFlavor.BUFFERED_IMAGE));
+
+            file.setLastModified(2000000000L);
+            assertNull(cache.getImage(uri, ImageFlavor.RENDERED_IMAGE));
+            assertNull(cache.getImage(uri, ImageFlavor.BUFFERED_IMAGE));
+            assertEquals(1, cache.getImageCount());
+            assertSame(other, cache.getImage("img2.png", ImageFlavor.RENDERED_IMAGE));
+
+            ImageBuffered reloaded = new ImageBuffered(new ImageInfo(uri, "image/png"),
+                    new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB), null);
+            cache.putImage(reloaded);
+            assertSame(reloaded, cache.getImage(uri, ImageFlavor.BUFFERED_IMAGE));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader.batik;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.color.ColorSpace;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.gvt.GraphicsNode;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageProcessingHints;
+import org.apache.xmlgraphics.image.loader.ImageSize;
+import org.apache.xmlgraphics.image.loader.impl.AbstractImageConverter;
+import org.apache.xmlgraphics.image.loader.impl.ImageBuffered;
+import org.apache.xmlgraphics.image.loader.impl.ImageGraphics2D;
+import org.apache.xmlgraphics.image.loader.spi.ImageConverter;
+import org.apache.xmlgraphics.image.loader.spi.ImageImplRegistry;
+import org.apache.xmlgraphics.java2d.Graphics2DImagePainter;
+
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.image.loader.FOPImageManager;
+
+public class CachingImageConverterG2D2BitmapTestCase {
+
+    private static final String SVG
+            = "<svg xmlns='http://www.w3.org/2000/svg' width='20' height='10'>"
+            + "<rect width='20' height='10' fill='green'/></svg>";
+
+    private final CachingImageConverterG2D2Bitmap converter = new CachingImageConverterG2D2Bitmap();
+
+    private final FOPImageManager imageManager = createImageManager();
+
+    private static FOPImageManager createImageManager() {
+        return (FOPImageManager) FopFactory.newInstance(new File(".").toURI()).getImageManager();
+    }
+
+    private Graphics2DImagePainterImpl createPainter(Object contentKey) throws Exception {
+        return createPainter(contentKey, imageManager);
+    }
+
+    private static Graphics2DImagePainterImpl createPainter(Object contentKey, ImageManager imageManager)
+            throws Exception {
+        SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(null);
+        Document doc = factory.createDocument("file:test.svg", IOUtils.toInputStream(SVG));
+        BridgeContext ctx = new GenericFOPBridgeContext(new UserAgentAdapter(), null, imageManager, null);
+        GraphicsNode root = new GVTBuilder().build(ctx, doc);
+        Graphics2DImagePainterImpl painter = new Graphics2DImagePainterImpl(root, ctx,
+                new Dimension(20000, 10000));
+        painter.setContentKey(contentKey);
+        return painter;
+    }
+
+    private static ImageGraphics2D createImage(Graphics2DImagePainter painter) {
+        ImageInfo info = new ImageInfo("test.svg", "image/svg+xml");
+        ImageSize size = new ImageSize();
+        size.setSizeInMillipoints(20000, 10000);
+        info.setSize(size);
+        return new ImageGraphics2D(info, painter);
+    }
+
+    private BufferedImage convert(ImageGraphics2D image, int resolution, String bitmapType)
+            throws Exception {
+        Map<Object, Object> hints = new HashMap<Object, Object>();
+        hints.put(ImageProcessingHints.TARGET_RESOLUTION, resolution);
+        if (bitmapType != null) {
+            hints.put(ImageProcessingHints.BITMAP_TYPE_INTENT, bitmapType);
+        }
+        return ((ImageBuffered) converter.convert(image, hints)).getBufferedImage();
+    }
+
+    @Test
+    public void testBitmapIsReusedForSameSettings() throws Exception {
+        Graphics2DImagePainter painter = createPainter("test.svg");
+        BufferedImage bitmap = convert(createImage(painter), 144, null);
+        assertEquals(40, bitmap.getWidth());
+        assertEquals(20, bitmap.getHeight());
+        assertSame(bitmap, convert(createImage(painter), 144, null));
+        assertEquals(1, imageManager.getBitmapCache().getHitCount());
+
+        BufferedImage larger = convert(createImage(painter), 288, null);
+        assertEquals(80, larger.getWidth());
+        BufferedImage gray = convert(createImage(painter), 144,
+                ImageProcessingHints.BITMAP_TYPE_INTENT_GRAY);
+        assertEquals(ColorSpace.TYPE_GRAY, gray.getColorModel().getColorSpace().getType());
+        assertEquals(3, imageManager.getBitmapCache().getCount());
+    }
+
+    @Test
+    public void testBitmapIsSharedByPaintersOfEqualContent() throws Exception {
+        Graphics2DImagePainterImpl painter = createPainter("test.svg");
+        BufferedImage bitmap = convert(createImage(painter), 72, null);
+        assertSame(bitmap, convert(createImage(createPainter("test.svg")), 72, null));
+        assertNotSame(bitmap, convert(createImage(createPainter("other.svg")), 72, null));
+        //the cache doesn't keep the GVT trees of the painters
+        List<Object> key = CachingImageConverterG2D2Bitmap.createKey(createImage(painter), 24, false,
+                72, false);
+        assertFalse(key.contains(painter.getRoot()));
+    }
+
+    @Test
+    public void testBitmapsAreKeptPerImageManager() throws Exception {
+        BufferedImage bitmap = convert(createImage(createPainter("test.svg")), 72, null);
+        FOPImageManager otherManager = createImageManager();
+        assertNotSame(bitmap, convert(createImage(createPainter("test.svg", otherManager)), 72, null));
+        assertEquals(1, imageManager.getBitmapCache().getCount());
+        assertEquals(1, otherManager.getBitmapCache().getCount());
+        //graphics loaded without an FOP image manager aren't cached
+        assertNotSame(bitmap, convert(createImage(createPainter("test.svg", null)), 72, null));
+    }
+
+    @Test
+    public void testOtherGraphicsAreNotCached() throws Exception {
+        assertNotSame(convert(createImage(createPainter(null)), 72, null),
+                convert(createImage(createPainter(null)), 72, null));
+        Graphics2DImagePainter painter = new Graphics2DImagePainter() {
+            public void paint(Graphics2D g2d, Rectangle2D area) {
+                g2d.fill(area);
+            }
+
+            public Dimension getImageSize() {
+                return new Dimension(20000, 10000);
+            }
+        };
+        assertNull(CachingImageConverterG2D2Bitmap.createKey(createImage(painter), 24, true, 72, false));
+    }
+
+    @Test
+    public void testCacheIsBoundedByBitmapSize() {
+        BitmapCache cache = new BitmapCache(3 * 100 * 100 * 4);
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        assertEquals(100 * 100 * 4, BitmapCache.getByteSize(image));
+        List<Object> first = Collections.<Object>singletonList(1);
+        cache.put(first, image);
+        cache.put(Collections.<Object>singletonList(2), image);
+        cache.get(first);
+        cache.put(Collections.<Object>singletonList(3),
+                new BufferedImage(100, 200, BufferedImage.TYPE_INT_RGB));
+        assertEquals(2, cache.getCount());
+        assertSame(image, cache.get(first));
+        assertNull(cache.get(Collections.<Object>singletonList(2)));
+        cache.put(Collections.<Object>singletonList(4),
+                new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB));
+        assertEquals(2, cache.getCount());
+    }
+
+    private static ImageConverter getBitmapConverter(ImageImplRegistry registry) {
+        ImageConverter registered = null;
+        for (Object c : registry.getImageConverters()) {
+            ImageConverter conv = (ImageConverter) c;
+            if (conv.getSourceFlavor().equals(ImageFlavor.GRAPHICS2D)
+                    && conv.getTargetFlavor().equals(ImageFlavor.BUFFERED_IMAGE)) {
+                registered = conv;
+            }
+        }
+        //The last converter between two flavors is the one used
+        return registered;
+    }
+
+    @Test
+    public void testConverterIsRegisteredByImageManager() {
+        ImageImplRegistry registry = imageManager.getRegistry();
+        assertSame(ImageImplRegistry.getDefaultInstance(), registry);
+        ImageConverter registered = getBitmapConverter(registry);
+        assertTrue(registered instanceof CachingImageConverterG2D2Bitmap);
+        //the converter is only registered once
+        assertSame(registered, getBitmapConverter(createImageManager().getRegistry()));
+    }
+
+    @Test
+    public void testConverterRegisteredOnDefaultRegistryIsUsed() {
+        //flavors of its own, so the converter isn't used by the pipelines of other tests
+        final ImageFlavor flavor = new ImageFlavor("test-flavor");
+        ImageConverter custom = new AbstractImageConverter() {
+            public Image convert(Image src, @SuppressWarnings("rawtypes") Map hints) {
+                return src;
+            }
+
+            public ImageFlavor getSourceFlavor() {
+                return flavor;
+            }
+
+            public ImageFlavor getTargetFlavor() {
+                return flavor;
+            }
+        };
+        ImageImplRegistry.getDefaultInstance().registerConverter(custom);
+        assertTrue(createImageManager().getRegistry().getImageConverters().contains(custom));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader.batik;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.anim.dom.SVGDOMImplementation;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.gvt.GraphicsNode;
+
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageProcessingHints;
+import org.apache.xmlgraphics.image.loader.ImageSize;
+import org.apache.xmlgraphics.image.loader.impl.ImageGraphics2D;
+import org.apache.xmlgraphics.image.loader.impl.ImageXMLDOM;
+import org.apache.xmlgraphics.java2d.Graphics2DImagePainter;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+
+public class ImageConverterSVG2G2DTestCase {
+
+    private static final String SVG
+            = "<svg xmlns='http://www.w3.org/2000/svg' width='20' height='10'>"
+            + "<rect width='20' height='10' fill='green'/></svg>";
+
+    private final List<GraphicsNode> roots = new ArrayList<GraphicsNode>();
+
+    private final ImageConverterSVG2G2D converter = new ImageConverterSVG2G2D() {
+        protected Graphics2DImagePainter createPainter(BridgeContext ctx, GraphicsNode root,
+                Dimension imageSize) {
+            roots.add(root);
+            return super.createPainter(ctx, root, imageSize);
+        }
+    };
+
+    private ImageXMLDOM createImage(String svg) throws Exception {
+        SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(null);
+        Document doc = factory.createDocument("file:test.svg", IOUtils.toInputStream(svg));
+        ImageInfo info = new ImageInfo("test.svg", "image/svg+xml");
+        ImageSize size = new ImageSize();
+        size.setSizeInMillipoints(20000, 10000);
+        info.setSize(size);
+        return new ImageXMLDOM(info, doc, SVGDOMImplementation.SVG_NAMESPACE_URI);
+    }
+
+    private Map<Object, Object> createHints(FOUserAgent userAgent) {
+        Map<Object, Object> hints = new HashMap<Object, Object>();
+        hints.put(ImageProcessingHints.IMAGE_MANAGER, userAgent.getImageManager());
+        hints.put(ImageProcessingHints.IMAGE_SESSION_CONTEXT, userAgent.getImageSessionContext());
+        return hints;
+    }
+
+    @Test
+    public void testGVTTreeIsReusedWithinSession() throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        Map<Object, Object> hints = createHints(userAgent);
+        converter.convert(createImage(SVG), hints);
+        converter.convert(createImage(SVG), hints);
+        assertEquals(2, roots.size());
+        assertSame(roots.get(0), roots.get(1));
+        converter.convert(createImage(SVG.replace("green", "red")), hints);
+        assertNotSame(roots.get(0), roots.get(2));
+    }
+
+    @Test
+    public void testGVTTreeIsKeptByImageSession() throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        converter.convert(createImage(SVG), createHints(userAgent));
+        GVTCache gvtCache = ((GVTCache.Holder) userAgent.getImageSessionContext()).getGVTCache();
+        assertEquals(1, gvtCache.size());
+        new ImageConverterSVG2G2D().convert(createImage(SVG), createHints(userAgent));
+        assertEquals(1, gvtCache.getHitCount());
+    }
+
+    @Test
+    public void testGVTTreeIsNotSharedBetweenSessions() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        converter.convert(createImage(SVG), createHints(fopFactory.newFOUserAgent()));
+        converter.convert(createImage(SVG), createHints(fopFactory.newFOUserAgent()));
+        assertNotSame(roots.get(0), roots.get(1));
+    }
+
+    @Test
+    public void testGVTTreeIsNotCachedWithoutSession() throws Exception {
+        Map<Object, Object> hints = new HashMap<Object, Object>();
+        converter.convert(createImage(SVG), hints);
+        converter.convert(createImage(SVG), hints);
+        assertNotSame(roots.get(0), roots.get(1));
+    }
+
+    private Object getContentKey(Map<Object, Object> hints, String svg) throws Exception {
+        ImageGraphics2D image = (ImageGraphics2D) converter.convert(createImage(svg), hints);
+        return ((Graphics2DImagePainterImpl) image.getGraphics2DImagePainter()).getContentKey();
+    }
+
+    @Test
+    public void testPaintersOfEqualDocumentsHaveEqualContentKeys() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        Object key = getContentKey(createHints(fopFactory.newFOUserAgent()), SVG);
+        assertEquals(key, getContentKey(createHints(fopFactory.newFOUserAgent()), SVG));
+        assertNotSame(roots.get(0), roots.get(1));
+        //the key doesn't keep the GVT tree of a session
+        assertFalse(((List<?>) key).contains(roots.get(0)));
+        assertFalse(key.equals(getContentKey(createHints(fopFactory.newFOUserAgent()),
+                SVG.replace("green", "red"))));
+        assertNull(getContentKey(new HashMap<Object, Object>(), SVG));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.xmlgraphics.image.rendered.AbstractRed;
+import org.apache.xmlgraphics.image.rendered.CachableRed;
+
+public class AlphaRasterImageTestCase {
+
+    private static final int WIDTH = 1200;
+
+    private static final int HEIGHT = 1000;
+
+    private static class TiledImage extends AbstractRed {
+
+        private final BufferedImage source;
+
+        TiledImage(BufferedImage source) {
+            super((CachableRed) null, new Rectangle(source.getWidth(), source.getHeight()),
+                    source.getColorModel(), source.getSampleModel().createCompatibleSampleModel(100, 100),
+                    0, 0, null);
+            this.source = source;
+        }
+
+        public WritableRaster copyData(WritableRaster wr) {
+            Rectangle r = wr.getBounds().intersection(getBounds());
+            wr.setRect(source.getRaster().createChild(r.x, r.y, r.width, r.height, r.x, r.y, null));
+            return wr;
+        }
+
+        /** The image has no sources, like an AbstractRed created without one. */
+        public Vector<RenderedImage> getSources() {
+            return new Vector<RenderedImage>();
+        }
+    }
+
+    private static byte[] output(RenderedImage image) throws Exception {
+        AlphaRasterImage alphaImage = new AlphaRasterImage("Mask:test", image);
+        assertEquals(image.getWidth(), alphaImage.getWidth());
+        assertEquals(image.getHeight(), alphaImage.getHeight());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        alphaImage.outputContents(baos);
+        return baos.toByteArray();
+    }
+
+    private static byte[] getAlpha(BufferedImage image) {
+        byte[] alpha = new byte[image.getWidth() * image.getHeight()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                alpha[y * image.getWidth() + x] = (byte) (image.getRGB(x, y) >>> 24);
+            }
+        }
+        return alpha;
+    }
+
+    @Test
+    public void testAlphaChannelOfLargeImages() throws Exception {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, (x + 3 * y) << 24 | x);
+            }
+        }
+        byte[] expected = getAlpha(image);
+        assertArrayEquals(expected, output(image));
+        assertArrayEquals(expected, output(new TiledImage(image)));
+    }
+
+    @Test
+    public void testAlphaChannelWithIndexColorModel() throws Exception {
+        byte[] values = {0, (byte) 128, (byte) 255};
+        IndexColorModel cm = new IndexColorModel(8, 3, values, values, values, values);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_INDEXED, cm);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.getRaster().setSample(x, y, 0, (x + y) % 3);
+            }
+        }
+        assertArrayEquals(getAlpha(image), output(image));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the deduplication of image and form XObjects by their content.
+ */
+public class PDFXObjectDeduplicationTestCase {
+
+    private static byte[] createData(int value) {
+        byte[] data = new byte[4 * 4 * 3];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (value + i);
+        }
+        return data;
+    }
+
+    private static PDFDocument createDocument(boolean deduplication) {
+        PDFDocument doc = new PDFDocument("test");
+        doc.setXObjectDeduplicationEnabled(deduplication);
+        return doc;
+    }
+
+    private static PDFImageXObject addImage(PDFDocument doc, String key, int value) {
+        return doc.addImage(null, new BitmapImage(key, 4, 4, createData(value), null));
+    }
+
+    private static PDFFormXObject addForm(PDFDocument doc, String key, String content,
+            Rectangle2D bbox) {
+        PDFStream stream = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+        stream.add(content);
+        return doc.addFormXObject(null, stream, null, key, bbox);
+    }
+
+    @Test
+    public void testImagesWithSameContentAreWrittenOnce() throws IOException {
+        PDFDocument doc = createDocument(true);
+        PDFImageXObject first = addImage(doc, "data:1", 0);
+        assertSame(first, addImage(doc, "data:2", 0));
+        assertSame(first, doc.getXObject("data:2"));
+
+        PDFImageXObject other = addImage(doc, "data:3", 1);
+        assertNotSame(first, other);
+        assertEquals("/Im1", first.getName().toString());
+        assertEquals("/Im2", other.getName().toString());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        first.output(out);
+        String pdf = out.toString("ISO-8859-1");
+        assertTrue(pdf.contains("/Width 4"));
+        assertTrue(pdf.contains("/Name /Im1"));
+    }
+
+    @Test
+    public void testStreamEncodedForDigestIsWritten() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        PDFDocument doc = createDocument(false);
+        addImage(doc, "data:1", 0).output(expected);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc = createDocument(true);
+        PDFImageXObject image = addImage(doc, "data:1", 0);
+        image.output(out);
+        assertEquals(expected.toString("ISO-8859-1"), out.toString("ISO-8859-1"));
+    }
+
+    @Test
+    public void testImagesAreNotDeduplicatedByDefault() {
+        PDFDocument doc = createDocument(false);
+        assertNotSame(addImage(doc, "data:1", 0), addImage(doc, "data:2", 0));
+    }
+
+    @Test
+    public void testFormsWithSameContentAreWrittenOnce() {
+        PDFDocument doc = createDocument(true);
+        Rectangle2D bbox = new Rectangle2D.Double(0, 0, 10, 20);
+        PDFFormXObject first = addForm(doc, "SVG:1", "0 0 10 20 re f\n", bbox);
+        assertSame(first, addForm(doc, "SVG:2", "0 0 10 20 re f\n", bbox));
+        assertEquals(bbox, first.getBBox());
+
+        assertNotSame(first, addForm(doc, "SVG:3", "0 0 10 20 re f\n",
+                new Rectangle2D.Double(0, 0, 20, 20)));
+        assertNotSame(first, addForm(doc, "SVG:4", "0 0 10 10 re f\n", bbox));
+    }
+
+    @Test
+    public void testFormsWithBBoxSetAfterwardsAreNotMerged() {
+        PDFDocument doc = createDocument(true);
+        PDFStream stream = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+        stream.add("0 0 10 20 re f\n");
+        PDFFormXObject first = doc.addFormXObject(null, stream, null, "SVG:1");
+        first.setBBox(new Rectangle2D.Double(0, 0, 10, 20));
+        stream = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+        stream.add("0 0 10 20 re f\n");
+        PDFFormXObject second = doc.addFormXObject(null, stream, null, "SVG:2");
+        assertNotSame(first, second);
+        second.setBBox(new Rectangle2D.Double(0, 0, 20, 20));
+        assertEquals(new Rectangle2D.Double(0, 0, 10, 20), first.getBBox());
+    }
+}
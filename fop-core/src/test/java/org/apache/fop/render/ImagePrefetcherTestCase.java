@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageException;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageProcessingHints;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+import org.apache.xmlgraphics.image.loader.impl.DefaultImageSessionContext;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+import org.apache.xmlgraphics.image.loader.util.ImageUtil;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+
+public class ImagePrefetcherTestCase {
+
+    private static final ImageFlavor[] FLAVORS = {ImageFlavor.RENDERED_IMAGE};
+
+    private final FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+
+    private final ImageManager manager = userAgent.getImageManager();
+
+    private ImageInfo preloadImage(String name) throws Exception {
+        return manager.getImageInfo(new File("test/resources/images/" + name).toURI().toString(),
+                userAgent.getImageSessionContext());
+    }
+
+    private Map<?, ?> getHints() {
+        return ImageUtil.getDefaultHints(userAgent.getImageSessionContext());
+    }
+
+    private static ImagePrefetcher createPrefetcher(final ImageManager imageManager) {
+        return new ImagePrefetcher(imageManager) {
+            protected ImageSessionContext createSessionContext() {
+                return new DefaultImageSessionContext(imageManager.getImageContext(), null);
+            }
+        };
+    }
+
+    private void awaitLoaded(ImagePrefetcher prefetcher) throws InterruptedException {
+        for (int i = 0; i < 500 && prefetcher.getPendingCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testImagesAreLoadedAfterSetup() throws Exception {
+        ImagePrefetcher prefetcher = userAgent.getImagePrefetcher();
+        assertSame(prefetcher, userAgent.getImagePrefetcher());
+        ImageInfo info = preloadImage("bgimg72dpi.gif");
+        prefetcher.prefetch(info);
+        prefetcher.prefetch(info);
+        assertEquals(1, prefetcher.getPendingCount());
+        Thread.sleep(50);
+        assertNull(manager.getCache().getImage(info, ImageFlavor.RENDERED_IMAGE));
+
+        prefetcher.setup(FLAVORS, getHints());
+        prefetcher.await(info);
+        assertEquals(0, prefetcher.getPendingCount());
+        assertNotNull(manager.getCache().getImage(info, ImageFlavor.RENDERED_IMAGE));
+    }
+
+    @Test
+    public void testImagesAreLoadedRightAwayOnceSetUp() throws Exception {
+        ImagePrefetcher prefetcher = userAgent.getImagePrefetcher();
+        prefetcher.setup(FLAVORS, getHints());
+        ImageInfo info = preloadImage("bgimg72dpi.bmp");
+        prefetcher.prefetch(info);
+        prefetcher.await(info);
+        assertNotNull(manager.getCache().getImage(info, ImageFlavor.RENDERED_IMAGE));
+        //awaiting an image that isn't pending doesn't block
+        prefetcher.await(info);
+        prefetcher.await(preloadImage("bgimg72dpi.png"));
+        assertEquals(0, prefetcher.getPendingCount());
+    }
+
+    @Test
+    public void testImagesUsedBeforeSetupAreNotLoaded() throws Exception {
+        ImagePrefetcher prefetcher = userAgent.getImagePrefetcher();
+        ImageInfo info = preloadImage("bgimg72dpi.gif");
+        prefetcher.prefetch(info);
+        prefetcher.await(info);
+        assertEquals(0, prefetcher.getPendingCount());
+        prefetcher.setup(FLAVORS, getHints());
+        Thread.sleep(50);
+        assertNull(manager.getCache().getImage(info, ImageFlavor.RENDERED_IMAGE));
+    }
+
+    @Test
+    public void testImagesAreNoLongerPendingOnceLoaded() throws Exception {
+        ImagePrefetcher prefetcher = userAgent.getImagePrefetcher();
+        prefetcher.setup(FLAVORS, getHints());
+        ImageInfo info = preloadImage("bgimg72dpi.gif");
+        prefetcher.prefetch(info);
+        awaitLoaded(prefetcher);
+        //images which are never rendered don't keep others from being loaded ahead
+        assertEquals(0, prefetcher.getPendingCount());
+        assertNotNull(manager.getCache().getImage(info, ImageFlavor.RENDERED_IMAGE));
+        assertNull(prefetcher.await(info));
+    }
+
+    /** Loads every image as a raw stream which can only be read once. */
+    private static final class RawStreamImageManager extends ImageManager {
+
+        private final List<StreamImage> images = new ArrayList<StreamImage>();
+
+        private RawStreamImageManager(ImageManager manager) {
+            super(manager.getImageContext());
+        }
+
+        public synchronized Image getImage(ImageInfo info, ImageFlavor[] flavors,
+                @SuppressWarnings("rawtypes") Map hints, ImageSessionContext session) {
+            StreamImage img = new StreamImage(info);
+            images.add(img);
+            return img;
+        }
+    }
+
+    private static final class StreamImage extends ImageRawStream {
+
+        private volatile boolean closed;
+
+        private StreamImage(ImageInfo info) {
+            super(info, ImageFlavor.RAW_JPEG, (InputStream) null);
+            setInputStreamFactory(new InputStreamFactory() {
+                public boolean isUsedOnceOnly() {
+                    return true;
+                }
+
+                public InputStream createInputStream() {
+                    return new ByteArrayInputStream(new byte[0]) {
+                        public void close() {
+                            closed = true;
+                        }
+                    };
+                }
+
+                public void close() {
+                    closed = true;
+                }
+            });
+        }
+    }
+
+    private static boolean isClosed(RawStreamImageManager rawManager) {
+        synchronized (rawManager) {
+            return rawManager.images.size() == 1 && rawManager.images.get(0).closed;
+        }
+    }
+
+    @Test
+    public void testImagesWhichCantBeCachedAreHandedOver() throws Exception {
+        RawStreamImageManager rawManager = new RawStreamImageManager(manager);
+        ImagePrefetcher prefetcher = createPrefetcher(rawManager);
+        prefetcher.setup(FLAVORS, getHints());
+        ImageInfo info = preloadImage("bgimg72dpi.jpg");
+        prefetcher.prefetch(info);
+        Image img = prefetcher.await(info);
+        assertSame(rawManager.images.get(0), img);
+        assertEquals(0, prefetcher.getPendingCount());
+        //the image is handed over only once
+        assertNull(prefetcher.await(info));
+        assertFalse(rawManager.images.get(0).closed);
+    }
+
+    @Test
+    public void testClearReleasesImagesNotRendered() throws Exception {
+        RawStreamImageManager rawManager = new RawStreamImageManager(manager);
+        ImagePrefetcher prefetcher = createPrefetcher(rawManager);
+        prefetcher.prefetch(preloadImage("bgimg72dpi.gif"));
+        prefetcher.clear();
+        assertEquals(0, prefetcher.getPendingCount());
+
+        prefetcher.setup(FLAVORS, getHints());
+        ImageInfo info = preloadImage("bgimg72dpi.jpg");
+        prefetcher.prefetch(info);
+        prefetcher.clear();
+        assertEquals(0, prefetcher.getPendingCount());
+        //the image is released once loaded if it is still being loaded
+        for (int i = 0; i < 500 && !isClosed(rawManager); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(isClosed(rawManager));
+        assertNull(prefetcher.await(info));
+    }
+
+    /** Records the image sessions images are loaded with. */
+    private static final class SessionRecordingImageManager extends ImageManager {
+
+        private final List<ImageSessionContext> sessions = new ArrayList<ImageSessionContext>();
+
+        private SessionRecordingImageManager(ImageManager manager) {
+            super(manager.getImageContext());
+        }
+
+        public Image getImage(ImageInfo info, ImageFlavor[] flavors,
+                @SuppressWarnings("rawtypes") Map hints, ImageSessionContext session)
+                throws ImageException, IOException {
+            assertSame(session, hints.get(ImageProcessingHints.IMAGE_SESSION_CONTEXT));
+            synchronized (this) {
+                sessions.add(session);
+            }
+            return super.getImage(info, flavors, hints, session);
+        }
+    }
+
+    @Test
+    public void testImagesAreLoadedInParallelWithSessionsOfTheirOwn() throws Exception {
+        SessionRecordingImageManager recordingManager = new SessionRecordingImageManager(manager);
+        ImagePrefetcher prefetcher = createPrefetcher(recordingManager);
+        prefetcher.setup(FLAVORS, getHints());
+        String[] names = {"bgimg72dpi.gif", "bgimg72dpi.png", "bgimg72dpi.bmp", "bgimg72dpi.jpg",
+                "bgimg300dpi.png", "bgimg300dpi.jpg"};
+        List<ImageInfo> infos = new ArrayList<ImageInfo>();
+        for (String name : names) {
+            ImageInfo info = preloadImage(name);
+            infos.add(info);
+            prefetcher.prefetch(info);
+        }
+        for (ImageInfo info : infos) {
+            prefetcher.await(info);
+            assertNotNull(recordingManager.getCache().getImage(info, ImageFlavor.RENDERED_IMAGE));
+        }
+        assertEquals(0, prefetcher.getPendingCount());
+        synchronized (recordingManager) {
+            assertEquals(names.length, recordingManager.sessions.size());
+            assertEquals(names.length,
+                    new HashSet<ImageSessionContext>(recordingManager.sessions).size());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawPNG;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+
+public class RawPNGUtilTestCase {
+
+    private static final int WIDTH = 37;
+
+    private static final int HEIGHT = 23;
+
+    @Test
+    public void testRGBA8() throws Exception {
+        testWriteChannels(ColorSpace.CS_sRGB, DataBuffer.TYPE_BYTE, 2, 8);
+    }
+
+    @Test
+    public void testRGBA16() throws Exception {
+        testWriteChannels(ColorSpace.CS_sRGB, DataBuffer.TYPE_USHORT, 2, 16);
+    }
+
+    @Test
+    public void testGrayAlpha8() throws Exception {
+        testWriteChannels(ColorSpace.CS_GRAY, DataBuffer.TYPE_BYTE, 0, 8);
+    }
+
+    @Test
+    public void testGrayAlpha16() throws Exception {
+        testWriteChannels(ColorSpace.CS_GRAY, DataBuffer.TYPE_USHORT, 0, 16);
+    }
+
+    private void testWriteChannels(int colorSpace, int dataType, int colorType, int bitDepth)
+            throws Exception {
+        ComponentColorModel cm = new ComponentColorModel(ColorSpace.getInstance(colorSpace), true, false,
+                Transparency.TRANSLUCENT, dataType);
+        WritableRaster raster = cm.createCompatibleWritableRaster(WIDTH, HEIGHT);
+        int bands = raster.getNumBands();
+        int max = (1 << bitDepth) - 1;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                for (int b = 0; b < bands; b++) {
+                    raster.setSample(x, y, b, (x * 31 + y * 17 + b * 101 + x * y) % max);
+                }
+            }
+        }
+        File file = File.createTempFile("rawpng", ".png");
+        try {
+            ImageIO.write(new BufferedImage(cm, raster, false, null), "png", file);
+            FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+            ImageManager manager = userAgent.getImageManager();
+            ImageSessionContext session = userAgent.getImageSessionContext();
+            ImageInfo info = manager.getImageInfo(file.toURI().toString(), session);
+            ImageRawPNG png = (ImageRawPNG) manager.getImage(info, ImageFlavor.RAW_PNG, session);
+            assertEquals(bitDepth, png.getBitDepth());
+
+            ByteArrayOutputStream color = new ByteArrayOutputStream();
+            ByteArrayOutputStream alpha = new ByteArrayOutputStream();
+            RawPNGUtil.writeChannels(png, color, alpha);
+
+            Raster colorRaster = decode(color.toByteArray(), colorType, bitDepth);
+            Raster alphaRaster = decode(alpha.toByteArray(), 0, bitDepth);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    for (int b = 0; b < bands - 1; b++) {
+                        assertEquals(raster.getSample(x, y, b), colorRaster.getSample(x, y, b));
+                    }
+                    assertEquals(raster.getSample(x, y, bands - 1), alphaRaster.getSample(x, y, 0));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /** Wraps deflated, filtered image data in a PNG file and decodes it. */
+    private static Raster decode(byte[] data, int colorType, int bitDepth) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.write(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(WIDTH);
+        headerOut.writeInt(HEIGHT);
+        headerOut.write(new byte[] {(byte) bitDepth, (byte) colorType, 0, 0, 0});
+        writeChunk(out, "IHDR", header.toByteArray());
+        writeChunk(out, "IDAT", data);
+        writeChunk(out, "IEND", new byte[0]);
+        return ImageIO.read(new ByteArrayInputStream(baos.toByteArray())).getRaster();
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+        out.writeInt(data.length);
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        out.write(typeBytes);
+        out.write(data);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
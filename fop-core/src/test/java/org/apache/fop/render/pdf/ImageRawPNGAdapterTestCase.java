@@ -20,12 +20,15 @@
 package org.apache.fop.render.pdf;
 
 import java.awt.color.ColorSpace;
+import java.awt.Transparency;
 import java.awt.color.ICC_Profile;
 import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.IndexColorModel;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
 
 import org.junit.Test;
 
@@ -36,6 +39,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.apache.xmlgraphics.image.loader.ImageInfo;
 import org.apache.xmlgraphics.image.loader.ImageSize;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawPNG;
 import org.apache.xmlgraphics.java2d.color.profile.ColorProfileUtil;
@@ -49,6 +53,7 @@ import org.apache.fop.pdf.PDFICCStream;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFProfile;
 import org.apache.fop.pdf.PDFResources;
+import org.apache.fop.pdf.PDFXObject;
 import org.apache.fop.render.RawPNGTestUtil;
 
 public class ImageRawPNGAdapterTestCase {
@@ -214,4 +219,38 @@ public class ImageRawPNGAdapterTestCase {
         pdfDictionary.output(bos);
         assertEquals(bos.toString(), "<< /ColorSpace [/Indexed /DeviceGray 0 <00>] /BitsPerComponent 1 >>");
     }
+
+    @Test
+    public void test16BitRGBAPNGSoftMask() throws IOException {
+        int width = 2;
+        int height = 2;
+        ByteArrayOutputStream idat = new ByteArrayOutputStream();
+        DeflaterOutputStream dos = new DeflaterOutputStream(idat);
+        for (int r = 0; r < height; r++) {
+            dos.write(0);
+            for (int c = 0; c < width * 4; c++) {
+                //16 bits per sample
+                dos.write(0x12);
+                dos.write(0x34);
+            }
+        }
+        dos.close();
+        ComponentColorModel cm = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+                new int[] {16, 16, 16, 16}, true, false, Transparency.TRANSLUCENT, DataBuffer.TYPE_USHORT);
+        ImageInfo info = new ImageInfo(null, "image/png");
+        info.setSize(new ImageSize(width, height, 72));
+        ImageRawPNG imageRawPNG = new ImageRawPNG(info, new ByteArrayInputStream(idat.toByteArray()),
+                cm, 16, null);
+        ImageRawPNGAdapter imageRawPNGAdapter = new ImageRawPNGAdapter(imageRawPNG, "png16");
+        PDFDocument pdfDocument = new PDFDocument("");
+        imageRawPNGAdapter.setup(pdfDocument);
+
+        PDFXObject mask = pdfDocument.getXObject("Mask:png16");
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        mask.output(bos);
+        String pdf = bos.toString("ISO-8859-1");
+        //the image and its predictor both have 16 bits per component
+        assertTrue(pdf, pdf.contains("/Predictor 15\n  /BitsPerComponent 16\n"));
+        assertTrue(pdf, pdf.contains("/Height 2\n  /BitsPerComponent 16\n"));
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+public class PDFImageHandlerSVGTestCase {
+
+    private static final Pattern FORM_DO = Pattern.compile("/(Form\\d+) Do");
+
+    private static final String SVG_LOGO
+            = "<svg xmlns='http://www.w3.org/2000/svg' width='20pt' height='10pt'>"
+            + "<defs><linearGradient id='g'><stop offset='0' stop-color='red'/>"
+            + "<stop offset='1' stop-color='blue'/></linearGradient></defs>"
+            + "<rect width='20' height='10' fill='url(#g)'/></svg>";
+
+    private static final String SVG_LINK
+            = "<svg xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink'"
+            + " width='20pt' height='10pt'><a xlink:href='http://xmlgraphics.apache.org/fop/'>"
+            + "<rect width='20' height='10' fill='green'/></a></svg>";
+
+    private byte[] renderPages(String... blocks) throws Exception {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'><fo:layout-master-set>"
+                + "<fo:simple-page-master master-name='page' page-width='210mm' page-height='297mm'>"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>");
+        for (String block : blocks) {
+            fo.append("<fo:page-sequence master-reference='page'><fo:flow flow-name='xsl-region-body'>")
+                    .append(block).append("</fo:flow></fo:page-sequence>");
+        }
+        fo.append("</fo:root>");
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, fopFactory.newFOUserAgent(), out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(fo.toString()));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toByteArray();
+    }
+
+    private static String svgBlock(String svg, String width) {
+        return "<fo:block><fo:instream-foreign-object content-width='" + width + "'>" + svg
+                + "</fo:instream-foreign-object></fo:block>";
+    }
+
+    private static List<String> getFormsPainted(byte[] pdf) throws Exception {
+        List<String> forms = new ArrayList<String>();
+        PDDocument doc = PDDocument.load(pdf);
+        try {
+            for (PDPage page : doc.getPages()) {
+                String content = new String(IOUtils.toByteArray(page.getContents()), "US-ASCII");
+                Matcher m = FORM_DO.matcher(content);
+                while (m.find()) {
+                    forms.add(m.group(1));
+                    assertEquals(PDFormXObject.class,
+                            page.getResources().getXObject(COSName.getPDFName(m.group(1))).getClass());
+                }
+            }
+        } finally {
+            doc.close();
+        }
+        return forms;
+    }
+
+    @Test
+    public void testSameSVGIsPaintedFromOneForm() throws Exception {
+        String block = svgBlock(SVG_LOGO, "40pt");
+        List<String> forms = getFormsPainted(renderPages(block, block, block));
+        assertEquals(3, forms.size());
+        assertEquals(forms.get(0), forms.get(1));
+        assertEquals(forms.get(0), forms.get(2));
+    }
+
+    @Test
+    public void testSVGAtDifferentSizesUsesDifferentForms() throws Exception {
+        List<String> forms = getFormsPainted(renderPages(svgBlock(SVG_LOGO, "40pt"),
+                svgBlock(SVG_LOGO, "80pt")));
+        assertEquals(2, forms.size());
+        assertNotEquals(forms.get(0), forms.get(1));
+    }
+
+    @Test
+    public void testSVGWithLinksIsPaintedDirectly() throws Exception {
+        String block = svgBlock(SVG_LINK, "40pt");
+        byte[] pdf = renderPages(block, block);
+        assertFalse(new String(pdf, "ISO-8859-1").contains("/Subtype /Form"));
+        PDDocument doc = PDDocument.load(pdf);
+        try {
+            for (PDPage page : doc.getPages()) {
+                assertEquals(1, page.getAnnotations().size());
+            }
+        } finally {
+            doc.close();
+        }
+    }
+}
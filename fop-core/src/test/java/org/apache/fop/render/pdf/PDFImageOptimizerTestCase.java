@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+import org.apache.xmlgraphics.image.loader.ImageSize;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawJPEG;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFXObject;
+
+public class PDFImageOptimizerTestCase {
+
+    /** 100pt x 75pt */
+    private static final Rectangle POS = new Rectangle(0, 0, 100000, 75000);
+
+    private FOUserAgent userAgent;
+
+    private PDFDocument pdfDoc;
+
+    @Before
+    public void setUp() {
+        userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        pdfDoc = new PDFDocument("test");
+        pdfDoc.setImageMaxResolution(144);
+    }
+
+    private static BufferedImage createImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x + y) % 2 == 0 ? 0xff0000 : 0x0000ff);
+            }
+        }
+        return image;
+    }
+
+    private static ImageRendered createImageRendered(BufferedImage image) {
+        ImageInfo info = new ImageInfo("test:image", "image/png");
+        ImageSize size = new ImageSize(image.getWidth(), image.getHeight(), 72);
+        size.calcSizeFromPixels();
+        info.setSize(size);
+        return new ImageRendered(info, image, null);
+    }
+
+    private String output(PDFXObject xobj) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        xobj.output(baos);
+        return baos.toString("ISO-8859-1");
+    }
+
+    @Test
+    public void testTargetSize() {
+        ImageSize size = new ImageSize(1000, 600, 72);
+        assertNull(PDFImageOptimizer.getTargetSize(size, POS, 0));
+        assertNull(PDFImageOptimizer.getTargetSize(size, POS, 1200));
+        assertEquals(new Dimension(200, 150), PDFImageOptimizer.getTargetSize(size, POS, 144));
+        assertEquals(new Dimension(1000, 600),
+                PDFImageOptimizer.getTargetSize(new ImageSize(2000, 600, 72), POS, 720));
+    }
+
+    @Test
+    public void testScale() {
+        BufferedImage scaled = PDFImageOptimizer.scale(createImage(1000, 700), 100, 70);
+        assertEquals(100, scaled.getWidth());
+        assertEquals(70, scaled.getHeight());
+        int rgb = scaled.getRGB(50, 35);
+        assertTrue(Math.abs(((rgb >> 16) & 0xff) - 0x80) < 8);
+        assertTrue(Math.abs((rgb & 0xff) - 0x80) < 8);
+    }
+
+    @Test
+    public void testImageIsDownsampledOncePerSize() throws Exception {
+        Image image = createImageRendered(createImage(1000, 750));
+        PDFXObject xobj = PDFImageOptimizer.addImage(pdfDoc, null, userAgent, image, POS);
+        String dict = output(xobj);
+        assertTrue(dict.contains("/Width 200"));
+        assertTrue(dict.contains("/Height 150"));
+        assertTrue(dict.contains("/FlateDecode"));
+        assertSame(xobj, PDFImageOptimizer.addImage(pdfDoc, null, userAgent, image, POS));
+        Rectangle smaller = new Rectangle(0, 0, 50000, 37500);
+        assertTrue(xobj != PDFImageOptimizer.addImage(pdfDoc, null, userAgent, image, smaller));
+        assertNull(PDFImageOptimizer.addImage(pdfDoc, null, userAgent,
+                createImageRendered(createImage(100, 75)), POS));
+    }
+
+    @Test
+    public void testImageIsRecompressed() throws Exception {
+        pdfDoc.setImageJPEGQuality(0.5f);
+        File file = File.createTempFile("optimizer", ".jpg");
+        try {
+            ImageIO.write(createImage(800, 600), "jpeg", file);
+            ImageManager manager = userAgent.getImageManager();
+            ImageSessionContext session = userAgent.getImageSessionContext();
+            ImageInfo info = manager.getImageInfo(file.toURI().toString(), session);
+            Image image = manager.getImage(info, ImageFlavor.RAW_JPEG, session);
+            assertTrue(image instanceof ImageRawJPEG);
+            String dict = output(PDFImageOptimizer.addImage(pdfDoc, null, userAgent, image, POS));
+            assertTrue(dict.contains("/Width 200"));
+            assertTrue(dict.contains("/DCTDecode"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static final class TrackingInputStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        private TrackingInputStream() {
+            super(new byte[0]);
+        }
+
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testStreamOfReplacedJPEGIsClosed() throws Exception {
+        File file = File.createTempFile("optimizer", ".jpg");
+        try {
+            ImageIO.write(createImage(800, 600), "jpeg", file);
+            ImageInfo info = userAgent.getImageManager().getImageInfo(file.toURI().toString(),
+                    userAgent.getImageSessionContext());
+            TrackingInputStream in = new TrackingInputStream();
+            ImageRawJPEG image = new ImageRawJPEG(info, in, 0xC0,
+                    ColorSpace.getInstance(ColorSpace.CS_sRGB), null, false);
+            Rectangle large = new Rectangle(0, 0, 800000, 600000);
+            assertNull(PDFImageOptimizer.addImage(pdfDoc, null, userAgent, image, large));
+            //the image is embedded unchanged, so its stream is still needed
+            assertFalse(in.closed);
+
+            assertNotNull(PDFImageOptimizer.addImage(pdfDoc, null, userAgent, image, POS));
+            assertTrue(in.closed);
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -73,4 +73,11 @@ public class PDFRendererConfiguratorTestCase extends
         docHandler.startDocument();
         Assert.assertTrue(getDocHandler().getThePDFDocument().isFormXObjectEnabled());
     }
+
+    @Test
+    public void testXObjectDeduplicationEnabled() throws Exception {
+        parseConfig(createBuilder().setXObjectDeduplicationEnabled(true));
+        docHandler.startDocument();
+        Assert.assertTrue(getDocHandler().getThePDFDocument().isXObjectDeduplicationEnabled());
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.ps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.ps.PSGenerator;
+import org.apache.xmlgraphics.ps.PSResource;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.EmbeddingMode;
+import org.apache.fop.fonts.EncodingMode;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.fonts.FontSubsetCache;
+import org.apache.fop.fonts.MultiByteFont;
+import org.apache.fop.fonts.Typeface;
+import org.apache.fop.fonts.truetype.OFFontLoader;
+
+public class PSFontUtilsTestCase {
+
+    private final InternalResourceResolver resolver =
+            ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private MultiByteFont loadFont(String text) throws Exception {
+        File file = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        MultiByteFont font = (MultiByteFont) new OFFontLoader(file.toURI(), null, true, EmbeddingMode.SUBSET,
+                EncodingMode.CID, false, false, resolver, false, false).getFont();
+        for (char c : text.toCharArray()) {
+            font.mapChar(c);
+        }
+        return font;
+    }
+
+    private String writeFontDict(MultiByteFont font, FontSubsetCache subsetCache) throws Exception {
+        FontInfo fontInfo = new FontInfo();
+        fontInfo.addMetrics("F1", font);
+        Map<String, Typeface> fonts = Collections.<String, Typeface>singletonMap("F1", font);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PSGenerator gen = new PSGenerator(out);
+        gen.setPSLevel(3);
+        PSFontUtils.writeFontDict(gen, fontInfo, fonts, null, subsetCache);
+        assertTrue(gen.getResourceTracker().isResourceSupplied(
+                new PSResource(PSResource.TYPE_CIDFONT, "DejaVuLGCSerif")));
+        return out.toString("US-ASCII");
+    }
+
+    @Test
+    public void testCachedFontResourceIsReused() throws Exception {
+        FontSubsetCache cache = new FontSubsetCache();
+        String uncached = writeFontDict(loadFont("ABC"), null);
+        assertEquals(uncached, writeFontDict(loadFont("ABC"), cache));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(uncached, writeFontDict(loadFont("ABC"), cache));
+        assertEquals(1, cache.getHitCount());
+        // a document using fewer glyphs in the same order can use the same subset
+        assertEquals(uncached, writeFontDict(loadFont("AB"), cache));
+        assertEquals(2, cache.getHitCount());
+        String reordered = writeFontDict(loadFont("BA"), cache);
+        assertEquals(2, cache.getHitCount());
+        assertNotEquals(uncached, reordered);
+        assertEquals(writeFontDict(loadFont("BA"), null), reordered);
+    }
+}
@@ -20,9 +20,11 @@
 package org.apache.fop.svg;
 
 import java.awt.BasicStroke;
+import java.awt.geom.Path2D;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class PDFGraphics2DTestCase {
@@ -45,4 +47,21 @@ public class PDFGraphics2DTestCase {
         assertTrue(g2d.getString().contains("[3 5] 0 d\n"));
     }
 
+    @Test
+    public void testProcessPathIterator() {
+        PDFGraphics2D g2d = new PDFGraphics2D(false);
+        Path2D path = new Path2D.Double();
+        path.moveTo(1.5, 2);
+        path.lineTo(10, 20.25);
+        path.quadTo(13, 26, 16, 20);
+        path.curveTo(1, -2, 0.123456789, 4, 5, 6);
+        path.closePath();
+        g2d.processPathIterator(path.getPathIterator(null));
+        assertEquals("1.5 2 m\n"
+                + "10 20.25 l\n"
+                + "12 24.08333333 14 24 16 20 c\n"
+                + "1 -2 0.12345679 4 5 6 c\n"
+                + "h\n", g2d.getString());
+    }
+
 }
@@ -21,6 +21,7 @@ package org.apache.fop.text.linebreak;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -324,17 +325,40 @@ public class LineBreakStatusTestCase {
         boolean result = true;
         int length = paragraph.length();
         LineBreakStatus lbs = new LineBreakStatus();
+        LineBreakStatus bulkLbs = new LineBreakStatus();
+        byte[] classes = LineBreakStatus.getLineBreakClasses(paragraph, 0, length, null);
         for (int i = 0; i < length; i++) {
             byte breakAction = lbs.nextChar(paragraph.charAt(i));
-            if (BREAK_ACTION.charAt(breakAction) != breakActions.charAt(i)) {
+            byte bulkBreakAction = bulkLbs.nextLineBreakClass(classes[i]);
+            if (BREAK_ACTION.charAt(breakAction) != breakActions.charAt(i)
+                    || bulkBreakAction != breakAction) {
                 System.err.println(paragraph);
                 System.err.println(breakActions);
                 System.err.println("pos = " + i
                     + " expected '" + breakActions.charAt(i)
-                    + "' got '" + BREAK_ACTION.charAt(breakAction) + "'");
+                    + "' got '" + BREAK_ACTION.charAt(breakAction)
+                    + "' (bulk: '" + BREAK_ACTION.charAt(bulkBreakAction) + "')");
                 result = false;
             }
         }
         return result;
     }
+
+    /**
+     * Test of the bulk classification for supplementary code points: no break inside a
+     * surrogate pair, and ideographs outside the base plane are treated like other ideographs.
+     */
+    @Test
+    public void testSupplementaryCodePoints() {
+        String text = "\u4E00\uD840\uDC00\uD840\uDC01a";
+        byte[] classes = LineBreakStatus.getLineBreakClasses(text, 0, text.length(), new byte[2]);
+        assertEquals(LineBreakUtils.LINE_BREAK_PROPERTY_ID, classes[1]);
+        assertEquals(LineBreakUtils.LINE_BREAK_PROPERTY_CM, classes[2]);
+        LineBreakStatus lbs = new LineBreakStatus();
+        StringBuffer actions = new StringBuffer();
+        for (int i = 0; i < text.length(); i++) {
+            actions.append(BREAK_ACTION.charAt(lbs.nextLineBreakClass(classes[i])));
+        }
+        assertEquals("^_^_^_", actions.toString());
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntIntHashMapTestCase {
+
+    @Test
+    public void testPutAndGet() {
+        IntIntHashMap map = new IntIntHashMap();
+        assertTrue(map.isEmpty());
+        map.put(5, 50);
+        map.put(-3, 30);
+        map.put(Integer.MIN_VALUE, 7);
+        map.put(0, 0);
+        assertEquals(4, map.size());
+        assertEquals(50, map.get(5, -1));
+        assertEquals(30, map.get(-3, -1));
+        assertEquals(7, map.get(Integer.MIN_VALUE, -1));
+        assertEquals(0, map.get(0, -1));
+        assertEquals(-1, map.get(6, -1));
+        assertTrue(map.containsKey(Integer.MIN_VALUE));
+        assertFalse(map.containsKey(6));
+        map.put(5, 51);
+        assertEquals(51, map.get(5, -1));
+        assertEquals(4, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(5));
+        assertFalse(map.containsKey(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void testGrowsLikeHashMap() {
+        IntIntHashMap map = new IntIntHashMap(2);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            int key = random.nextInt(20000) - 10000;
+            map.put(key, i);
+            expected.put(key, i);
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -10000; key < 10000; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value != null ? value : -1, map.get(key, -1));
+        }
+    }
+}
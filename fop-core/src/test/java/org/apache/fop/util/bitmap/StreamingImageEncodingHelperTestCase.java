@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util.bitmap;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.image.rendered.AbstractRed;
+import org.apache.xmlgraphics.image.rendered.CachableRed;
+import org.apache.xmlgraphics.ps.ImageEncodingHelper;
+
+public class StreamingImageEncodingHelperTestCase {
+
+    /**
+     * A tiled image which records the largest area it is asked for.
+     */
+    static class TiledImage extends AbstractRed {
+
+        private final BufferedImage source;
+
+        private int maxPixels;
+
+        TiledImage(BufferedImage source, int tileSize) {
+            super((CachableRed) null, new Rectangle(source.getWidth(), source.getHeight()),
+                    source.getColorModel(),
+                    source.getSampleModel().createCompatibleSampleModel(tileSize, tileSize), 0, 0, null);
+            this.source = source;
+        }
+
+        public WritableRaster copyData(WritableRaster wr) {
+            Rectangle r = wr.getBounds().intersection(getBounds());
+            maxPixels = Math.max(maxPixels, r.width * r.height);
+            wr.setRect(source.getRaster().createChild(r.x, r.y, r.width, r.height, r.x, r.y, null));
+            return wr;
+        }
+
+        int getMaxPixels() {
+            return maxPixels;
+        }
+
+        /** @return no source images, typed unlike the raw Vector of AbstractRed */
+        public Vector<RenderedImage> getSources() {
+            return new Vector<RenderedImage>();
+        }
+    }
+
+    static BufferedImage createImage(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * y) << 24 | x << 16 | y << 8 | (x + y));
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(ImageEncodingHelper helper) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        helper.encode(baos);
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testTiledImageIsEncodedInStrips() throws Exception {
+        BufferedImage image = createImage(1500, 1000, BufferedImage.TYPE_INT_RGB);
+        byte[] expected = encode(new ImageEncodingHelper(image));
+        assertEquals(1500 * 1000 * 3, expected.length);
+        TiledImage tiled = new TiledImage(image, 64);
+        assertArrayEquals(expected, encode(new StreamingImageEncodingHelper(tiled)));
+        assertTrue(tiled.getMaxPixels() < 1500 * 1000);
+    }
+
+    @Test
+    public void testReversedComponentsAreWrittenInBlocks() throws Exception {
+        BufferedImage image = createImage(300, 200, BufferedImage.TYPE_3BYTE_BGR);
+        ImageEncodingHelper helper = new StreamingImageEncodingHelper(image);
+        assertFalse(helper.isConverted());
+        assertArrayEquals(encode(new ImageEncodingHelper(image)), encode(helper));
+    }
+
+    @Test
+    public void testConversionSettingsAreKept() throws Exception {
+        BufferedImage image = createImage(100, 60, BufferedImage.TYPE_BYTE_BINARY);
+        TiledImage tiled = new TiledImage(image, 16);
+        ImageEncodingHelper expected = new ImageEncodingHelper(tiled);
+        expected.setBWInvert(true);
+        ImageEncodingHelper helper = new StreamingImageEncodingHelper(tiled);
+        helper.setBWInvert(true);
+        assertArrayEquals(encode(expected), encode(helper));
+    }
+
+    @Test
+    public void testStrips() {
+        BufferedImage image = createImage(100, 60, BufferedImage.TYPE_INT_RGB);
+        TiledImage tiled = new TiledImage(image, 16);
+        assertEquals(32, BitmapImageUtil.getStripHeight(tiled, 3500));
+        assertEquals(35, BitmapImageUtil.getStripHeight(image, 3500));
+        assertEquals(16, BitmapImageUtil.getStripHeight(tiled, 10));
+        BufferedImage strip = BitmapImageUtil.getStrip(tiled, 50, 10);
+        assertEquals(100, strip.getWidth());
+        assertEquals(10, strip.getHeight());
+        assertEquals(image.getRGB(70, 55), strip.getRGB(70, 5));
+        Raster raster = BitmapImageUtil.getStrip(image, 50, 10).getRaster();
+        assertEquals(image.getRaster().getDataBuffer(), raster.getDataBuffer());
+    }
+}